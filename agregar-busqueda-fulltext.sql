@@ -0,0 +1,34 @@
+-- Script para habilitar la búsqueda de texto completo en productos
+-- Ejecutar en Supabase SQL Editor (la aplicación también lo aplica al arrancar si tiene permisos,
+-- ver app.search.fulltext.auto-setup)
+
+-- 1. Extensión para ignorar tildes ("jeringa" = "jeringá")
+CREATE EXTENSION IF NOT EXISTS unaccent;
+
+-- 2. unaccent() no es IMMUTABLE; este envoltorio permite usarla en una columna generada
+CREATE OR REPLACE FUNCTION f_unaccent(text) RETURNS text
+LANGUAGE sql IMMUTABLE PARALLEL SAFE STRICT
+AS $$ SELECT public.unaccent('public.unaccent'::regdictionary, $1) $$;
+
+-- 3. Columna de búsqueda con stemming en español
+-- Peso A: nombre, B: marca, C: descripción (usados para ordenar por relevancia)
+ALTER TABLE productos
+ADD COLUMN IF NOT EXISTS search_vector tsvector GENERATED ALWAYS AS (
+    setweight(to_tsvector('spanish'::regconfig, f_unaccent(coalesce(nombre, ''))), 'A') ||
+    setweight(to_tsvector('spanish'::regconfig, f_unaccent(coalesce(marca, ''))), 'B') ||
+    setweight(to_tsvector('spanish'::regconfig, f_unaccent(coalesce(descripcion, ''))), 'C')
+) STORED;
+
+-- 4. Índice GIN
+CREATE INDEX IF NOT EXISTS idx_productos_search_vector ON productos USING GIN (search_vector);
+
+-- 5. Verificar que la búsqueda usa el índice
+EXPLAIN ANALYZE
+SELECT id, nombre, ts_rank(search_vector, to_tsquery('spanish', 'jeringa:*')) AS rank
+FROM productos
+WHERE activo = true AND search_vector @@ to_tsquery('spanish', 'jeringa:*')
+ORDER BY rank DESC, id
+LIMIT 24;
+
+-- Latencia con 100.000 productos frente a la búsqueda LIKE (SOLO en una base de pruebas):
+--   TEST_DATABASE_URL=... mvn test -Dtest=BusquedaProductoBenchmark
@@ -0,0 +1,13 @@
+-- Script SQL para la sincronización incremental del catálogo
+-- Ejecutar en Supabase SQL Editor (en producción ddl-auto=validate no la crea)
+
+-- 1. Hash del contenido (producto, variante, descripción, precio, stock) con el que la
+--    sincronización creó o actualizó cada unidad; NULL en las unidades creadas desde el panel
+ALTER TABLE unidades_venta ADD COLUMN IF NOT EXISTS hash_catalogo VARCHAR(64);
+
+-- 2. Las unidades existentes quedan con NULL: la primera sincronización las actualiza una vez
+--    y a partir de ahí solo toca las que cambien en el archivo
+
+-- 3. Verificar la carga de claves que hace la sincronización (una sola lectura secuencial)
+EXPLAIN ANALYZE
+SELECT id, variante_id, descripcion, hash_catalogo, activa FROM unidades_venta;
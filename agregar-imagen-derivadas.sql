@@ -0,0 +1,20 @@
+-- Script SQL para crear la tabla de versiones responsive de las imágenes
+-- Ejecutar en Supabase SQL Editor (en producción ddl-auto=validate no la crea)
+
+-- 1. Una fila por imagen, ancho y formato (ej. /uploads/productos/uuid_w320.webp)
+CREATE TABLE IF NOT EXISTS imagen_derivadas (
+    id BIGSERIAL PRIMARY KEY,
+    imagen_url VARCHAR(500) NOT NULL,
+    ancho INTEGER NOT NULL,
+    formato VARCHAR(10) NOT NULL,
+    url VARCHAR(500) NOT NULL
+);
+
+-- 2. Búsqueda de las derivadas de las imágenes de una página de productos
+CREATE INDEX IF NOT EXISTS idx_imagen_derivadas_imagen ON imagen_derivadas (imagen_url);
+
+-- 3. Verificar que la consulta usa el índice
+EXPLAIN ANALYZE
+SELECT imagen_url, ancho, formato, url
+FROM imagen_derivadas
+WHERE imagen_url IN ('/uploads/productos/ejemplo.jpg', '/uploads/productos/otro.jpg');
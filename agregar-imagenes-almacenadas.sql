@@ -0,0 +1,29 @@
+-- Script SQL para crear el almacén de imágenes por contenido (deduplicación)
+-- Ejecutar en Supabase SQL Editor (en producción ddl-auto=validate no la crea)
+
+-- 1. Una fila por contenido distinto (SHA-256 de los bytes subidos) con su número de referencias
+CREATE TABLE IF NOT EXISTS imagenes_almacenadas (
+    id BIGSERIAL PRIMARY KEY,
+    hash VARCHAR(64) NOT NULL,
+    url VARCHAR(500) NOT NULL,
+    thumbnail_url VARCHAR(500),
+    referencias INTEGER NOT NULL,
+    created_at TIMESTAMP
+);
+
+-- 2. El hash es único: dos subidas simultáneas del mismo archivo no pueden crear dos filas
+CREATE UNIQUE INDEX IF NOT EXISTS idx_imagenes_almacenadas_hash ON imagenes_almacenadas (hash);
+
+-- 3. Búsqueda por URL al soltar una referencia (deleteImage)
+CREATE INDEX IF NOT EXISTS idx_imagenes_almacenadas_url ON imagenes_almacenadas (url);
+
+-- 4. Verificar que ambas búsquedas usan los índices
+EXPLAIN ANALYZE
+SELECT id, referencias FROM imagenes_almacenadas
+WHERE hash = 'e3b0c44298fc1c149afbf4c8996fb92427ae41e4649b934ca495991b7852b855';
+
+EXPLAIN ANALYZE
+SELECT id, referencias FROM imagenes_almacenadas
+WHERE url = '/uploads/productos/ejemplo.jpg';
+
+-- Las imágenes subidas antes de este script no tienen fila: se siguen eliminando directamente
@@ -0,0 +1,22 @@
+-- Script SQL para agregar los índices de las consultas de pedidos del panel de administración
+-- Ejecutar en Supabase SQL Editor (en producción ddl-auto=validate no los crea)
+
+-- 1. Listado general ordenado por fecha (y paginación por keyset created_at, id)
+CREATE INDEX IF NOT EXISTS idx_pedidos_created_at_id ON pedidos (created_at, id);
+
+-- 2. Filtro por estado ordenado por fecha
+CREATE INDEX IF NOT EXISTS idx_pedidos_estado_created_at_id ON pedidos (estado, created_at, id);
+
+-- 3. Filtro por usuario ordenado por fecha (también lo usa "Mis pedidos")
+CREATE INDEX IF NOT EXISTS idx_pedidos_user_created_at_id ON pedidos (user_id, created_at, id);
+
+-- 4. Items de un pedido (carga en lote de los items de una página)
+CREATE INDEX IF NOT EXISTS idx_pedido_items_pedido_id ON pedido_items (pedido_id);
+
+-- 5. Verificar que el filtro por estado usa el índice
+EXPLAIN ANALYZE
+SELECT id, numero_pedido, estado, created_at
+FROM pedidos
+WHERE estado = 'PENDIENTE'
+ORDER BY created_at DESC, id DESC
+LIMIT 10;
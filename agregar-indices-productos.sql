@@ -0,0 +1,13 @@
+-- Script SQL para agregar el índice de la paginación por cursor del catálogo
+-- Ejecutar en Supabase SQL Editor (en producción ddl-auto=validate no lo crea)
+
+-- 1. Orden por nombre con desempate por id (keyset: (nombre, id) > (:nombre, :id))
+CREATE INDEX IF NOT EXISTS idx_productos_nombre_id ON productos (nombre, id);
+
+-- 2. Verificar que una página profunda no recorre las anteriores
+EXPLAIN ANALYZE
+SELECT id, nombre
+FROM productos
+WHERE activo = true AND (nombre > 'Jeringa' OR (nombre = 'Jeringa' AND id > 0))
+ORDER BY nombre, id
+LIMIT 11;
@@ -0,0 +1,26 @@
+-- Script SQL para agregar los índices del listado de usuarios del panel de administración
+-- Ejecutar en Supabase SQL Editor (en producción ddl-auto=validate no los crea)
+
+-- 1. Filtro por rol ordenado por nombre (también lo usa el conteo de administradores al eliminar)
+CREATE INDEX IF NOT EXISTS idx_users_role_nombre ON users (role, nombre);
+
+-- 2. Filtro por estado (activo/inactivo) ordenado por nombre
+CREATE INDEX IF NOT EXISTS idx_users_enabled_nombre ON users (enabled, nombre);
+
+-- 3. Búsqueda por prefijo de nombre, email y cédula (LOWER(...) LIKE 'texto%')
+-- text_pattern_ops permite usar el índice con LIKE aunque la base no use la colación "C"
+CREATE INDEX IF NOT EXISTS idx_users_nombre_lower_prefix ON users (LOWER(nombre) text_pattern_ops);
+CREATE INDEX IF NOT EXISTS idx_users_email_lower_prefix ON users (LOWER(email) text_pattern_ops);
+CREATE INDEX IF NOT EXISTS idx_users_ruc_cedula_prefix ON users (ruc_cedula text_pattern_ops);
+
+-- 4. Verificar que la búsqueda por prefijo usa los índices (BitmapOr sobre los tres índices)
+EXPLAIN ANALYZE
+SELECT id, nombre, email, ruc_cedula
+FROM users
+WHERE LOWER(nombre) LIKE 'mar%' OR LOWER(email) LIKE 'mar%' OR ruc_cedula LIKE 'mar%'
+ORDER BY nombre
+LIMIT 10;
+
+-- 5. Verificar el conteo de administradores
+EXPLAIN ANALYZE
+SELECT COUNT(*) FROM users WHERE role = 'ROLE_ADMIN';
@@ -0,0 +1,12 @@
+-- Script SQL para agregar la versión de los tokens JWT de cada usuario
+-- Ejecutar en Supabase SQL Editor (en producción ddl-auto=validate no la crea)
+-- Al cambiar el rol, estado o contraseña de un usuario se incrementa y sus tokens anteriores dejan de aceptarse
+
+-- 1. Columna con valor inicial 0 para los usuarios existentes
+ALTER TABLE users ADD COLUMN IF NOT EXISTS token_version INTEGER NOT NULL DEFAULT 0;
+
+-- 2. Verificar que el principal se lee por el índice único del email
+EXPLAIN ANALYZE
+SELECT id, email, role, enabled, token_version
+FROM users
+WHERE email = 'admin@inmedt.com';
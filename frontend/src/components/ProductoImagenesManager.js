@@ -19,6 +19,21 @@ import {
 import { toast } from 'react-toastify';
 import axios, { getImageUrl } from '../config/axios';
 
+// Las imágenes se procesan en segundo plano: se consulta el trabajo hasta que termine
+const esperarProcesamiento = async (jobId) => {
+  for (let intento = 0; intento < 120; intento++) {
+    await new Promise((resolve) => setTimeout(resolve, 1000));
+    const { data } = await axios.get(`/admin/productos/imagenes/jobs/${jobId}`);
+    if (data.estado === 'COMPLETADO') {
+      return data;
+    }
+    if (data.estado === 'ERROR') {
+      throw new Error(data.error || 'Error al procesar la imagen');
+    }
+  }
+  throw new Error('El procesamiento de la imagen está tardando demasiado');
+};
+
 const ProductoImagenesManager = ({ producto, onUpdate }) => {
   const [uploading, setUploading] = useState(false);
 
@@ -54,12 +69,16 @@ const ProductoImagenesManager = ({ producto, onUpdate }) => {
       );
 
       if (response.data.success) {
+        // Si la imagen ya estaba almacenada el trabajo viene terminado
+        if (response.data.estado !== 'COMPLETADO') {
+          await esperarProcesamiento(response.data.jobId);
+        }
         toast.success('Imagen principal actualizada');
         onUpdate();
       }
     } catch (error) {
       console.error('Error al subir imagen:', error);
-      toast.error(error.response?.data?.error || 'Error al subir la imagen');
+      toast.error(error.response?.data?.error || error.message || 'Error al subir la imagen');
     } finally {
       setUploading(false);
     }
@@ -95,12 +114,16 @@ const ProductoImagenesManager = ({ producto, onUpdate }) => {
       );
 
       if (response.data.success) {
+        // Si la imagen ya estaba almacenada el trabajo viene terminado
+        if (response.data.estado !== 'COMPLETADO') {
+          await esperarProcesamiento(response.data.jobId);
+        }
         toast.success('Imagen agregada a la galería');
         onUpdate();
       }
     } catch (error) {
       console.error('Error al subir imagen:', error);
-      toast.error(error.response?.data?.error || 'Error al subir la imagen');
+      toast.error(error.response?.data?.error || error.message || 'Error al subir la imagen');
     } finally {
       setUploading(false);
     }
@@ -43,6 +43,18 @@ export const getImageUrl = (imagePath) => {
   return `${IMAGES_URL}${imagePath}`;
 };
 
+// Convierte un srcset del backend ("/uploads/x_w160.webp 160w, ...") en URLs completas
+export const getSrcSet = (srcset) => {
+  if (!srcset) return undefined;
+  return srcset
+    .split(',')
+    .map((candidato) => {
+      const [url, ancho] = candidato.trim().split(/\s+/);
+      return `${getImageUrl(url)} ${ancho}`;
+    })
+    .join(', ');
+};
+
 // Crear instancia de axios con configuración personalizada
 const axiosInstance = axios.create({
   baseURL: baseURL,
@@ -80,18 +80,13 @@ const AdminPedidos = () => {
 
   const fetchEstadisticas = async () => {
     try {
-      const [totalRes, pendientesRes, confirmadosRes, entregadosRes] = await Promise.all([
-        axios.get('/admin/pedidos/all'),
-        axios.get('/admin/pedidos/estado/PENDIENTE'),
-        axios.get('/admin/pedidos/estado/CONFIRMADO'),
-        axios.get('/admin/pedidos/estado/ENTREGADO')
-      ]);
+      const response = await axios.get('/admin/pedidos/estadisticas');
 
       setEstadisticas({
-        total: totalRes.data.length,
-        pendientes: pendientesRes.data.length,
-        confirmados: confirmadosRes.data.length,
-        entregados: entregadosRes.data.length
+        total: response.data.total,
+        pendientes: response.data.PENDIENTE,
+        confirmados: response.data.CONFIRMADO,
+        entregados: response.data.ENTREGADO
       });
     } catch (error) {
       console.error('Error al cargar estadísticas:', error);
@@ -37,7 +37,7 @@ import { useAuth } from '../context/AuthContext';
 import { useCart } from '../context/CartContext';
 import { useFavoritos } from '../context/FavoritosContext';
 import { toast } from 'react-toastify';
-import axios, { getImageUrl } from '../config/axios';
+import axios, { getImageUrl, getSrcSet } from '../config/axios';
 import SEO from '../components/SEO';
 
 const ProductoDetalle = () => {
@@ -140,6 +140,30 @@ const ProductoDetalle = () => {
     ...(producto?.imagenesGaleria || [])
   ].filter(Boolean);
 
+  // Versiones responsive (srcset por formato) alineadas con images
+  const imagesResponsive = [
+    ...(producto?.imagenPrincipal ? [producto.imagenPrincipalResponsive] : []),
+    ...(producto?.imagenesGaleriaResponsive || [])
+  ];
+
+  // <picture> con una fuente por formato; el navegador elige formato y ancho según "sizes"
+  const renderImagen = (img, index, alt, sizes, style) => {
+    const responsive = imagesResponsive[index];
+    return (
+      <picture style={{ display: 'contents' }}>
+        {responsive?.fuentes?.map((fuente) => (
+          <source
+            key={fuente.tipo || 'auto'}
+            type={fuente.tipo || undefined}
+            srcSet={getSrcSet(fuente.srcset)}
+            sizes={sizes}
+          />
+        ))}
+        <img src={getImageUrl(img)} alt={alt} style={style} />
+      </picture>
+    );
+  };
+
   // Añadir structured data para el producto
   useEffect(() => {
     if (producto && selectedUnidad) {
@@ -284,15 +308,11 @@ const ProductoDetalle = () => {
                 }}
               >
                 {images.length > 0 ? (
-                  <img
-                    src={getImageUrl(images[selectedImage])}
-                    alt={producto.nombre}
-                    style={{
-                      width: '100%',
-                      height: '100%',
-                      objectFit: 'cover'
-                    }}
-                  />
+                  renderImagen(images[selectedImage], selectedImage, producto.nombre, '(max-width: 900px) 100vw, 50vw', {
+                    width: '100%',
+                    height: '100%',
+                    objectFit: 'cover'
+                  })
                 ) : (
                   <Box
                     sx={{
@@ -331,15 +351,11 @@ const ProductoDetalle = () => {
                         }
                       }}
                     >
-                      <img
-                        src={getImageUrl(img)}
-                        alt={`Vista ${index + 1}`}
-                        style={{
-                          width: '100%',
-                          height: '100%',
-                          objectFit: 'cover'
-                        }}
-                      />
+                      {renderImagen(img, index, `Vista ${index + 1}`, '80px', {
+                        width: '100%',
+                        height: '100%',
+                        objectFit: 'cover'
+                      })}
                     </Box>
                   ))}
                 </Box>
@@ -0,0 +1,80 @@
+package com.inmedt.ecommerce.benchmark;
+
+import com.inmedt.ecommerce.model.Categoria;
+import com.inmedt.ecommerce.model.Pedido;
+import com.inmedt.ecommerce.model.PedidoItem;
+import com.inmedt.ecommerce.model.Producto;
+import com.inmedt.ecommerce.model.UnidadDeVenta;
+import com.inmedt.ecommerce.model.User;
+import com.inmedt.ecommerce.model.VarianteProducto;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Entidades en memoria con la forma del catálogo real (catalogo.json), para los benchmarks
+ */
+final class Datos {
+
+    private Datos() {}
+
+    static Producto producto(long id, int variantes, int unidadesPorVariante) {
+        Categoria categoria = new Categoria("Insumos Médicos", "Categoría de prueba");
+        categoria.setId(1L);
+
+        Producto producto = new Producto("Jeringa desechable " + id, "Jeringa estéril de uso único, caja sellada",
+                "Marca " + (id % 50), categoria, true);
+        producto.setId(id);
+        producto.setImagenPrincipal("/uploads/productos/" + id + ".jpg");
+        producto.setImagenesGaleria(List.of("/uploads/productos/" + id + "-1.jpg", "/uploads/productos/" + id + "-2.jpg"));
+
+        List<VarianteProducto> listaVariantes = new ArrayList<>();
+        for (int v = 0; v < variantes; v++) {
+            VarianteProducto variante = new VarianteProducto(v + 1 + " ml", "Presentación de " + (v + 1) + " ml", producto);
+            variante.setId(id * 100 + v);
+
+            List<UnidadDeVenta> unidades = new ArrayList<>();
+            for (int u = 0; u < unidadesPorVariante; u++) {
+                // Una de cada cuatro sin stock: la conversión las filtra
+                int stock = u % 4 == 3 ? 0 : 100;
+                UnidadDeVenta unidad = new UnidadDeVenta("SKU-" + id + "-" + v + "-" + u, "Caja x " + ((u + 1) * 10) + " Unidades",
+                        new BigDecimal("12.50").add(BigDecimal.valueOf(u)), stock, variante);
+                unidad.setId(id * 10000 + v * 100 + u);
+                unidades.add(unidad);
+            }
+            variante.setUnidadesVenta(unidades);
+            listaVariantes.add(variante);
+        }
+        producto.setVariantes(listaVariantes);
+        return producto;
+    }
+
+    static User usuario() {
+        User user = new User("Cliente de prueba", "cliente@inmedt.com", "password", "1712345678");
+        user.setId(1L);
+        user.setRole(User.Role.ROLE_CLIENTE);
+        return user;
+    }
+
+    static Pedido pedido(long id) {
+        Pedido pedido = new Pedido("PED-" + id, new BigDecimal("35.00"), new BigDecimal("2.99"), new BigDecimal("5.25"),
+                new BigDecimal("43.24"), "Av. Amazonas y Naciones Unidas", usuario());
+        pedido.setId(id);
+        pedido.setCiudad("Quito");
+        pedido.setSector("Iñaquito");
+        return pedido;
+    }
+
+    static List<PedidoItem> items(Pedido pedido, int cantidad) {
+        List<PedidoItem> items = new ArrayList<>();
+        for (int i = 0; i < cantidad; i++) {
+            Producto producto = producto(i + 1, 1, 1);
+            UnidadDeVenta unidad = producto.getVariantes().get(0).getUnidadesVenta().get(0);
+            PedidoItem item = new PedidoItem(1 + i % 3, unidad.getPrecio(), pedido, unidad);
+            item.setId((long) i + 1);
+            items.add(item);
+        }
+        return items;
+    }
+}
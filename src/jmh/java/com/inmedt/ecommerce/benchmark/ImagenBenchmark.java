@@ -0,0 +1,114 @@
+package com.inmedt.ecommerce.benchmark;
+
+import com.inmedt.ecommerce.service.ImageService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.lang.invoke.MethodHandle;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * ImageService.resizeImage y saveCompressedImage con una foto sintética (degradado con ruido, para que
+ * la compresión tenga contenido real que codificar)
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class ImagenBenchmark {
+
+    private static final MethodHandle REDIMENSIONAR = Privado.metodo(ImageService.class, "resizeImage",
+            BufferedImage.class, int.class);
+
+    private static final MethodHandle GUARDAR = Privado.metodo(ImageService.class, "saveCompressedImage",
+            BufferedImage.class, String.class, String.class);
+
+    // Valores por defecto de app.image.max-size y app.image.thumbnail-size
+    private static final int MAX_SIZE = 1920;
+    private static final int THUMBNAIL_SIZE = 300;
+
+    @Param({"2400", "4000"})
+    private int ancho;
+
+    private ImageService imageService;
+
+    private BufferedImage original;
+
+    @Setup
+    public void setup() {
+        imageService = new ImageService();
+        original = foto(ancho, ancho * 3 / 4);
+    }
+
+    @Benchmark
+    public BufferedImage redimensionar() throws Throwable {
+        return (BufferedImage) REDIMENSIONAR.invoke(imageService, original, MAX_SIZE);
+    }
+
+    @Benchmark
+    public BufferedImage miniatura() throws Throwable {
+        return (BufferedImage) REDIMENSIONAR.invoke(imageService, original, THUMBNAIL_SIZE);
+    }
+
+    /**
+     * Compresión de la imagen ya redimensionada a 1920 px; no depende del ancho original
+     */
+    @State(Scope.Benchmark)
+    public static class ImagenRedimensionada {
+
+        // webp requiere las bibliotecas nativas de webp-imageio para la plataforma
+        @Param({"jpg", "webp"})
+        private String formato;
+
+        private ImageService imageService;
+
+        private BufferedImage imagen;
+
+        private Path salida;
+
+        @Setup
+        public void setup() throws Throwable {
+            imageService = new ImageService();
+            // Valor por defecto de app.image.quality
+            Privado.asignar(imageService, "imageQuality", 0.85f);
+            imagen = (BufferedImage) REDIMENSIONAR.invoke(imageService, foto(2400, 1800), MAX_SIZE);
+            salida = Files.createTempFile("inmedt-benchmark-", "." + formato);
+        }
+
+        @TearDown
+        public void tearDown() throws IOException {
+            Files.deleteIfExists(salida);
+        }
+    }
+
+    @Benchmark
+    public Path guardarComprimida(ImagenRedimensionada estado) throws Throwable {
+        GUARDAR.invoke(estado.imageService, estado.imagen, estado.salida.toString(), "." + estado.formato);
+        return estado.salida;
+    }
+
+    private static BufferedImage foto(int ancho, int alto) {
+        BufferedImage imagen = new BufferedImage(ancho, alto, BufferedImage.TYPE_INT_RGB);
+        Random random = new Random(42);
+        for (int y = 0; y < alto; y++) {
+            for (int x = 0; x < ancho; x++) {
+                int r = (x * 255 / ancho + random.nextInt(32)) & 0xFF;
+                int g = (y * 255 / alto + random.nextInt(32)) & 0xFF;
+                int b = ((x + y) * 255 / (ancho + alto) + random.nextInt(32)) & 0xFF;
+                imagen.setRGB(x, y, (r << 16) | (g << 8) | b);
+            }
+        }
+        return imagen;
+    }
+}
@@ -0,0 +1,66 @@
+package com.inmedt.ecommerce.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import com.inmedt.ecommerce.dto.ProductoResponse;
+import com.inmedt.ecommerce.model.Producto;
+import com.inmedt.ecommerce.service.ProductoService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+
+import java.lang.invoke.MethodHandle;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Serialización de Page&lt;ProductoResponse&gt;, la respuesta del listado del catálogo (GET /productos)
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class JsonBenchmark {
+
+    private static final MethodHandle CONVERTIR = Privado.metodo(ProductoService.class, "convertToProductoResponse",
+            Producto.class, Map.class);
+
+    @Param({"12", "24", "48"})
+    private int tamanoPagina;
+
+    // Misma configuración de fechas que el ObjectMapper de Spring Boot
+    private final ObjectMapper objectMapper = JsonMapper.builder()
+            .findAndAddModules()
+            .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+            .build();
+
+    private Page<ProductoResponse> pagina;
+
+    @Setup
+    public void setup() throws Throwable {
+        ProductoService productoService = new ProductoService();
+        List<ProductoResponse> productos = new ArrayList<>();
+        for (int i = 0; i < tamanoPagina; i++) {
+            Producto producto = Datos.producto(i + 1, 3, 2);
+            productos.add((ProductoResponse) CONVERTIR.invoke(productoService, producto, new HashMap<>()));
+        }
+        pagina = new PageImpl<>(productos, PageRequest.of(0, tamanoPagina, Sort.by("nombre")), 5000);
+    }
+
+    @Benchmark
+    public byte[] serializarPagina() throws Exception {
+        return objectMapper.writeValueAsBytes(pagina);
+    }
+}
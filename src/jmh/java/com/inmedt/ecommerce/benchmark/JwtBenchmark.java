@@ -0,0 +1,51 @@
+package com.inmedt.ecommerce.benchmark;
+
+import com.inmedt.ecommerce.model.User;
+import com.inmedt.ecommerce.security.JwtUtil;
+import io.jsonwebtoken.Claims;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Firma y verificación del JWT (HS256), lo que JwtAuthenticationFilter hace en cada petición autenticada
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class JwtBenchmark {
+
+    private JwtUtil jwtUtil;
+
+    private User user;
+
+    private String token;
+
+    @Setup
+    public void setup() {
+        jwtUtil = new JwtUtil();
+        // Valores por defecto de jwt.secret y jwt.expiration
+        Privado.asignar(jwtUtil, "secret", "miClaveSecretaSuperSeguraParaJWT2024");
+        Privado.asignar(jwtUtil, "expiration", 86400000L);
+        jwtUtil.init();
+
+        user = Datos.usuario();
+        token = jwtUtil.generateToken(user);
+    }
+
+    @Benchmark
+    public String firmar() {
+        return jwtUtil.generateToken(user);
+    }
+
+    @Benchmark
+    public Claims parsear() {
+        return jwtUtil.parseToken(token);
+    }
+}
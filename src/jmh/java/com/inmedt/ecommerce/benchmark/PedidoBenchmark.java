@@ -0,0 +1,104 @@
+package com.inmedt.ecommerce.benchmark;
+
+import com.inmedt.ecommerce.dto.PedidoResponse;
+import com.inmedt.ecommerce.model.Pedido;
+import com.inmedt.ecommerce.model.PedidoItem;
+import com.inmedt.ecommerce.repository.PedidoItemRepository;
+import com.inmedt.ecommerce.service.PedidoService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.reflect.Proxy;
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * PedidoService.convertToPedidoResponse y calcularCostoEnvio. El repositorio de items se reemplaza por
+ * un proxy en memoria: se mide la conversión, no la consulta.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class PedidoBenchmark {
+
+    private static final MethodHandle CONVERTIR = Privado.metodo(PedidoService.class, "convertToPedidoResponse",
+            Pedido.class);
+
+    private static final MethodHandle COSTO_ENVIO = Privado.metodo(PedidoService.class, "calcularCostoEnvio",
+            BigDecimal.class, String.class);
+
+    private static final BigDecimal SUBTOTAL = new BigDecimal("25.00");
+
+    private static final BigDecimal SUBTOTAL_ENVIO_GRATIS = new BigDecimal("60.00");
+
+    // Sin dependencias: calcularCostoEnvio solo usa constantes
+    private final PedidoService pedidoService = new PedidoService();
+
+    /**
+     * Pedido con su número de items; solo lo usa la conversión, así que los benchmarks de costo de envío
+     * no se repiten por cada valor del parámetro
+     */
+    @State(Scope.Benchmark)
+    public static class PedidoConItems {
+
+        @Param({"1", "10", "50"})
+        private int items;
+
+        private PedidoService pedidoService;
+
+        private Pedido pedido;
+
+        @Setup
+        public void setup() {
+            pedido = Datos.pedido(1L);
+            List<PedidoItem> pedidoItems = Datos.items(pedido, items);
+
+            PedidoItemRepository repositorio = (PedidoItemRepository) Proxy.newProxyInstance(
+                    PedidoItemRepository.class.getClassLoader(),
+                    new Class<?>[]{PedidoItemRepository.class},
+                    (proxy, method, args) -> {
+                        if (method.getName().equals("findByPedido")) {
+                            return pedidoItems;
+                        }
+                        throw new UnsupportedOperationException(method.getName());
+                    });
+
+            pedidoService = new PedidoService();
+            Privado.asignar(pedidoService, "pedidoItemRepository", repositorio);
+        }
+    }
+
+    @Benchmark
+    public PedidoResponse convertirPedido(PedidoConItems estado) throws Throwable {
+        return (PedidoResponse) CONVERTIR.invoke(estado.pedidoService, estado.pedido);
+    }
+
+    /**
+     * Peor caso: el último sector de la lista de Quito
+     */
+    @Benchmark
+    public BigDecimal costoEnvioQuito() throws Throwable {
+        return (BigDecimal) COSTO_ENVIO.invoke(pedidoService, SUBTOTAL, "Zámbiza");
+    }
+
+    /**
+     * Recorre toda la lista sin encontrar el sector
+     */
+    @Benchmark
+    public BigDecimal costoEnvioFueraDeQuito() throws Throwable {
+        return (BigDecimal) COSTO_ENVIO.invoke(pedidoService, SUBTOTAL, "Samborondón");
+    }
+
+    @Benchmark
+    public BigDecimal costoEnvioGratis() throws Throwable {
+        return (BigDecimal) COSTO_ENVIO.invoke(pedidoService, SUBTOTAL_ENVIO_GRATIS, "Iñaquito");
+    }
+}
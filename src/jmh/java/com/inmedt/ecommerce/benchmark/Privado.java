@@ -0,0 +1,43 @@
+package com.inmedt.ecommerce.benchmark;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+
+/**
+ * Acceso a los campos inyectados y a los métodos privados de los servicios sin levantar Spring ni
+ * cambiar su visibilidad. Los MethodHandle guardados en campos static final los optimiza el JIT
+ * como una llamada directa, así que no distorsionan la medición.
+ */
+final class Privado {
+
+    private Privado() {}
+
+    static void asignar(Object destino, String campo, Object valor) {
+        Class<?> clase = destino.getClass();
+        while (clase != null) {
+            try {
+                Field field = clase.getDeclaredField(campo);
+                field.setAccessible(true);
+                field.set(destino, valor);
+                return;
+            } catch (NoSuchFieldException e) {
+                clase = clase.getSuperclass();
+            } catch (IllegalAccessException e) {
+                throw new IllegalStateException("No se pudo asignar " + campo, e);
+            }
+        }
+        throw new IllegalArgumentException("Campo no encontrado: " + campo);
+    }
+
+    static MethodHandle metodo(Class<?> clase, String nombre, Class<?>... parametros) {
+        try {
+            Method method = clase.getDeclaredMethod(nombre, parametros);
+            method.setAccessible(true);
+            return MethodHandles.lookup().unreflect(method);
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("Método no encontrado: " + clase.getSimpleName() + "." + nombre, e);
+        }
+    }
+}
@@ -0,0 +1,55 @@
+package com.inmedt.ecommerce.benchmark;
+
+import com.inmedt.ecommerce.dto.ImagenResponsiveResponse;
+import com.inmedt.ecommerce.dto.ProductoResponse;
+import com.inmedt.ecommerce.model.Producto;
+import com.inmedt.ecommerce.service.ProductoService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.lang.invoke.MethodHandle;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * ProductoService.convertToProductoResponse: filtrado de variantes y unidades y armado del DTO
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class ProductoBenchmark {
+
+    private static final MethodHandle CONVERTIR = Privado.metodo(ProductoService.class, "convertToProductoResponse",
+            Producto.class, Map.class);
+
+    @Param({"1", "4"})
+    private int variantes;
+
+    @Param({"2", "8"})
+    private int unidadesPorVariante;
+
+    private ProductoService productoService;
+
+    private Producto producto;
+
+    // Sin versiones responsive: la conversión solo las busca en el mapa ya cargado
+    private final Map<String, ImagenResponsiveResponse> responsive = new HashMap<>();
+
+    @Setup
+    public void setup() {
+        productoService = new ProductoService();
+        producto = Datos.producto(1L, variantes, unidadesPorVariante);
+    }
+
+    @Benchmark
+    public ProductoResponse convertirProducto() throws Throwable {
+        return (ProductoResponse) CONVERTIR.invoke(productoService, producto, responsive);
+    }
+}
@@ -0,0 +1,26 @@
+package com.inmedt.ecommerce.config;
+
+import org.hibernate.boot.model.FunctionContributions;
+import org.hibernate.boot.model.FunctionContributor;
+import org.hibernate.type.StandardBasicTypes;
+
+/**
+ * Registra en Hibernate la búsqueda de texto completo de productos (search_vector @@ to_tsquery), para usarla
+ * como un predicado más en las Specification:
+ * {@code criteriaBuilder.isTrue(criteriaBuilder.function(PRODUCTO_COINCIDE, Boolean.class, root.get("id"), criteriaBuilder.literal(tsquery)))}.
+ * search_vector no está mapeada en Producto (la crea BusquedaProductoService), por eso se consulta en una subconsulta
+ * sobre el índice GIN en lugar de cargar los ids coincidentes en memoria.
+ * Se carga con ServiceLoader (META-INF/services/org.hibernate.boot.model.FunctionContributor).
+ */
+public class BusquedaFunctionContributor implements FunctionContributor {
+
+    public static final String PRODUCTO_COINCIDE = "producto_coincide";
+
+    @Override
+    public void contributeFunctions(FunctionContributions functionContributions) {
+        functionContributions.getFunctionRegistry().registerPattern(
+                PRODUCTO_COINCIDE,
+                "(?1 in (select b.id from productos b where b.search_vector @@ to_tsquery('spanish', ?2)))",
+                functionContributions.getTypeConfiguration().getBasicTypeRegistry().resolve(StandardBasicTypes.BOOLEAN));
+    }
+}
@@ -0,0 +1,51 @@
+package com.inmedt.ecommerce.config;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
+import org.springframework.cache.transaction.TransactionAwareCacheManagerProxy;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+
+import java.time.Duration;
+
+@Configuration
+@EnableCaching
+public class CacheConfig {
+
+    // Respuestas de producto por id
+    public static final String PRODUCTOS = "productos";
+
+    // Páginas de productos por (consulta, página, orden)
+    public static final String PRODUCTOS_PAGINAS = "productosPaginas";
+
+    // Listado de categorías activas y categorías por id
+    public static final String CATEGORIAS = "categorias";
+
+    @Value("${app.cache.catalogo.max-size:2000}")
+    private long maxSize;
+
+    @Value("${app.cache.catalogo.ttl-seconds:300}")
+    private long ttlSeconds;
+
+    @Bean
+    public CaffeineCacheManager caffeineCacheManager() {
+        CaffeineCacheManager cacheManager = new CaffeineCacheManager(PRODUCTOS, PRODUCTOS_PAGINAS, CATEGORIAS);
+        cacheManager.setCaffeine(Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(Duration.ofSeconds(ttlSeconds))
+                .recordStats());
+        return cacheManager;
+    }
+
+    @Bean
+    @Primary
+    public CacheManager cacheManager(CaffeineCacheManager caffeineCacheManager) {
+        // Las invalidaciones se aplican después del commit, para que una lectura concurrente
+        // no vuelva a cachear datos de una transacción que aún no se ha confirmado
+        return new TransactionAwareCacheManagerProxy(caffeineCacheManager);
+    }
+}
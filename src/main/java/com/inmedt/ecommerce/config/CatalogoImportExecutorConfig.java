@@ -0,0 +1,75 @@
+package com.inmedt.ecommerce.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import javax.sql.DataSource;
+import java.sql.SQLException;
+
+@Configuration
+public class CatalogoImportExecutorConfig {
+
+    // Importaciones y sincronizaciones del catálogo lanzadas al arrancar o desde el panel
+    public static final String CATALOGO_IMPORT_EXECUTOR = "catalogoImportExecutor";
+
+    // Escritura en paralelo de los lotes de una importación (particionados por categoría)
+    public static final String CATALOGO_IMPORT_WORKER_EXECUTOR = "catalogoImportWorkerExecutor";
+
+    // Conexiones del pool que se dejan libres para las peticiones HTTP durante una importación
+    private static final int CONEXIONES_RESERVADAS = 2;
+
+    @Value("${app.catalogo.import.jobs.queue-capacity:5}")
+    private int queueCapacity;
+
+    @Value("${app.catalogo.import.workers:0}")
+    private int workers;
+
+    @Bean(name = CATALOGO_IMPORT_EXECUTOR)
+    public ThreadPoolTaskExecutor catalogoImportExecutor() {
+        // Un solo hilo: dos importaciones a la vez competirían por las mismas claves naturales
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(1);
+        executor.setMaxPoolSize(1);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix("catalogo-import-");
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        executor.setAwaitTerminationSeconds(30);
+        return executor;
+    }
+
+    @Bean(name = CATALOGO_IMPORT_WORKER_EXECUTOR)
+    public ThreadPoolTaskExecutor catalogoImportWorkerExecutor(DataSource dataSource) {
+        // Cada worker ocupa una conexión durante su transacción: más workers que conexiones solo
+        // pondría a los hilos a esperar en el pool (y a las peticiones HTTP detrás de ellos)
+        int conexiones = tamanoPool(dataSource);
+        int maximo = Math.max(1, conexiones - CONEXIONES_RESERVADAS);
+        int size = workers > 0 ? Math.min(workers, maximo) : maximo;
+
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(size);
+        executor.setMaxPoolSize(size);
+        executor.setThreadNamePrefix("catalogo-worker-");
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        executor.setAwaitTerminationSeconds(30);
+        System.out.println("⚙️ Workers de importación del catálogo: " + size + " (pool de conexiones: " + conexiones + ")");
+        return executor;
+    }
+
+    /**
+     * unwrap en lugar de instanceof: el DataSource puede estar envuelto por un proxy
+     */
+    private int tamanoPool(DataSource dataSource) {
+        try {
+            if (dataSource.isWrapperFor(HikariDataSource.class)) {
+                return dataSource.unwrap(HikariDataSource.class).getMaximumPoolSize();
+            }
+        } catch (SQLException e) {
+            System.err.println("No se pudo leer el tamaño del pool de conexiones: " + e.getMessage());
+        }
+        // Valor por defecto de HikariCP
+        return 10;
+    }
+}
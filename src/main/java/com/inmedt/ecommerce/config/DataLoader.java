@@ -1,56 +1,51 @@
 package com.inmedt.ecommerce.config;
 
-import com.inmedt.ecommerce.service.CatalogoImportService;
+import com.inmedt.ecommerce.dto.CatalogoImportJobResponse;
+import com.inmedt.ecommerce.service.CatalogoImportJobService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.CommandLineRunner;
 import org.springframework.stereotype.Component;
 
-import java.util.Map;
-
+/**
+ * Importación del catálogo al arrancar. Solo encola el trabajo: la aplicación empieza a atender
+ * peticiones (y a responder los health checks) mientras la importación corre en segundo plano.
+ */
 @Component
 public class DataLoader implements CommandLineRunner {
 
     @Autowired
-    private CatalogoImportService catalogoImportService;
+    private CatalogoImportJobService catalogoImportJobService;
+
+    @Value("${app.catalogo.import.on-startup:true}")
+    private boolean importarAlArrancar;
+
+    @Value("${app.catalogo.import.startup-file:catalogo.json}")
+    private String archivo;
 
     @Override
     public void run(String... args) throws Exception {
-        System.out.println("\n🚀 ========================================");
-        System.out.println("📦 INICIANDO IMPORTACIÓN DE CATÁLOGO");
-        System.out.println("========================================\n");
+        if (!importarAlArrancar) {
+            System.out.println("ℹ️ Importación del catálogo al arrancar deshabilitada (app.catalogo.import.on-startup=false)");
+            return;
+        }
 
         try {
-            Map<String, Object> resultado = catalogoImportService.importarCatalogo("catalogo.json");
-
-            if ((Boolean) resultado.get("success")) {
-                System.out.println("\n✅ ========================================");
-                System.out.println("✅ IMPORTACIÓN COMPLETADA");
-                System.out.println("========================================");
-                System.out.println("📊 Categorías creadas: " + resultado.get("categoriasCreadas"));
-                System.out.println("📦 Productos creados: " + resultado.get("productosCreados"));
-                System.out.println("🔧 Variantes creadas: " + resultado.get("variantesCreadas"));
-                System.out.println("💰 Unidades creadas: " + resultado.get("unidadesCreadas"));
-                if (resultado.containsKey("errores")) {
-                    System.out.println("⚠️  Errores encontrados: " + resultado.get("errores"));
-                }
-                System.out.println("========================================\n");
-            } else {
-                System.err.println("\n❌ ========================================");
-                System.err.println("❌ ERROR EN LA IMPORTACIÓN");
-                System.err.println("========================================");
-                System.err.println("Error: " + resultado.get("error"));
-                System.err.println("========================================\n");
-            }
+            CatalogoImportJobResponse job = catalogoImportJobService.encolar(archivo, CatalogoImportJobResponse.Tipo.IMPORTACION);
+            System.out.println("\n🚀 ========================================");
+            System.out.println("📦 IMPORTACIÓN DE CATÁLOGO EN SEGUNDO PLANO");
+            System.out.println("========================================");
+            System.out.println("🆔 Trabajo: " + job.getId());
+            System.out.println("🔍 Avance: GET /api/admin/catalogo/jobs/" + job.getId());
+            System.out.println("========================================\n");
 
         } catch (Exception e) {
             System.err.println("\n❌ ========================================");
-            System.err.println("❌ ERROR CRÍTICO EN LA IMPORTACIÓN");
+            System.err.println("❌ NO SE PUDO INICIAR LA IMPORTACIÓN");
             System.err.println("========================================");
             System.err.println("Error: " + e.getMessage());
-            System.err.println("Causa: Verifica que el archivo catalogo.json esté en la raíz del proyecto");
+            System.err.println("Causa: Verifica que el archivo " + archivo + " esté en la raíz del proyecto");
             System.err.println("========================================\n");
-            e.printStackTrace();
         }
     }
 }
-
@@ -0,0 +1,49 @@
+package com.inmedt.ecommerce.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+@Configuration
+public class ImageExecutorConfig {
+
+    // Trabajos de imagen encolados desde el panel de administración (uno por subida)
+    public static final String IMAGE_JOB_EXECUTOR = "imageJobExecutor";
+
+    // Tareas de cada trabajo que se ejecutan en paralelo (redimensionar, codificar, subir)
+    public static final String IMAGE_WORKER_EXECUTOR = "imageWorkerExecutor";
+
+    @Value("${app.image.jobs.pool-size:2}")
+    private int jobPoolSize;
+
+    @Value("${app.image.jobs.queue-capacity:20}")
+    private int jobQueueCapacity;
+
+    @Value("${app.image.workers:0}")
+    private int workers;
+
+    @Bean(name = IMAGE_JOB_EXECUTOR)
+    public ThreadPoolTaskExecutor imageJobExecutor() {
+        // Cola acotada: si se llena, la subida se rechaza en lugar de acumular archivos temporales
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(jobPoolSize);
+        executor.setMaxPoolSize(jobPoolSize);
+        executor.setQueueCapacity(jobQueueCapacity);
+        executor.setThreadNamePrefix("imagen-job-");
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        executor.setAwaitTerminationSeconds(30);
+        return executor;
+    }
+
+    @Bean(name = IMAGE_WORKER_EXECUTOR)
+    public ThreadPoolTaskExecutor imageWorkerExecutor() {
+        // Trabajo de CPU: por defecto un hilo por núcleo
+        int size = workers > 0 ? workers : Runtime.getRuntime().availableProcessors();
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(size);
+        executor.setMaxPoolSize(size);
+        executor.setThreadNamePrefix("imagen-worker-");
+        return executor;
+    }
+}
@@ -0,0 +1,31 @@
+package com.inmedt.ecommerce.config;
+
+import io.micrometer.core.aop.TimedAspect;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Métricas expuestas en /actuator/prometheus (puerto de management). Spring Boot ya registra las de
+ * peticiones HTTP, pool de Hikari, JVM, executors y cachés; aquí se agregan las propias de la aplicación.
+ */
+@Configuration
+public class MetricsConfig {
+
+    // Servicios de negocio medidos con @Timed
+    public static final String CHECKOUT = "inmedt.pedidos.checkout";
+    public static final String CARRITO = "inmedt.carrito.mutaciones";
+    public static final String IMAGEN = "inmedt.imagenes.guardar";
+    public static final String CATALOGO_IMPORT = "inmedt.catalogo.importacion";
+
+    // Validación del JWT y carga del usuario en JwtAuthenticationFilter
+    public static final String JWT = "inmedt.seguridad.jwt";
+
+    /**
+     * Habilita @Timed en los beans de Spring (solo en llamadas que pasan por el proxy)
+     */
+    @Bean
+    public TimedAspect timedAspect(MeterRegistry meterRegistry) {
+        return new TimedAspect(meterRegistry);
+    }
+}
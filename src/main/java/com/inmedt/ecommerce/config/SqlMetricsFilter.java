@@ -0,0 +1,79 @@
+package com.inmedt.ecommerce.config;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+import org.springframework.web.util.ContentCachingResponseWrapper;
+
+import java.io.IOException;
+
+/**
+ * Registra cuántas sentencias SQL ejecuta cada endpoint (inmedt.http.sql.sentencias), etiquetado con el
+ * patrón de la ruta y no con la URL concreta para no multiplicar las series en Prometheus.
+ * Avisa en el log de las peticiones que superan el presupuesto de sentencias (típicamente un N+1) y,
+ * en desarrollo, devuelve el conteo en la cabecera X-SQL-Statements.
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+public class SqlMetricsFilter extends OncePerRequestFilter {
+
+    public static final String HEADER = "X-SQL-Statements";
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${app.sql.presupuesto.max-sentencias:20}")
+    private int maxSentencias;
+
+    @Value("${app.sql.presupuesto.header:false}")
+    private boolean agregarHeader;
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response,
+                                    FilterChain filterChain) throws ServletException, IOException {
+        // La cabecera se agrega al terminar, así que la respuesta se retiene hasta entonces (solo en desarrollo)
+        ContentCachingResponseWrapper respuesta = agregarHeader ? new ContentCachingResponseWrapper(response) : null;
+
+        SqlStatementCounter.iniciar();
+        try {
+            filterChain.doFilter(request, respuesta != null ? respuesta : response);
+        } finally {
+            int sentencias = SqlStatementCounter.finalizar();
+            String endpoint = endpoint(request);
+            DistributionSummary.builder("inmedt.http.sql.sentencias")
+                    .description("Sentencias SQL de Hibernate por petición HTTP")
+                    .tag("method", request.getMethod())
+                    .tag("uri", endpoint)
+                    .register(meterRegistry)
+                    .record(sentencias);
+
+            if (sentencias > maxSentencias) {
+                System.err.println("⚠️ Presupuesto de SQL excedido: " + request.getMethod() + " " + endpoint +
+                        " ejecutó " + sentencias + " sentencias (máximo " + maxSentencias + ")");
+            }
+
+            if (respuesta != null) {
+                respuesta.setHeader(HEADER, String.valueOf(sentencias));
+                respuesta.copyBodyToResponse();
+            }
+        }
+    }
+
+    /**
+     * Patrón de la ruta resuelto por Spring MVC (/productos/{id}); UNKNOWN si no llegó a ningún controlador
+     */
+    static String endpoint(HttpServletRequest request) {
+        Object patron = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        return patron != null ? patron.toString() : "UNKNOWN";
+    }
+}
@@ -0,0 +1,59 @@
+package com.inmedt.ecommerce.config;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+
+/**
+ * Cuenta las sentencias SQL que Hibernate prepara en el hilo actual. Hibernate lo instancia a partir de
+ * hibernate.session_factory.statement_inspector; SqlMetricsFilter abre y cierra el conteo en cada petición.
+ * Las sentencias fuera de un conteo abierto (trabajos en segundo plano) no se cuentan.
+ * Los conteos se pueden anidar: al cerrar uno, sus sentencias se suman al que lo contiene.
+ */
+public class SqlStatementCounter implements StatementInspector {
+
+    private static final ThreadLocal<Conteo> CONTEO = new ThreadLocal<>();
+
+    @Override
+    public String inspect(String sql) {
+        Conteo conteo = CONTEO.get();
+        if (conteo != null) {
+            conteo.sentencias++;
+        }
+        // Sin modificar la sentencia
+        return sql;
+    }
+
+    public static void iniciar() {
+        CONTEO.set(new Conteo(CONTEO.get()));
+    }
+
+    /**
+     * Sentencias contadas desde iniciar() en este hilo (0 si no hay conteo abierto)
+     */
+    public static int actual() {
+        Conteo conteo = CONTEO.get();
+        return conteo != null ? conteo.sentencias : 0;
+    }
+
+    public static int finalizar() {
+        Conteo conteo = CONTEO.get();
+        if (conteo == null) {
+            return 0;
+        }
+        if (conteo.anterior != null) {
+            conteo.anterior.sentencias += conteo.sentencias;
+            CONTEO.set(conteo.anterior);
+        } else {
+            CONTEO.remove();
+        }
+        return conteo.sentencias;
+    }
+
+    private static class Conteo {
+        private final Conteo anterior;
+        private int sentencias;
+
+        private Conteo(Conteo anterior) {
+            this.anterior = anterior;
+        }
+    }
+}
@@ -1,24 +0,0 @@
-package com.inmedt.ecommerce.config;
-
-import org.springframework.beans.factory.annotation.Value;
-import org.springframework.context.annotation.Configuration;
-import org.springframework.web.servlet.config.annotation.ResourceHandlerRegistry;
-import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
-
-import java.nio.file.Paths;
-
-@Configuration
-public class WebConfig implements WebMvcConfigurer {
-
-    @Value("${app.upload.dir:uploads/productos}")
-    private String uploadDir;
-
-    @Override
-    public void addResourceHandlers(ResourceHandlerRegistry registry) {
-        // Servir imágenes de productos
-        String uploadPath = "file:" + Paths.get(uploadDir).toAbsolutePath().toString() + "/";
-        registry.addResourceHandler("/uploads/productos/**")
-                .addResourceLocations(uploadPath);
-    }
-}
-
@@ -0,0 +1,30 @@
+package com.inmedt.ecommerce.controller;
+
+import com.inmedt.ecommerce.service.CatalogoCacheService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.Map;
+
+@RestController
+@RequestMapping("/admin/cache")
+@CrossOrigin(origins = "*")
+@PreAuthorize("hasAuthority('ROLE_ADMIN')")
+public class AdminCacheController {
+
+    @Autowired
+    private CatalogoCacheService catalogoCacheService;
+
+    @GetMapping
+    public ResponseEntity<Map<String, Object>> getEstadisticas() {
+        return ResponseEntity.ok(catalogoCacheService.getEstadisticas());
+    }
+
+    @DeleteMapping
+    public ResponseEntity<?> limpiarCache() {
+        catalogoCacheService.evictAll();
+        return ResponseEntity.ok("Caché del catálogo limpiada exitosamente");
+    }
+}
@@ -1,5 +1,6 @@
 package com.inmedt.ecommerce.controller;
 
+import com.inmedt.ecommerce.dto.CursorPageResponse;
 import com.inmedt.ecommerce.dto.PedidoResponse;
 import com.inmedt.ecommerce.dto.UpdatePedidoInfoRequest;
 import com.inmedt.ecommerce.service.AdminPedidoService;
@@ -16,6 +17,7 @@ import org.springframework.web.bind.annotation.*;
 
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Map;
 
 @RestController
 @RequestMapping("/admin/pedidos")
@@ -27,11 +29,16 @@ public class AdminPedidoController {
     private AdminPedidoService adminPedidoService;
     
     @GetMapping
-    public ResponseEntity<Page<PedidoResponse>> getAllPedidos(
+    public ResponseEntity<?> getAllPedidos(
             @RequestParam(defaultValue = "0") int page,
             @RequestParam(defaultValue = "10") int size,
             @RequestParam(defaultValue = "createdAt") String sortBy,
-            @RequestParam(defaultValue = "desc") String sortDir) {
+            @RequestParam(defaultValue = "desc") String sortDir,
+            @RequestParam(required = false) String cursor) {
+        
+        if (cursor != null) {
+            return buscarPedidosPorCursor(null, null, null, null, sortBy, sortDir, cursor, size);
+        }
         
         Sort sort = sortDir.equalsIgnoreCase("desc") ? 
             Sort.by(sortBy).descending() : Sort.by(sortBy).ascending();
@@ -41,6 +48,38 @@ public class AdminPedidoController {
         return ResponseEntity.ok(pedidos);
     }
     
+    @GetMapping("/buscar")
+    public ResponseEntity<?> buscarPedidos(
+            @RequestParam(required = false) String estado,
+            @RequestParam(required = false) Long userId,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime fechaInicio,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime fechaFin,
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "10") int size,
+            @RequestParam(defaultValue = "createdAt") String sortBy,
+            @RequestParam(defaultValue = "desc") String sortDir,
+            @RequestParam(required = false) String cursor) {
+        if (cursor != null) {
+            return buscarPedidosPorCursor(estado, userId, fechaInicio, fechaFin, sortBy, sortDir, cursor, size);
+        }
+        
+        try {
+            Sort sort = sortDir.equalsIgnoreCase("desc") ? 
+                Sort.by(sortBy).descending() : Sort.by(sortBy).ascending();
+            Pageable pageable = PageRequest.of(page, size, sort);
+            
+            Page<PedidoResponse> pedidos = adminPedidoService.buscarPedidos(estado, userId, fechaInicio, fechaFin, pageable);
+            return ResponseEntity.ok(pedidos);
+        } catch (RuntimeException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
+    
+    @GetMapping("/estadisticas")
+    public ResponseEntity<Map<String, Long>> getEstadisticas() {
+        return ResponseEntity.ok(adminPedidoService.getEstadisticas());
+    }
+    
     @GetMapping("/all")
     public ResponseEntity<List<PedidoResponse>> getAllPedidosList() {
         List<PedidoResponse> pedidos = adminPedidoService.getAllPedidos();
@@ -68,9 +107,13 @@ public class AdminPedidoController {
     }
     
     @GetMapping("/estado/{estado}")
-    public ResponseEntity<?> getPedidosByEstado(@PathVariable String estado) {
+    public ResponseEntity<?> getPedidosByEstado(
+            @PathVariable String estado,
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "10") int size) {
         try {
-            List<PedidoResponse> pedidos = adminPedidoService.getPedidosByEstado(estado);
+            Pageable pageable = PageRequest.of(page, size, Sort.by("createdAt").descending());
+            Page<PedidoResponse> pedidos = adminPedidoService.getPedidosByEstado(estado, pageable);
             return ResponseEntity.ok(pedidos);
         } catch (RuntimeException e) {
             return ResponseEntity.badRequest().body(e.getMessage());
@@ -78,16 +121,23 @@ public class AdminPedidoController {
     }
     
     @GetMapping("/usuario/{userId}")
-    public ResponseEntity<List<PedidoResponse>> getPedidosByUser(@PathVariable Long userId) {
-        List<PedidoResponse> pedidos = adminPedidoService.getPedidosByUser(userId);
+    public ResponseEntity<Page<PedidoResponse>> getPedidosByUser(
+            @PathVariable Long userId,
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "10") int size) {
+        Pageable pageable = PageRequest.of(page, size, Sort.by("createdAt").descending());
+        Page<PedidoResponse> pedidos = adminPedidoService.getPedidosByUser(userId, pageable);
         return ResponseEntity.ok(pedidos);
     }
     
     @GetMapping("/fecha")
-    public ResponseEntity<List<PedidoResponse>> getPedidosByDateRange(
+    public ResponseEntity<Page<PedidoResponse>> getPedidosByDateRange(
             @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime fechaInicio,
-            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime fechaFin) {
-        List<PedidoResponse> pedidos = adminPedidoService.getPedidosByDateRange(fechaInicio, fechaFin);
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime fechaFin,
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "10") int size) {
+        Pageable pageable = PageRequest.of(page, size, Sort.by("createdAt").descending());
+        Page<PedidoResponse> pedidos = adminPedidoService.getPedidosByDateRange(fechaInicio, fechaFin, pageable);
         return ResponseEntity.ok(pedidos);
     }
     
@@ -112,4 +162,20 @@ public class AdminPedidoController {
             return ResponseEntity.badRequest().body(e.getMessage());
         }
     }
+    
+    // Paginación por cursor (keyset): solo admite el orden por defecto, createdAt descendente
+    private ResponseEntity<?> buscarPedidosPorCursor(String estado, Long userId, LocalDateTime fechaInicio,
+                                                     LocalDateTime fechaFin, String sortBy, String sortDir,
+                                                     String cursor, int size) {
+        if (!sortBy.equals("createdAt") || !sortDir.equalsIgnoreCase("desc")) {
+            return ResponseEntity.badRequest().body("La paginación por cursor solo admite orden por createdAt descendente");
+        }
+        try {
+            CursorPageResponse<PedidoResponse> pedidos = adminPedidoService.buscarPedidosPorCursor(
+                    estado, userId, fechaInicio, fechaFin, cursor, size);
+            return ResponseEntity.ok(pedidos);
+        } catch (RuntimeException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
 }
@@ -2,7 +2,7 @@ package com.inmedt.ecommerce.controller;
 
 import com.inmedt.ecommerce.dto.*;
 import com.inmedt.ecommerce.service.AdminProductoService;
-import com.inmedt.ecommerce.service.ImageService;
+import com.inmedt.ecommerce.service.ImagenJobService;
 import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page;
@@ -29,11 +29,11 @@ public class AdminProductoController {
     private AdminProductoService adminProductoService;
 
     @Autowired
-    private ImageService imageService;
+    private ImagenJobService imagenJobService;
 
     // Gestión de Productos
     @GetMapping
-    public ResponseEntity<Page<ProductoResponse>> getAllProductos(
+    public ResponseEntity<?> getAllProductos(
             @RequestParam(defaultValue = "0") int page,
             @RequestParam(defaultValue = "10") int size,
             @RequestParam(defaultValue = "nombre") String sortBy,
@@ -41,7 +41,19 @@ public class AdminProductoController {
             @RequestParam(required = false) String search,
             @RequestParam(required = false) Long categoriaId,
             @RequestParam(required = false) Boolean activo,
-            @RequestParam(required = false) String marca) {
+            @RequestParam(required = false) String marca,
+            @RequestParam(required = false) String cursor) {
+
+        // Paginación por cursor (keyset): cursor vacío para la primera página
+        if (cursor != null) {
+            try {
+                CursorPageResponse<ProductoResponse> productos = adminProductoService.getProductosPorCursor(
+                        search, categoriaId, activo, marca, sortBy, sortDir.equalsIgnoreCase("desc"), cursor, size);
+                return ResponseEntity.ok(productos);
+            } catch (RuntimeException e) {
+                return ResponseEntity.badRequest().body(e.getMessage());
+            }
+        }
 
         Sort sort = sortDir.equalsIgnoreCase("desc") ? Sort.by(sortBy).descending() : Sort.by(sortBy).ascending();
         Pageable pageable = PageRequest.of(page, size, sort);
@@ -205,23 +217,15 @@ public class AdminProductoController {
     }
 
     // Gestión de Imágenes
+    // Las subidas se procesan en segundo plano: se responde 202 con el id del trabajo para consultar su estado
+    // (200 si el archivo ya estaba almacenado y el trabajo terminó en la misma petición)
     @PostMapping("/{id}/imagen-principal")
     public ResponseEntity<?> uploadImagenPrincipal(
             @PathVariable Long id,
             @RequestParam("imagen") MultipartFile file) {
         try {
-            Map<String, String> urls = imageService.saveProductImage(file, true);
-            String mainUrl = urls.get("main");
-            String thumbnailUrl = urls.get("thumbnail");
-
-            ProductoResponse producto = adminProductoService.updateImagenPrincipal(id, mainUrl, thumbnailUrl);
-
-            Map<String, Object> response = new HashMap<>();
-            response.put("success", true);
-            response.put("imagenPrincipal", producto.getImagenPrincipal());
-            response.put("imagenThumbnail", producto.getImagenThumbnail());
-
-            return ResponseEntity.ok(response);
+            ImagenJobResponse job = imagenJobService.encolarImagenPrincipal(id, file);
+            return ResponseEntity.status(estadoHttp(job)).body(jobAceptado(job));
         } catch (Exception e) {
             Map<String, Object> error = new HashMap<>();
             error.put("success", false);
@@ -235,16 +239,8 @@ public class AdminProductoController {
             @PathVariable Long id,
             @RequestParam("imagen") MultipartFile file) {
         try {
-            Map<String, String> urls = imageService.saveProductImage(file, false);
-            String mainUrl = urls.get("main");
-
-            ProductoResponse producto = adminProductoService.addImagenGaleria(id, mainUrl);
-
-            Map<String, Object> response = new HashMap<>();
-            response.put("success", true);
-            response.put("imagenesGaleria", producto.getImagenesGaleria());
-
-            return ResponseEntity.ok(response);
+            ImagenJobResponse job = imagenJobService.encolarImagenGaleria(id, file);
+            return ResponseEntity.status(estadoHttp(job)).body(jobAceptado(job));
         } catch (Exception e) {
             Map<String, Object> error = new HashMap<>();
             error.put("success", false);
@@ -253,6 +249,16 @@ public class AdminProductoController {
         }
     }
 
+    @GetMapping("/imagenes/jobs/{jobId}")
+    public ResponseEntity<?> getImagenJob(@PathVariable String jobId) {
+        try {
+            return ResponseEntity.ok(imagenJobService.getJob(jobId));
+        } catch (RuntimeException e) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND)
+                    .body(Map.of("success", false, "error", e.getMessage()));
+        }
+    }
+
     @DeleteMapping("/{id}/imagen-principal")
     public ResponseEntity<?> deleteImagenPrincipal(@PathVariable Long id) {
         try {
@@ -281,4 +287,16 @@ public class AdminProductoController {
                     .body(Map.of("success", false, "error", e.getMessage()));
         }
     }
+
+    private HttpStatus estadoHttp(ImagenJobResponse job) {
+        return job.getEstado() == ImagenJobResponse.Estado.COMPLETADO ? HttpStatus.OK : HttpStatus.ACCEPTED;
+    }
+
+    private Map<String, Object> jobAceptado(ImagenJobResponse job) {
+        Map<String, Object> response = new HashMap<>();
+        response.put("success", true);
+        response.put("jobId", job.getId());
+        response.put("estado", job.getEstado());
+        return response;
+    }
 }
@@ -23,18 +23,25 @@ public class AdminUserController {
     private AdminUserService adminUserService;
     
     @GetMapping
-    public ResponseEntity<Page<UserResponse>> getAllUsers(
+    public ResponseEntity<?> getAllUsers(
             @RequestParam(defaultValue = "0") int page,
             @RequestParam(defaultValue = "10") int size,
             @RequestParam(defaultValue = "nombre") String sortBy,
-            @RequestParam(defaultValue = "asc") String sortDir) {
+            @RequestParam(defaultValue = "asc") String sortDir,
+            @RequestParam(required = false) String role,
+            @RequestParam(required = false) Boolean enabled,
+            @RequestParam(required = false) String search) {
         
         Sort sort = sortDir.equalsIgnoreCase("desc") ? 
             Sort.by(sortBy).descending() : Sort.by(sortBy).ascending();
         Pageable pageable = PageRequest.of(page, size, sort);
         
-        Page<UserResponse> users = adminUserService.getAllUsers(pageable);
-        return ResponseEntity.ok(users);
+        try {
+            Page<UserResponse> users = adminUserService.buscarUsuarios(role, enabled, search, pageable);
+            return ResponseEntity.ok(users);
+        } catch (RuntimeException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
     }
     
     @GetMapping("/all")
@@ -94,9 +101,13 @@ public class AdminUserController {
     }
     
     @GetMapping("/role/{role}")
-    public ResponseEntity<?> getUsersByRole(@PathVariable String role) {
+    public ResponseEntity<?> getUsersByRole(
+            @PathVariable String role,
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "10") int size) {
         try {
-            List<UserResponse> users = adminUserService.getUsersByRole(role);
+            Pageable pageable = PageRequest.of(page, size, Sort.by("nombre").ascending());
+            Page<UserResponse> users = adminUserService.getUsersByRole(role, pageable);
             return ResponseEntity.ok(users);
         } catch (RuntimeException e) {
             return ResponseEntity.badRequest().body(e.getMessage());
@@ -104,8 +115,12 @@ public class AdminUserController {
     }
     
     @GetMapping("/status/{enabled}")
-    public ResponseEntity<List<UserResponse>> getUsersByStatus(@PathVariable Boolean enabled) {
-        List<UserResponse> users = adminUserService.getUsersByStatus(enabled);
+    public ResponseEntity<Page<UserResponse>> getUsersByStatus(
+            @PathVariable Boolean enabled,
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "10") int size) {
+        Pageable pageable = PageRequest.of(page, size, Sort.by("nombre").ascending());
+        Page<UserResponse> users = adminUserService.getUsersByStatus(enabled, pageable);
         return ResponseEntity.ok(users);
     }
 }
@@ -1,13 +1,20 @@
 package com.inmedt.ecommerce.controller;
 
-import com.inmedt.ecommerce.service.CatalogoImportService;
+import com.inmedt.ecommerce.dto.CatalogoImportJobResponse;
+import com.inmedt.ecommerce.service.CatalogoImportJobService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
 
+import java.util.HashMap;
 import java.util.Map;
 
+/**
+ * Importación y sincronización del catálogo. Se ejecutan en segundo plano: se responde 202 con el id
+ * del trabajo y su avance se consulta en /admin/catalogo/jobs/{jobId}
+ */
 @RestController
 @RequestMapping("/admin/catalogo")
 @CrossOrigin(origins = "*")
@@ -15,23 +22,51 @@ import java.util.Map;
 public class CatalogoImportController {
 
     @Autowired
-    private CatalogoImportService catalogoImportService;
+    private CatalogoImportJobService catalogoImportJobService;
 
     @PostMapping("/importar")
     public ResponseEntity<?> importarCatalogo(@RequestParam(required = false) String filePath) {
+        return encolar(filePath, CatalogoImportJobResponse.Tipo.IMPORTACION);
+    }
+
+    /**
+     * Sincronización incremental: solo escribe las unidades nuevas, modificadas o ausentes del archivo
+     * y deja el resumen de cambios en el resultado del trabajo
+     */
+    @PostMapping("/sincronizar")
+    public ResponseEntity<?> sincronizarCatalogo(@RequestParam(required = false) String filePath) {
+        return encolar(filePath, CatalogoImportJobResponse.Tipo.SINCRONIZACION);
+    }
+
+    @GetMapping("/jobs")
+    public ResponseEntity<?> getJobs() {
+        return ResponseEntity.ok(catalogoImportJobService.getJobs());
+    }
+
+    @GetMapping("/jobs/{jobId}")
+    public ResponseEntity<?> getJob(@PathVariable String jobId) {
+        try {
+            return ResponseEntity.ok(catalogoImportJobService.getJob(jobId));
+        } catch (RuntimeException e) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND)
+                    .body(Map.of("success", false, "error", e.getMessage()));
+        }
+    }
+
+    private ResponseEntity<?> encolar(String filePath, CatalogoImportJobResponse.Tipo tipo) {
         try {
             // Si no se proporciona ruta, usar la ruta por defecto
             if (filePath == null || filePath.isEmpty()) {
                 filePath = "catalogo.json";
             }
 
-            Map<String, Object> resultado = catalogoImportService.importarCatalogo(filePath);
-            
-            if ((Boolean) resultado.get("success")) {
-                return ResponseEntity.ok(resultado);
-            } else {
-                return ResponseEntity.badRequest().body(resultado);
-            }
+            CatalogoImportJobResponse job = catalogoImportJobService.encolar(filePath, tipo);
+
+            Map<String, Object> response = new HashMap<>();
+            response.put("success", true);
+            response.put("jobId", job.getId());
+            response.put("estado", job.getEstado());
+            return ResponseEntity.status(HttpStatus.ACCEPTED).body(response);
 
         } catch (Exception e) {
             return ResponseEntity.badRequest().body(Map.of(
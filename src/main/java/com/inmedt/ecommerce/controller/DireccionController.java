@@ -2,15 +2,12 @@ package com.inmedt.ecommerce.controller;
 
 import com.inmedt.ecommerce.dto.DireccionRequest;
 import com.inmedt.ecommerce.dto.DireccionResponse;
-import com.inmedt.ecommerce.model.User;
-import com.inmedt.ecommerce.repository.UserRepository;
+import com.inmedt.ecommerce.security.CurrentUserContext;
 import com.inmedt.ecommerce.service.DireccionService;
 import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
-import org.springframework.security.core.Authentication;
-import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.List;
@@ -25,15 +22,12 @@ public class DireccionController {
     private DireccionService direccionService;
 
     @Autowired
-    private UserRepository userRepository;
+    private CurrentUserContext currentUserContext;
 
     @GetMapping
-    public ResponseEntity<List<DireccionResponse>> getMisDirecciones(Authentication authentication) {
+    public ResponseEntity<List<DireccionResponse>> getMisDirecciones() {
         try {
-            UserDetails userDetails = (UserDetails) authentication.getPrincipal();
-            // Necesitamos obtener el ID del usuario desde el email
-            // Por simplicidad, asumimos que tenemos un método para esto
-            Long userId = getUserIdFromEmail(userDetails.getUsername());
+            Long userId = currentUserContext.getUserId();
             
             List<DireccionResponse> direcciones = direccionService.getDireccionesByUser(userId);
             return ResponseEntity.ok(direcciones);
@@ -44,11 +38,9 @@ public class DireccionController {
 
     @PostMapping
     public ResponseEntity<?> createDireccion(
-            @Valid @RequestBody DireccionRequest request,
-            Authentication authentication) {
+            @Valid @RequestBody DireccionRequest request) {
         try {
-            UserDetails userDetails = (UserDetails) authentication.getPrincipal();
-            Long userId = getUserIdFromEmail(userDetails.getUsername());
+            Long userId = currentUserContext.getUserId();
             
             DireccionResponse direccion = direccionService.createDireccion(userId, request);
             return ResponseEntity.ok(direccion);
@@ -60,11 +52,9 @@ public class DireccionController {
     @PutMapping("/{id}")
     public ResponseEntity<?> updateDireccion(
             @PathVariable Long id,
-            @Valid @RequestBody DireccionRequest request,
-            Authentication authentication) {
+            @Valid @RequestBody DireccionRequest request) {
         try {
-            UserDetails userDetails = (UserDetails) authentication.getPrincipal();
-            Long userId = getUserIdFromEmail(userDetails.getUsername());
+            Long userId = currentUserContext.getUserId();
             
             DireccionResponse direccion = direccionService.updateDireccion(userId, id, request);
             return ResponseEntity.ok(direccion);
@@ -74,12 +64,9 @@ public class DireccionController {
     }
 
     @DeleteMapping("/{id}")
-    public ResponseEntity<?> deleteDireccion(
-            @PathVariable Long id,
-            Authentication authentication) {
+    public ResponseEntity<?> deleteDireccion(@PathVariable Long id) {
         try {
-            UserDetails userDetails = (UserDetails) authentication.getPrincipal();
-            Long userId = getUserIdFromEmail(userDetails.getUsername());
+            Long userId = currentUserContext.getUserId();
             
             direccionService.deleteDireccion(userId, id);
             return ResponseEntity.ok().build();
@@ -89,12 +76,9 @@ public class DireccionController {
     }
 
     @PutMapping("/{id}/principal")
-    public ResponseEntity<?> setPrincipal(
-            @PathVariable Long id,
-            Authentication authentication) {
+    public ResponseEntity<?> setPrincipal(@PathVariable Long id) {
         try {
-            UserDetails userDetails = (UserDetails) authentication.getPrincipal();
-            Long userId = getUserIdFromEmail(userDetails.getUsername());
+            Long userId = currentUserContext.getUserId();
             
             DireccionResponse direccion = direccionService.setPrincipal(userId, id);
             return ResponseEntity.ok(direccion);
@@ -104,10 +88,9 @@ public class DireccionController {
     }
 
     @GetMapping("/principal")
-    public ResponseEntity<DireccionResponse> getDireccionPrincipal(Authentication authentication) {
+    public ResponseEntity<DireccionResponse> getDireccionPrincipal() {
         try {
-            UserDetails userDetails = (UserDetails) authentication.getPrincipal();
-            Long userId = getUserIdFromEmail(userDetails.getUsername());
+            Long userId = currentUserContext.getUserId();
             
             DireccionResponse direccion = direccionService.getDireccionPrincipal(userId);
             if (direccion != null) {
@@ -119,11 +102,4 @@ public class DireccionController {
             return ResponseEntity.badRequest().build();
         }
     }
-
-    // Método auxiliar para obtener el ID del usuario desde el email
-    private Long getUserIdFromEmail(String email) {
-        User user = userRepository.findByEmail(email)
-                .orElseThrow(() -> new RuntimeException("Usuario no encontrado"));
-        return user.getId();
-    }
 }
@@ -1,14 +1,11 @@
 package com.inmedt.ecommerce.controller;
 
 import com.inmedt.ecommerce.dto.FavoritoResponse;
-import com.inmedt.ecommerce.model.User;
-import com.inmedt.ecommerce.repository.UserRepository;
+import com.inmedt.ecommerce.security.CurrentUserContext;
 import com.inmedt.ecommerce.service.FavoritoService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
-import org.springframework.security.core.Authentication;
-import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.List;
@@ -24,13 +21,12 @@ public class FavoritoController {
     private FavoritoService favoritoService;
 
     @Autowired
-    private UserRepository userRepository;
+    private CurrentUserContext currentUserContext;
 
     @GetMapping
-    public ResponseEntity<List<FavoritoResponse>> getMisFavoritos(Authentication authentication) {
+    public ResponseEntity<List<FavoritoResponse>> getMisFavoritos() {
         try {
-            UserDetails userDetails = (UserDetails) authentication.getPrincipal();
-            Long userId = getUserIdFromEmail(userDetails.getUsername());
+            Long userId = currentUserContext.getUserId();
             
             List<FavoritoResponse> favoritos = favoritoService.getFavoritosByUser(userId);
             return ResponseEntity.ok(favoritos);
@@ -40,12 +36,9 @@ public class FavoritoController {
     }
 
     @PostMapping("/{productoId}")
-    public ResponseEntity<?> addFavorito(
-            @PathVariable Long productoId,
-            Authentication authentication) {
+    public ResponseEntity<?> addFavorito(@PathVariable Long productoId) {
         try {
-            UserDetails userDetails = (UserDetails) authentication.getPrincipal();
-            Long userId = getUserIdFromEmail(userDetails.getUsername());
+            Long userId = currentUserContext.getUserId();
             
             FavoritoResponse favorito = favoritoService.addFavorito(userId, productoId);
             return ResponseEntity.ok(favorito);
@@ -55,12 +48,9 @@ public class FavoritoController {
     }
 
     @DeleteMapping("/{productoId}")
-    public ResponseEntity<?> removeFavorito(
-            @PathVariable Long productoId,
-            Authentication authentication) {
+    public ResponseEntity<?> removeFavorito(@PathVariable Long productoId) {
         try {
-            UserDetails userDetails = (UserDetails) authentication.getPrincipal();
-            Long userId = getUserIdFromEmail(userDetails.getUsername());
+            Long userId = currentUserContext.getUserId();
             
             favoritoService.removeFavorito(userId, productoId);
             return ResponseEntity.ok().build();
@@ -70,12 +60,9 @@ public class FavoritoController {
     }
 
     @PostMapping("/{productoId}/toggle")
-    public ResponseEntity<?> toggleFavorito(
-            @PathVariable Long productoId,
-            Authentication authentication) {
+    public ResponseEntity<?> toggleFavorito(@PathVariable Long productoId) {
         try {
-            UserDetails userDetails = (UserDetails) authentication.getPrincipal();
-            Long userId = getUserIdFromEmail(userDetails.getUsername());
+            Long userId = currentUserContext.getUserId();
             
             FavoritoResponse favorito = favoritoService.toggleFavorito(userId, productoId);
             
@@ -90,12 +77,9 @@ public class FavoritoController {
     }
 
     @GetMapping("/{productoId}/check")
-    public ResponseEntity<Map<String, Boolean>> checkFavorito(
-            @PathVariable Long productoId,
-            Authentication authentication) {
+    public ResponseEntity<Map<String, Boolean>> checkFavorito(@PathVariable Long productoId) {
         try {
-            UserDetails userDetails = (UserDetails) authentication.getPrincipal();
-            Long userId = getUserIdFromEmail(userDetails.getUsername());
+            Long userId = currentUserContext.getUserId();
             
             boolean isFavorito = favoritoService.isFavorito(userId, productoId);
             return ResponseEntity.ok(Map.of("isFavorito", isFavorito));
@@ -113,11 +97,4 @@ public class FavoritoController {
             return ResponseEntity.badRequest().build();
         }
     }
-
-    // Método auxiliar para obtener el ID del usuario desde el email
-    private Long getUserIdFromEmail(String email) {
-        User user = userRepository.findByEmail(email)
-                .orElseThrow(() -> new RuntimeException("Usuario no encontrado"));
-        return user.getId();
-    }
 }
@@ -0,0 +1,213 @@
+package com.inmedt.ecommerce.controller;
+
+import com.inmedt.ecommerce.service.ImageService;
+import com.inmedt.ecommerce.service.ImagenRedimensionService;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.MediaTypeFactory;
+import org.springframework.stereotype.Controller;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestMethod;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.context.request.ServletWebRequest;
+
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Locale;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Entrega de las imágenes guardadas en almacenamiento local, pensada para navegadores y CDN:
+ * caché inmutable para los archivos nombrados por contenido, respuestas 304 con ETag/Last-Modified,
+ * rangos de bytes, WebP según el encabezado Accept y envío del archivo sin copiarlo (sendfile).
+ * Con ?w= y/o ?fmt= entrega una versión redimensionada, generada una vez y guardada en caché.
+ */
+@Controller
+@RequestMapping("/uploads/productos")
+public class ImagenArchivoController {
+
+    private static final String CACHE_INMUTABLE = "public, max-age=31536000, immutable";
+    // Imágenes anteriores al almacén por contenido: su nombre no garantiza que el contenido no cambie
+    private static final String CACHE_ANTERIOR = "public, max-age=86400";
+
+    private static final Pattern RANGO = Pattern.compile("^bytes=(\\d*)-(\\d*)$");
+
+    // Atributos con los que Tomcat envía el archivo con sendfile al terminar la petición
+    private static final String SENDFILE_SOPORTADO = "org.apache.tomcat.sendfile.support";
+    private static final String SENDFILE_ARCHIVO = "org.apache.tomcat.sendfile.filename";
+    private static final String SENDFILE_INICIO = "org.apache.tomcat.sendfile.start";
+    private static final String SENDFILE_FIN = "org.apache.tomcat.sendfile.end";
+
+    @Autowired
+    private ImageService imageService;
+
+    @Autowired
+    private ImagenRedimensionService imagenRedimensionService;
+
+    @RequestMapping(value = "/{filename:.+}", method = {RequestMethod.GET, RequestMethod.HEAD})
+    public void servirImagen(@PathVariable String filename,
+                             @RequestParam(value = "w", required = false) Integer ancho,
+                             @RequestParam(value = "fmt", required = false) String formato,
+                             HttpServletRequest request, HttpServletResponse response) throws IOException {
+        Path archivo = imageService.resolverArchivo(filename);
+        if (archivo == null) {
+            response.sendError(HttpStatus.NOT_FOUND.value());
+            return;
+        }
+
+        if (ancho != null || formato != null) {
+            // Sin formato explícito se negocia: WebP si el navegador lo acepta y hay escritor disponible
+            if (formato == null && imageService.puedeEscribir("webp")) {
+                response.setHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT);
+                if (aceptaWebp(request)) {
+                    formato = "webp";
+                }
+            }
+            try {
+                archivo = imagenRedimensionService.obtener(archivo, ancho, formato);
+            } catch (IllegalArgumentException e) {
+                response.sendError(HttpStatus.BAD_REQUEST.value(), e.getMessage());
+                return;
+            }
+        } else {
+            // Negociación de contenido: la versión WebP de una versión responsive, si el navegador la acepta
+            Path webp = imageService.getVersionWebp(archivo);
+            if (webp != null) {
+                response.setHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT);
+                if (aceptaWebp(request)) {
+                    archivo = webp;
+                }
+            }
+        }
+
+        long longitud = Files.size(archivo);
+        long modificado = Files.getLastModifiedTime(archivo).toMillis();
+        boolean porContenido = imageService.esNombrePorContenido(filename);
+
+        // Con nombre por contenido el nombre del archivo entregado ya identifica los bytes
+        String etag = porContenido
+                ? "\"" + archivo.getFileName() + "\""
+                : "W/\"" + Long.toHexString(longitud) + "-" + Long.toHexString(modificado) + "\"";
+
+        response.setHeader(HttpHeaders.CACHE_CONTROL, porContenido ? CACHE_INMUTABLE : CACHE_ANTERIOR);
+        response.setHeader(HttpHeaders.ACCEPT_RANGES, "bytes");
+
+        // Agrega ETag y Last-Modified; responde 304 si coinciden If-None-Match o If-Modified-Since
+        if (new ServletWebRequest(request, response).checkNotModified(etag, modificado)) {
+            return;
+        }
+
+        long inicio = 0;
+        long fin = longitud - 1;
+        String rango = request.getHeader(HttpHeaders.RANGE);
+        if (rango != null && rangoVigente(request, etag, modificado)) {
+            long[] limites = parsearRango(rango, longitud);
+            if (limites != null && (limites[0] >= longitud || limites[0] > limites[1])) {
+                response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes */" + longitud);
+                response.sendError(HttpStatus.REQUESTED_RANGE_NOT_SATISFIABLE.value());
+                return;
+            }
+            if (limites != null) {
+                inicio = limites[0];
+                fin = limites[1];
+                response.setStatus(HttpStatus.PARTIAL_CONTENT.value());
+                response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes " + inicio + "-" + fin + "/" + longitud);
+            }
+        }
+
+        response.setContentType(tipoContenido(archivo));
+        response.setContentLengthLong(fin - inicio + 1);
+
+        if (RequestMethod.HEAD.name().equals(request.getMethod()) || longitud == 0) {
+            return;
+        }
+
+        if (Boolean.TRUE.equals(request.getAttribute(SENDFILE_SOPORTADO))) {
+            // Tomcat copia del archivo al socket en el kernel, sin pasar por el heap
+            request.setAttribute(SENDFILE_ARCHIVO, archivo.toAbsolutePath().toString());
+            request.setAttribute(SENDFILE_INICIO, inicio);
+            request.setAttribute(SENDFILE_FIN, fin + 1);
+            return;
+        }
+
+        try (FileChannel canal = FileChannel.open(archivo, StandardOpenOption.READ)) {
+            WritableByteChannel salida = Channels.newChannel(response.getOutputStream());
+            long posicion = inicio;
+            while (posicion <= fin) {
+                long enviados = canal.transferTo(posicion, fin + 1 - posicion, salida);
+                if (enviados <= 0) {
+                    break;
+                }
+                posicion += enviados;
+            }
+        }
+    }
+
+    private boolean aceptaWebp(HttpServletRequest request) {
+        String accept = request.getHeader(HttpHeaders.ACCEPT);
+        return accept != null && accept.contains("image/webp");
+    }
+
+    /**
+     * Un solo rango "bytes=a-b", "bytes=a-" o "bytes=-n" (últimos n bytes).
+     * @return {inicio, fin}, o null si el encabezado pide varios rangos o no se entiende:
+     * en ese caso se responde el archivo completo, como permite la especificación
+     */
+    private long[] parsearRango(String rango, long longitud) {
+        Matcher matcher = RANGO.matcher(rango.trim());
+        if (!matcher.matches() || (matcher.group(1).isEmpty() && matcher.group(2).isEmpty())) {
+            return null;
+        }
+
+        try {
+            if (matcher.group(1).isEmpty()) {
+                long sufijo = Long.parseLong(matcher.group(2));
+                return new long[] {Math.max(0, longitud - sufijo), longitud - 1};
+            }
+            long inicio = Long.parseLong(matcher.group(1));
+            long fin = matcher.group(2).isEmpty() ? longitud - 1 : Math.min(Long.parseLong(matcher.group(2)), longitud - 1);
+            return new long[] {inicio, fin};
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    /**
+     * If-Range: el rango solo se respeta si el cliente tiene la misma versión del archivo
+     */
+    private boolean rangoVigente(HttpServletRequest request, String etag, long modificado) {
+        String ifRange = request.getHeader(HttpHeaders.IF_RANGE);
+        if (ifRange == null) {
+            return true;
+        }
+        if (ifRange.startsWith("\"")) {
+            return ifRange.equals(etag);
+        }
+        try {
+            return request.getDateHeader(HttpHeaders.IF_RANGE) / 1000 == modificado / 1000;
+        } catch (IllegalArgumentException e) {
+            return false;
+        }
+    }
+
+    private String tipoContenido(Path archivo) {
+        String nombre = archivo.getFileName().toString();
+        if (nombre.toLowerCase(Locale.ROOT).endsWith(".webp")) {
+            return "image/webp";
+        }
+        return MediaTypeFactory.getMediaType(nombre)
+                .map(MediaType::toString)
+                .orElse(MediaType.APPLICATION_OCTET_STREAM_VALUE);
+    }
+}
@@ -1,6 +1,7 @@
 package com.inmedt.ecommerce.controller;
 
 import com.inmedt.ecommerce.dto.CheckoutRequest;
+import com.inmedt.ecommerce.dto.CursorPageResponse;
 import com.inmedt.ecommerce.dto.PedidoResponse;
 import com.inmedt.ecommerce.service.PedidoService;
 import jakarta.validation.Valid;
@@ -33,11 +34,25 @@ public class PedidoController {
     }
     
     @GetMapping
-    public ResponseEntity<Page<PedidoResponse>> getPedidos(
+    public ResponseEntity<?> getPedidos(
             @RequestParam(defaultValue = "0") int page,
             @RequestParam(defaultValue = "10") int size,
             @RequestParam(defaultValue = "createdAt") String sortBy,
-            @RequestParam(defaultValue = "desc") String sortDir) {
+            @RequestParam(defaultValue = "desc") String sortDir,
+            @RequestParam(required = false) String cursor) {
+        
+        // Paginación por cursor (keyset): cursor vacío para la primera página, siempre por createdAt descendente
+        if (cursor != null) {
+            if (!sortBy.equals("createdAt") || !sortDir.equalsIgnoreCase("desc")) {
+                return ResponseEntity.badRequest().body("La paginación por cursor solo admite orden por createdAt descendente");
+            }
+            try {
+                CursorPageResponse<PedidoResponse> pedidos = pedidoService.getPedidosByUserPorCursor(cursor, size);
+                return ResponseEntity.ok(pedidos);
+            } catch (RuntimeException e) {
+                return ResponseEntity.badRequest().body(e.getMessage());
+            }
+        }
         
         Sort sort = sortDir.equalsIgnoreCase("desc") ? 
             Sort.by(sortBy).descending() : Sort.by(sortBy).ascending();
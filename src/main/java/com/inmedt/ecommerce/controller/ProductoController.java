@@ -1,5 +1,6 @@
 package com.inmedt.ecommerce.controller;
 
+import com.inmedt.ecommerce.dto.CursorPageResponse;
 import com.inmedt.ecommerce.dto.ProductoResponse;
 import com.inmedt.ecommerce.service.ProductoService;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -18,12 +19,18 @@ public class ProductoController {
     @Autowired
     private ProductoService productoService;
 
+    // Con el parámetro cursor (vacío para la primera página) se usa paginación por keyset en lugar de page
     @GetMapping
-    public ResponseEntity<Page<ProductoResponse>> getAllProductos(
+    public ResponseEntity<?> getAllProductos(
             @RequestParam(defaultValue = "0") int page,
             @RequestParam(defaultValue = "10") int size,
             @RequestParam(defaultValue = "nombre") String sortBy,
-            @RequestParam(defaultValue = "asc") String sortDir) {
+            @RequestParam(defaultValue = "asc") String sortDir,
+            @RequestParam(required = false) String cursor) {
+
+        if (cursor != null) {
+            return getProductosPorCursor(null, null, sortBy, sortDir, cursor, size);
+        }
 
         Sort sort = sortDir.equalsIgnoreCase("desc") ? Sort.by(sortBy).descending() : Sort.by(sortBy).ascending();
         Pageable pageable = PageRequest.of(page, size, sort);
@@ -43,12 +50,17 @@ public class ProductoController {
     }
 
     @GetMapping("/categoria/{categoriaId}")
-    public ResponseEntity<Page<ProductoResponse>> getProductosByCategoria(
+    public ResponseEntity<?> getProductosByCategoria(
             @PathVariable Long categoriaId,
             @RequestParam(defaultValue = "0") int page,
             @RequestParam(defaultValue = "10") int size,
             @RequestParam(defaultValue = "nombre") String sortBy,
-            @RequestParam(defaultValue = "asc") String sortDir) {
+            @RequestParam(defaultValue = "asc") String sortDir,
+            @RequestParam(required = false) String cursor) {
+
+        if (cursor != null) {
+            return getProductosPorCursor(categoriaId, null, sortBy, sortDir, cursor, size);
+        }
 
         Sort sort = sortDir.equalsIgnoreCase("desc") ? Sort.by(sortBy).descending() : Sort.by(sortBy).ascending();
         Pageable pageable = PageRequest.of(page, size, sort);
@@ -58,12 +70,17 @@ public class ProductoController {
     }
 
     @GetMapping("/marca/{marca}")
-    public ResponseEntity<Page<ProductoResponse>> getProductosByMarca(
+    public ResponseEntity<?> getProductosByMarca(
             @PathVariable String marca,
             @RequestParam(defaultValue = "0") int page,
             @RequestParam(defaultValue = "10") int size,
             @RequestParam(defaultValue = "nombre") String sortBy,
-            @RequestParam(defaultValue = "asc") String sortDir) {
+            @RequestParam(defaultValue = "asc") String sortDir,
+            @RequestParam(required = false) String cursor) {
+
+        if (cursor != null) {
+            return getProductosPorCursor(null, marca, sortBy, sortDir, cursor, size);
+        }
 
         Sort sort = sortDir.equalsIgnoreCase("desc") ? Sort.by(sortBy).descending() : Sort.by(sortBy).ascending();
         Pageable pageable = PageRequest.of(page, size, sort);
@@ -77,7 +94,7 @@ public class ProductoController {
             @RequestParam String q,
             @RequestParam(defaultValue = "0") int page,
             @RequestParam(defaultValue = "10") int size,
-            @RequestParam(defaultValue = "nombre") String sortBy,
+            @RequestParam(defaultValue = ProductoService.ORDEN_RELEVANCIA) String sortBy,
             @RequestParam(defaultValue = "asc") String sortDir) {
 
         Sort sort = sortDir.equalsIgnoreCase("desc") ? Sort.by(sortBy).descending() : Sort.by(sortBy).ascending();
@@ -86,4 +103,15 @@ public class ProductoController {
         Page<ProductoResponse> productos = productoService.searchProductos(q, pageable);
         return ResponseEntity.ok(productos);
     }
+
+    private ResponseEntity<?> getProductosPorCursor(Long categoriaId, String marca, String sortBy,
+                                                    String sortDir, String cursor, int size) {
+        try {
+            CursorPageResponse<ProductoResponse> productos = productoService.getProductosPorCursor(
+                    categoriaId, marca, sortBy, sortDir.equalsIgnoreCase("desc"), cursor, size);
+            return ResponseEntity.ok(productos);
+        } catch (RuntimeException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
 }
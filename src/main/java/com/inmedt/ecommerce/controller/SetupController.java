@@ -1,7 +1,9 @@
 package com.inmedt.ecommerce.controller;
 
-import com.inmedt.ecommerce.service.CatalogoImportService;
+import com.inmedt.ecommerce.dto.CatalogoImportJobResponse;
+import com.inmedt.ecommerce.service.CatalogoImportJobService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
@@ -17,19 +19,19 @@ import java.util.Map;
 public class SetupController {
 
     @Autowired
-    private CatalogoImportService catalogoImportService;
+    private CatalogoImportJobService catalogoImportJobService;
 
     @PostMapping("/importar-catalogo")
     public ResponseEntity<?> importarCatalogoInicial() {
         try {
-            // Importar desde el archivo catalogo.json en la raíz del proyecto
-            Map<String, Object> resultado = catalogoImportService.importarCatalogo("catalogo.json");
-            
-            if ((Boolean) resultado.get("success")) {
-                return ResponseEntity.ok(resultado);
-            } else {
-                return ResponseEntity.badRequest().body(resultado);
-            }
+            // Importar en segundo plano desde el archivo catalogo.json en la raíz del proyecto
+            CatalogoImportJobResponse job = catalogoImportJobService.encolar("catalogo.json", CatalogoImportJobResponse.Tipo.IMPORTACION);
+
+            return ResponseEntity.status(HttpStatus.ACCEPTED).body(Map.of(
+                "success", true,
+                "jobId", job.getId(),
+                "estado", job.getEstado()
+            ));
 
         } catch (Exception e) {
             return ResponseEntity.badRequest().body(Map.of(
@@ -0,0 +1,120 @@
+package com.inmedt.ecommerce.dto;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Map;
+
+/**
+ * Estado y avance de una importación o sincronización del catálogo en segundo plano
+ */
+public class CatalogoImportJobResponse {
+
+    public enum Tipo {
+        IMPORTACION, SINCRONIZACION
+    }
+
+    public enum Estado {
+        PENDIENTE, PROCESANDO, COMPLETADO, ERROR
+    }
+
+    private String id;
+    private Tipo tipo;
+    private String archivo;
+    private volatile Estado estado;
+    private volatile long productosProcesados;
+    private volatile long unidadesProcesadas;
+    private volatile int errores;
+    // Fracción del archivo leída (0-100), según los bytes consumidos por el parser
+    private volatile int porcentaje;
+    private volatile Long etaSegundos;
+    private volatile String error;
+    private volatile Map<String, Object> resultado;
+    private LocalDateTime createdAt;
+    private volatile LocalDateTime startedAt;
+    private volatile LocalDateTime updatedAt;
+
+    // Constructores
+    public CatalogoImportJobResponse() {}
+
+    public CatalogoImportJobResponse(String id, Tipo tipo, String archivo) {
+        this.id = id;
+        this.tipo = tipo;
+        this.archivo = archivo;
+        this.estado = Estado.PENDIENTE;
+        this.createdAt = LocalDateTime.now();
+        this.updatedAt = this.createdAt;
+    }
+
+    /**
+     * Actualiza los contadores y estima el tiempo restante con la velocidad media hasta ahora
+     * @param bytesLeidos bytes del archivo ya consumidos
+     * @param bytesTotales tamaño del archivo
+     */
+    public void actualizarProgreso(long productosProcesados, long unidadesProcesadas, int errores,
+                                   long bytesLeidos, long bytesTotales) {
+        this.productosProcesados = productosProcesados;
+        this.unidadesProcesadas = unidadesProcesadas;
+        this.errores = errores;
+        if (bytesTotales > 0 && bytesLeidos > 0) {
+            double fraccion = Math.min(1.0, (double) bytesLeidos / bytesTotales);
+            this.porcentaje = (int) (fraccion * 100);
+            if (startedAt != null) {
+                long transcurridos = Duration.between(startedAt, LocalDateTime.now()).getSeconds();
+                this.etaSegundos = Math.round(transcurridos * (1 - fraccion) / fraccion);
+            }
+        }
+        this.updatedAt = LocalDateTime.now();
+    }
+
+    // Getters y Setters
+    public String getId() { return id; }
+    public void setId(String id) { this.id = id; }
+
+    public Tipo getTipo() { return tipo; }
+    public void setTipo(Tipo tipo) { this.tipo = tipo; }
+
+    public String getArchivo() { return archivo; }
+    public void setArchivo(String archivo) { this.archivo = archivo; }
+
+    public Estado getEstado() { return estado; }
+    public void setEstado(Estado estado) {
+        this.estado = estado;
+        this.updatedAt = LocalDateTime.now();
+        if (estado == Estado.PROCESANDO) {
+            this.startedAt = this.updatedAt;
+        } else if (estado == Estado.COMPLETADO) {
+            this.porcentaje = 100;
+            this.etaSegundos = 0L;
+        }
+    }
+
+    public long getProductosProcesados() { return productosProcesados; }
+    public void setProductosProcesados(long productosProcesados) { this.productosProcesados = productosProcesados; }
+
+    public long getUnidadesProcesadas() { return unidadesProcesadas; }
+    public void setUnidadesProcesadas(long unidadesProcesadas) { this.unidadesProcesadas = unidadesProcesadas; }
+
+    public int getErrores() { return errores; }
+    public void setErrores(int errores) { this.errores = errores; }
+
+    public int getPorcentaje() { return porcentaje; }
+    public void setPorcentaje(int porcentaje) { this.porcentaje = porcentaje; }
+
+    public Long getEtaSegundos() { return etaSegundos; }
+    public void setEtaSegundos(Long etaSegundos) { this.etaSegundos = etaSegundos; }
+
+    public String getError() { return error; }
+    public void setError(String error) { this.error = error; }
+
+    public Map<String, Object> getResultado() { return resultado; }
+    public void setResultado(Map<String, Object> resultado) { this.resultado = resultado; }
+
+    public LocalDateTime getCreatedAt() { return createdAt; }
+    public void setCreatedAt(LocalDateTime createdAt) { this.createdAt = createdAt; }
+
+    public LocalDateTime getStartedAt() { return startedAt; }
+    public void setStartedAt(LocalDateTime startedAt) { this.startedAt = startedAt; }
+
+    public LocalDateTime getUpdatedAt() { return updatedAt; }
+    public void setUpdatedAt(LocalDateTime updatedAt) { this.updatedAt = updatedAt; }
+}
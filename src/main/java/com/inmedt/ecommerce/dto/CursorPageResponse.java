@@ -0,0 +1,37 @@
+package com.inmedt.ecommerce.dto;
+
+import java.util.List;
+
+/**
+ * Página de un listado paginado por cursor (keyset). No incluye totales: no se ejecuta COUNT.
+ */
+public class CursorPageResponse<T> {
+    
+    private List<T> content;
+    private String nextCursor;
+    private int size;
+    private boolean hasNext;
+    
+    // Constructores
+    public CursorPageResponse() {}
+    
+    public CursorPageResponse(List<T> content, String nextCursor, int size) {
+        this.content = content;
+        this.nextCursor = nextCursor;
+        this.size = size;
+        this.hasNext = nextCursor != null;
+    }
+    
+    // Getters y Setters
+    public List<T> getContent() { return content; }
+    public void setContent(List<T> content) { this.content = content; }
+    
+    public String getNextCursor() { return nextCursor; }
+    public void setNextCursor(String nextCursor) { this.nextCursor = nextCursor; }
+    
+    public int getSize() { return size; }
+    public void setSize(int size) { this.size = size; }
+    
+    public boolean isHasNext() { return hasNext; }
+    public void setHasNext(boolean hasNext) { this.hasNext = hasNext; }
+}
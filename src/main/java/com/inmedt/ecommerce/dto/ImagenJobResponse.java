@@ -0,0 +1,67 @@
+package com.inmedt.ecommerce.dto;
+
+import java.time.LocalDateTime;
+import java.util.Map;
+
+/**
+ * Estado de un trabajo de procesamiento de imagen, consultado por el panel de administración
+ */
+public class ImagenJobResponse {
+    
+    public enum Tipo {
+        PRINCIPAL, GALERIA
+    }
+    
+    public enum Estado {
+        PENDIENTE, PROCESANDO, COMPLETADO, ERROR
+    }
+    
+    private String id;
+    private Long productoId;
+    private Tipo tipo;
+    private volatile Estado estado;
+    private volatile String error;
+    private volatile Map<String, String> urls;
+    private LocalDateTime createdAt;
+    private volatile LocalDateTime updatedAt;
+    
+    // Constructores
+    public ImagenJobResponse() {}
+    
+    public ImagenJobResponse(String id, Long productoId, Tipo tipo) {
+        this.id = id;
+        this.productoId = productoId;
+        this.tipo = tipo;
+        this.estado = Estado.PENDIENTE;
+        this.createdAt = LocalDateTime.now();
+        this.updatedAt = this.createdAt;
+    }
+    
+    // Getters y Setters
+    public String getId() { return id; }
+    public void setId(String id) { this.id = id; }
+    
+    public Long getProductoId() { return productoId; }
+    public void setProductoId(Long productoId) { this.productoId = productoId; }
+    
+    public Tipo getTipo() { return tipo; }
+    public void setTipo(Tipo tipo) { this.tipo = tipo; }
+    
+    public Estado getEstado() { return estado; }
+    public void setEstado(Estado estado) { 
+        this.estado = estado;
+        this.updatedAt = LocalDateTime.now();
+    }
+    
+    public String getError() { return error; }
+    public void setError(String error) { this.error = error; }
+    
+    public Map<String, String> getUrls() { return urls; }
+    public void setUrls(Map<String, String> urls) { this.urls = urls; }
+    
+    public LocalDateTime getCreatedAt() { return createdAt; }
+    public void setCreatedAt(LocalDateTime createdAt) { this.createdAt = createdAt; }
+    
+    public LocalDateTime getUpdatedAt() { return updatedAt; }
+    public void setUpdatedAt(LocalDateTime updatedAt) { this.updatedAt = updatedAt; }
+}
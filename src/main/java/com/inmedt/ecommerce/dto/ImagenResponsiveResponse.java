@@ -0,0 +1,48 @@
+package com.inmedt.ecommerce.dto;
+
+import java.util.List;
+
+/**
+ * Imagen lista para usarse en un elemento &lt;picture&gt;: una fuente por formato
+ * (los formatos modernos primero) con su srcset, y la imagen original como src de respaldo.
+ */
+public class ImagenResponsiveResponse {
+
+    private String src;
+    private List<Fuente> fuentes;
+
+    public ImagenResponsiveResponse() {}
+
+    public ImagenResponsiveResponse(String src, List<Fuente> fuentes) {
+        this.src = src;
+        this.fuentes = fuentes;
+    }
+
+    // Getters y Setters
+    public String getSrc() { return src; }
+    public void setSrc(String src) { this.src = src; }
+
+    public List<Fuente> getFuentes() { return fuentes; }
+    public void setFuentes(List<Fuente> fuentes) { this.fuentes = fuentes; }
+
+    public static class Fuente {
+        // Tipo MIME, por ejemplo "image/webp"; null si el servidor negocia el formato (Cloudinary f_auto)
+        private String tipo;
+        // Candidatos con descriptor de ancho: "/uploads/productos/x_w160.webp 160w, ..."
+        private String srcset;
+
+        public Fuente() {}
+
+        public Fuente(String tipo, String srcset) {
+            this.tipo = tipo;
+            this.srcset = srcset;
+        }
+
+        // Getters y Setters
+        public String getTipo() { return tipo; }
+        public void setTipo(String tipo) { this.tipo = tipo; }
+
+        public String getSrcset() { return srcset; }
+        public void setSrcset(String srcset) { this.srcset = srcset; }
+    }
+}
@@ -0,0 +1,73 @@
+package com.inmedt.ecommerce.dto;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * Cursor opaco de la paginación por keyset: campo y sentido del orden, valor de ese campo
+ * en el último elemento de la página y su id (desempate). Se envía al cliente en Base64 URL-safe.
+ */
+public class PageCursor {
+    
+    public static final int MAX_SIZE = 100;
+    
+    private final String campo;
+    private final boolean descendente;
+    private final String valor;
+    private final Long id;
+    
+    public PageCursor(String campo, boolean descendente, String valor, Long id) {
+        this.campo = campo;
+        this.descendente = descendente;
+        this.valor = valor;
+        this.id = id;
+    }
+    
+    /**
+     * @return null para la primera página (token vacío)
+     */
+    public static PageCursor parse(String token) {
+        if (token == null || token.isBlank()) {
+            return null;
+        }
+        try {
+            String decodificado = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            // El valor va al final porque puede contener el separador
+            String[] partes = decodificado.split("\\|", 4);
+            if (partes.length != 4) {
+                throw new IllegalArgumentException();
+            }
+            return new PageCursor(partes[0], "desc".equals(partes[1]), partes[3], Long.valueOf(partes[2]));
+        } catch (IllegalArgumentException e) {
+            throw new RuntimeException("Cursor de paginación inválido");
+        }
+    }
+    
+    public static void validarTamano(int size) {
+        if (size < 1 || size > MAX_SIZE) {
+            throw new RuntimeException("El tamaño de página debe estar entre 1 y " + MAX_SIZE);
+        }
+    }
+    
+    public String toToken() {
+        String texto = campo + "|" + (descendente ? "desc" : "asc") + "|" + id + "|" + valor;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(texto.getBytes(StandardCharsets.UTF_8));
+    }
+    
+    /**
+     * Verifica que el cursor se generó con el mismo orden que la consulta actual
+     */
+    public void validarOrden(String campo, boolean descendente) {
+        if (!this.campo.equals(campo) || this.descendente != descendente) {
+            throw new RuntimeException("El cursor no corresponde al orden solicitado");
+        }
+    }
+    
+    public String getCampo() { return campo; }
+    
+    public boolean isDescendente() { return descendente; }
+    
+    public String getValor() { return valor; }
+    
+    public Long getId() { return id; }
+}
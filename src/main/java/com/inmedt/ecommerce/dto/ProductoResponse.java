@@ -14,6 +14,9 @@ public class ProductoResponse {
     private String imagenPrincipal;
     private String imagenThumbnail;
     private List<String> imagenesGaleria;
+    // Versiones por ancho y formato (srcset); null si la imagen no tiene derivadas
+    private ImagenResponsiveResponse imagenPrincipalResponsive;
+    private List<ImagenResponsiveResponse> imagenesGaleriaResponsive;
     private List<VarianteResponse> variantes;
     
     // Constructores
@@ -55,6 +58,12 @@ public class ProductoResponse {
     public List<String> getImagenesGaleria() { return imagenesGaleria; }
     public void setImagenesGaleria(List<String> imagenesGaleria) { this.imagenesGaleria = imagenesGaleria; }
     
+    public ImagenResponsiveResponse getImagenPrincipalResponsive() { return imagenPrincipalResponsive; }
+    public void setImagenPrincipalResponsive(ImagenResponsiveResponse imagenPrincipalResponsive) { this.imagenPrincipalResponsive = imagenPrincipalResponsive; }
+    
+    public List<ImagenResponsiveResponse> getImagenesGaleriaResponsive() { return imagenesGaleriaResponsive; }
+    public void setImagenesGaleriaResponsive(List<ImagenResponsiveResponse> imagenesGaleriaResponsive) { this.imagenesGaleriaResponsive = imagenesGaleriaResponsive; }
+    
     public List<VarianteResponse> getVariantes() { return variantes; }
     public void setVariantes(List<VarianteResponse> variantes) { this.variantes = variantes; }
     
@@ -1,5 +1,6 @@
 package com.inmedt.ecommerce.dto;
 
+import java.math.BigDecimal;
 import java.time.LocalDateTime;
 
 public class UserResponse {
@@ -12,6 +13,8 @@ public class UserResponse {
     private Boolean enabled;
     private LocalDateTime createdAt;
     private Integer totalPedidos;
+    private BigDecimal totalGastado;
+    private LocalDateTime ultimoPedido;
     
     // Constructores
     public UserResponse() {}
@@ -50,4 +53,10 @@ public class UserResponse {
     
     public Integer getTotalPedidos() { return totalPedidos; }
     public void setTotalPedidos(Integer totalPedidos) { this.totalPedidos = totalPedidos; }
+    
+    public BigDecimal getTotalGastado() { return totalGastado; }
+    public void setTotalGastado(BigDecimal totalGastado) { this.totalGastado = totalGastado; }
+    
+    public LocalDateTime getUltimoPedido() { return ultimoPedido; }
+    public void setUltimoPedido(LocalDateTime ultimoPedido) { this.ultimoPedido = ultimoPedido; }
 }
@@ -0,0 +1,101 @@
+package com.inmedt.ecommerce.model;
+
+import jakarta.persistence.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * Imagen guardada por contenido: una fila por hash SHA-256 de los bytes subidos.
+ * Las subidas repetidas del mismo archivo reutilizan la fila e incrementan sus referencias;
+ * el almacenamiento se elimina cuando se suelta la última.
+ */
+@Entity
+@Table(name = "imagenes_almacenadas", indexes = {
+    @Index(name = "idx_imagenes_almacenadas_hash", columnList = "hash", unique = true),
+    @Index(name = "idx_imagenes_almacenadas_url", columnList = "url")
+})
+public class ImagenAlmacenada {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    // SHA-256 en hexadecimal del archivo original
+    @Column(nullable = false, length = 64)
+    private String hash;
+
+    @Column(nullable = false, length = 500)
+    private String url;
+
+    @Column(name = "thumbnail_url", length = 500)
+    private String thumbnailUrl;
+
+    // Productos (imagen principal o galería) que usan la imagen
+    @Column(nullable = false)
+    private Integer referencias;
+
+    @Column(name = "created_at")
+    private LocalDateTime createdAt;
+
+    // Constructors
+    public ImagenAlmacenada() {
+        this.createdAt = LocalDateTime.now();
+    }
+
+    public ImagenAlmacenada(String hash, String url, String thumbnailUrl) {
+        this();
+        this.hash = hash;
+        this.url = url;
+        this.thumbnailUrl = thumbnailUrl;
+        this.referencias = 1;
+    }
+
+    // Getters and Setters
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public String getHash() {
+        return hash;
+    }
+
+    public void setHash(String hash) {
+        this.hash = hash;
+    }
+
+    public String getUrl() {
+        return url;
+    }
+
+    public void setUrl(String url) {
+        this.url = url;
+    }
+
+    public String getThumbnailUrl() {
+        return thumbnailUrl;
+    }
+
+    public void setThumbnailUrl(String thumbnailUrl) {
+        this.thumbnailUrl = thumbnailUrl;
+    }
+
+    public Integer getReferencias() {
+        return referencias;
+    }
+
+    public void setReferencias(Integer referencias) {
+        this.referencias = referencias;
+    }
+
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+
+    public void setCreatedAt(LocalDateTime createdAt) {
+        this.createdAt = createdAt;
+    }
+}
@@ -0,0 +1,83 @@
+package com.inmedt.ecommerce.model;
+
+import jakarta.persistence.*;
+
+/**
+ * Versión redimensionada (y recodificada) de una imagen guardada en almacenamiento local.
+ * Cada imagen tiene una derivada por ancho y formato, usadas para armar el srcset.
+ */
+@Entity
+@Table(name = "imagen_derivadas", indexes = {
+    @Index(name = "idx_imagen_derivadas_imagen", columnList = "imagen_url")
+})
+public class ImagenDerivada {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    // URL de la imagen original (imagen principal o de galería)
+    @Column(name = "imagen_url", nullable = false, length = 500)
+    private String imagenUrl;
+
+    @Column(nullable = false)
+    private Integer ancho;
+
+    // Formato de ImageIO: "jpeg", "png" o "webp"
+    @Column(nullable = false, length = 10)
+    private String formato;
+
+    @Column(nullable = false, length = 500)
+    private String url;
+
+    // Constructors
+    public ImagenDerivada() {}
+
+    public ImagenDerivada(String imagenUrl, Integer ancho, String formato, String url) {
+        this.imagenUrl = imagenUrl;
+        this.ancho = ancho;
+        this.formato = formato;
+        this.url = url;
+    }
+
+    // Getters and Setters
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public String getImagenUrl() {
+        return imagenUrl;
+    }
+
+    public void setImagenUrl(String imagenUrl) {
+        this.imagenUrl = imagenUrl;
+    }
+
+    public Integer getAncho() {
+        return ancho;
+    }
+
+    public void setAncho(Integer ancho) {
+        this.ancho = ancho;
+    }
+
+    public String getFormato() {
+        return formato;
+    }
+
+    public void setFormato(String formato) {
+        this.formato = formato;
+    }
+
+    public String getUrl() {
+        return url;
+    }
+
+    public void setUrl(String url) {
+        this.url = url;
+    }
+}
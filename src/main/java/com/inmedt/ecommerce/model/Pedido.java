@@ -9,7 +9,11 @@ import java.time.LocalDateTime;
 import java.util.List;
 
 @Entity
-@Table(name = "pedidos")
+@Table(name = "pedidos", indexes = {
+    @Index(name = "idx_pedidos_created_at_id", columnList = "created_at, id"),
+    @Index(name = "idx_pedidos_estado_created_at_id", columnList = "estado, created_at, id"),
+    @Index(name = "idx_pedidos_user_created_at_id", columnList = "user_id, created_at, id")
+})
 public class Pedido {
     
     @Id
@@ -7,7 +7,9 @@ import jakarta.validation.constraints.NotNull;
 import java.math.BigDecimal;
 
 @Entity
-@Table(name = "pedido_items")
+@Table(name = "pedido_items", indexes = {
+    @Index(name = "idx_pedido_items_pedido_id", columnList = "pedido_id")
+})
 public class PedidoItem {
     
     @Id
@@ -7,7 +7,9 @@ import jakarta.validation.constraints.Size;
 import java.util.List;
 
 @Entity
-@Table(name = "productos")
+@Table(name = "productos", indexes = {
+    @Index(name = "idx_productos_nombre_id", columnList = "nombre, id")
+})
 public class Producto {
     
     @Id
@@ -38,6 +38,10 @@ public class UnidadDeVenta {
     @Column(name = "activa", nullable = false)
     private Boolean activa = true;
     
+    // SHA-256 del contenido con el que la creó o actualizó la sincronización del catálogo (null si no viene del catálogo)
+    @Column(name = "hash_catalogo", length = 64)
+    private String hashCatalogo;
+    
     @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "variante_id", nullable = false)
     private VarianteProducto variante;
@@ -78,6 +82,9 @@ public class UnidadDeVenta {
     public Boolean getActiva() { return activa; }
     public void setActiva(Boolean activa) { this.activa = activa; }
     
+    public String getHashCatalogo() { return hashCatalogo; }
+    public void setHashCatalogo(String hashCatalogo) { this.hashCatalogo = hashCatalogo; }
+    
     public VarianteProducto getVariante() { return variante; }
     public void setVariante(VarianteProducto variante) { this.variante = variante; }
     
@@ -13,7 +13,10 @@ import java.util.Collection;
 import java.util.List;
 
 @Entity
-@Table(name = "users")
+@Table(name = "users", indexes = {
+    @Index(name = "idx_users_role_nombre", columnList = "role, nombre"),
+    @Index(name = "idx_users_enabled_nombre", columnList = "enabled, nombre")
+})
 public class User implements UserDetails {
     
     @Id
@@ -50,6 +53,11 @@ public class User implements UserDetails {
     @Column(name = "created_at", nullable = false)
     private LocalDateTime createdAt = LocalDateTime.now();
     
+    // Versión de los JWT del usuario: se incrementa al cambiar su rol, estado o contraseña y los tokens
+    // emitidos con una versión anterior dejan de aceptarse (ver UserPrincipalCache)
+    @Column(name = "token_version", nullable = false, columnDefinition = "integer default 0 not null")
+    private Integer tokenVersion = 0;
+    
     @OneToOne(mappedBy = "user", cascade = CascadeType.ALL, fetch = FetchType.LAZY)
     private Carrito carrito;
     
@@ -91,6 +99,9 @@ public class User implements UserDetails {
     public LocalDateTime getCreatedAt() { return createdAt; }
     public void setCreatedAt(LocalDateTime createdAt) { this.createdAt = createdAt; }
     
+    public Integer getTokenVersion() { return tokenVersion; }
+    public void setTokenVersion(Integer tokenVersion) { this.tokenVersion = tokenVersion; }
+    
     public Carrito getCarrito() { return carrito; }
     public void setCarrito(Carrito carrito) { this.carrito = carrito; }
     
@@ -4,6 +4,9 @@ import com.inmedt.ecommerce.model.CarritoItem;
 import com.inmedt.ecommerce.model.Carrito;
 import com.inmedt.ecommerce.model.UnidadDeVenta;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
@@ -16,6 +19,11 @@ public interface CarritoItemRepository extends JpaRepository<CarritoItem, Long>
     
     List<CarritoItem> findByCarritoId(Long carritoId);
     
+    // Items del carrito con su unidad, variante y producto en una sola consulta
+    @Query("SELECT i FROM CarritoItem i JOIN FETCH i.unidadVenta u JOIN FETCH u.variante v JOIN FETCH v.producto " +
+           "WHERE i.carrito.id = :carritoId ORDER BY i.id")
+    List<CarritoItem> findWithProductoByCarritoId(@Param("carritoId") Long carritoId);
+    
     Optional<CarritoItem> findByCarritoAndUnidadVenta(Carrito carrito, UnidadDeVenta unidadVenta);
     
     Optional<CarritoItem> findByCarritoIdAndUnidadVentaId(Long carritoId, Long unidadVentaId);
@@ -23,4 +31,9 @@ public interface CarritoItemRepository extends JpaRepository<CarritoItem, Long>
     void deleteByCarrito(Carrito carrito);
     
     void deleteByCarritoId(Long carritoId);
+    
+    // DELETE masivo: a diferencia de deleteByCarritoId no carga cada item antes de borrarlo
+    @Modifying
+    @Query("DELETE FROM CarritoItem i WHERE i.carrito.id = :carritoId")
+    int deleteAllByCarritoIdInBulk(@Param("carritoId") Long carritoId);
 }
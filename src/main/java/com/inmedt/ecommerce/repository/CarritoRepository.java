@@ -2,9 +2,16 @@ package com.inmedt.ecommerce.repository;
 
 import com.inmedt.ecommerce.model.Carrito;
 import com.inmedt.ecommerce.model.User;
+import jakarta.persistence.LockModeType;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
 import java.util.Optional;
 
 @Repository
@@ -14,5 +21,22 @@ public interface CarritoRepository extends JpaRepository<Carrito, Long> {
     
     Optional<Carrito> findByUserId(Long userId);
     
+    /**
+     * Carrito del usuario bloqueado (FOR UPDATE) hasta el commit: los cambios simultáneos del mismo
+     * carrito se ejecutan de a uno, así cantidades y total se calculan siempre sobre el estado confirmado
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT c FROM Carrito c WHERE c.user.id = :userId")
+    Optional<Carrito> findForUpdateByUserId(@Param("userId") Long userId);
+    
     boolean existsByUserId(Long userId);
+    
+    /**
+     * Suma la diferencia al total en la base de datos, sin volver a sumar todos los items
+     * @return el total resultante
+     */
+    @Transactional
+    @Query(value = "UPDATE carritos SET total = total + :diferencia, updated_at = :ahora WHERE id = :id RETURNING total",
+           nativeQuery = true)
+    BigDecimal sumarAlTotal(@Param("id") Long id, @Param("diferencia") BigDecimal diferencia, @Param("ahora") LocalDateTime ahora);
 }
@@ -0,0 +1,212 @@
+package com.inmedt.ecommerce.repository;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Lecturas y escrituras masivas de la importación del catálogo.
+ * Las claves naturales existentes se cargan una sola vez en memoria y las filas nuevas se insertan
+ * con SQL multi-fila (VALUES ... RETURNING), igual que en el checkout: en producción
+ * hibernate.jdbc.batch_size=0 (PgBouncer en modo transacción) y las tablas usan IDENTITY.
+ * Participa en la transacción activa (misma conexión).
+ */
+@Repository
+public class CatalogoImportBatchRepository {
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    // ==================== CLAVES NATURALES EXISTENTES ====================
+
+    /**
+     * nombre -> id de todas las categorías
+     */
+    public Map<String, Long> cargarCategorias() {
+        Map<String, Long> categorias = new HashMap<>();
+        jdbcTemplate.query("SELECT id, nombre FROM categorias", rs -> {
+            categorias.put(rs.getString("nombre"), rs.getLong("id"));
+        });
+        return categorias;
+    }
+
+    /**
+     * clave(categoriaId, nombre) -> id de todos los productos
+     */
+    public Map<String, Long> cargarProductos() {
+        Map<String, Long> productos = new HashMap<>();
+        jdbcTemplate.query("SELECT id, categoria_id, nombre FROM productos", rs -> {
+            productos.put(clave(rs.getLong("categoria_id"), rs.getString("nombre")), rs.getLong("id"));
+        });
+        return productos;
+    }
+
+    /**
+     * clave(productoId, nombre) -> id de todas las variantes
+     */
+    public Map<String, Long> cargarVariantes() {
+        Map<String, Long> variantes = new HashMap<>();
+        jdbcTemplate.query("SELECT id, producto_id, nombre FROM variantes_producto", rs -> {
+            variantes.put(clave(rs.getLong("producto_id"), rs.getString("nombre")), rs.getLong("id"));
+        });
+        return variantes;
+    }
+
+    /**
+     * clave(varianteId, descripcion) -> id, hash de catálogo y estado de todas las unidades de venta
+     */
+    public Map<String, UnidadCatalogo> cargarUnidades() {
+        Map<String, UnidadCatalogo> unidades = new HashMap<>();
+        jdbcTemplate.query("SELECT id, variante_id, descripcion, hash_catalogo, activa FROM unidades_venta", rs -> {
+            unidades.put(clave(rs.getLong("variante_id"), rs.getString("descripcion")),
+                    new UnidadCatalogo(rs.getLong("id"), rs.getString("hash_catalogo"), rs.getBoolean("activa")));
+        });
+        return unidades;
+    }
+
+    public Set<String> cargarSkus() {
+        return new HashSet<>(jdbcTemplate.queryForList("SELECT sku FROM unidades_venta", String.class));
+    }
+
+    // ==================== INSERCIONES ====================
+
+    /**
+     * Crea la categoría si no existe (el nombre es único) y devuelve su id en una sola sentencia
+     */
+    public Long insertarCategoria(String nombre, String descripcion) {
+        String sql = "INSERT INTO categorias (nombre, descripcion, activa) VALUES (?, ?, true) " +
+                     "ON CONFLICT (nombre) DO UPDATE SET nombre = EXCLUDED.nombre RETURNING id";
+        return jdbcTemplate.queryForObject(sql, Long.class, nombre, descripcion);
+    }
+
+    /**
+     * Inserta los productos en un único INSERT multi-fila
+     * @param filas {nombre, descripcion, marca, categoriaId} por producto
+     * @return clave(categoriaId, nombre) -> id generado
+     */
+    public Map<String, Long> insertarProductos(List<Object[]> filas) {
+        String sql = "INSERT INTO productos (nombre, descripcion, marca, activo, categoria_id) VALUES " +
+                     placeholders(filas.size(), "(?, ?, ?, true, ?)") +
+                     " RETURNING id, categoria_id, nombre";
+
+        Map<String, Long> ids = new HashMap<>();
+        jdbcTemplate.query(sql, rs -> {
+            ids.put(clave(rs.getLong("categoria_id"), rs.getString("nombre")), rs.getLong("id"));
+        }, aplanar(filas));
+        return ids;
+    }
+
+    /**
+     * Inserta las variantes en un único INSERT multi-fila
+     * @param filas {nombre, descripcion, productoId} por variante
+     * @return clave(productoId, nombre) -> id generado
+     */
+    public Map<String, Long> insertarVariantes(List<Object[]> filas) {
+        String sql = "INSERT INTO variantes_producto (nombre, descripcion, activa, producto_id) VALUES " +
+                     placeholders(filas.size(), "(?, ?, true, ?)") +
+                     " RETURNING id, producto_id, nombre";
+
+        Map<String, Long> ids = new HashMap<>();
+        jdbcTemplate.query(sql, rs -> {
+            ids.put(clave(rs.getLong("producto_id"), rs.getString("nombre")), rs.getLong("id"));
+        }, aplanar(filas));
+        return ids;
+    }
+
+    /**
+     * Inserta las unidades de venta en un único INSERT multi-fila
+     * @param filas {sku, descripcion, precio, stock, varianteId, hashCatalogo} por unidad
+     */
+    public int insertarUnidades(List<Object[]> filas) {
+        String sql = "INSERT INTO unidades_venta (sku, descripcion, precio, stock, activa, variante_id, hash_catalogo) VALUES " +
+                     placeholders(filas.size(), "(?, ?, ?, ?, true, ?, ?)");
+
+        return jdbcTemplate.update(sql, aplanar(filas));
+    }
+
+    // ==================== SINCRONIZACIÓN ====================
+
+    /**
+     * Actualiza las unidades cuyo contenido cambió en un único UPDATE multi-fila y las reactiva.
+     * Sin stock en el archivo (null) se conserva el stock actual.
+     * @param filas {id, precio, stock, hashCatalogo} por unidad
+     */
+    public int actualizarUnidades(List<Object[]> filas) {
+        String sql = "UPDATE unidades_venta AS u SET precio = v.precio, stock = COALESCE(v.stock, u.stock), " +
+                     "activa = true, hash_catalogo = v.hash " +
+                     "FROM (VALUES " + placeholders(filas.size(), "(?::bigint, ?::numeric, ?::int, ?::varchar)") + ") " +
+                     "AS v(id, precio, stock, hash) WHERE u.id = v.id";
+
+        return jdbcTemplate.update(sql, aplanar(filas));
+    }
+
+    /**
+     * Actualiza descripción y marca de los productos con unidades modificadas
+     * @param filas {id, descripcion, marca} por producto
+     */
+    public int actualizarProductos(List<Object[]> filas) {
+        String sql = "UPDATE productos AS p SET descripcion = v.descripcion, marca = v.marca " +
+                     "FROM (VALUES " + placeholders(filas.size(), "(?::bigint, ?::varchar, ?::varchar)") + ") " +
+                     "AS v(id, descripcion, marca) WHERE p.id = v.id";
+
+        return jdbcTemplate.update(sql, aplanar(filas));
+    }
+
+    /**
+     * Desactiva las unidades que ya no están en el archivo. Se borra su hash para que,
+     * si vuelven a aparecer, la siguiente sincronización las reactive.
+     */
+    public int desactivarUnidades(List<Long> ids) {
+        String sql = "UPDATE unidades_venta SET activa = false, hash_catalogo = NULL " +
+                     "WHERE id IN (" + placeholders(ids.size(), "?") + ")";
+
+        return jdbcTemplate.update(sql, ids.toArray());
+    }
+
+    /**
+     * Clave natural compuesta por el id del padre y el nombre, usada por los mapas en memoria
+     */
+    public static String clave(Long padreId, String nombre) {
+        return padreId + "|" + nombre;
+    }
+
+    private Object[] aplanar(List<Object[]> filas) {
+        List<Object> params = new ArrayList<>();
+        for (Object[] fila : filas) {
+            Collections.addAll(params, fila);
+        }
+        return params.toArray();
+    }
+
+    private String placeholders(int count, String placeholder) {
+        return String.join(", ", Collections.nCopies(count, placeholder));
+    }
+
+    /**
+     * Estado de una unidad de venta existente, para decidir si la sincronización la toca
+     */
+    public static class UnidadCatalogo {
+        private final Long id;
+        private final String hashCatalogo;
+        private final boolean activa;
+
+        public UnidadCatalogo(Long id, String hashCatalogo, boolean activa) {
+            this.id = id;
+            this.hashCatalogo = hashCatalogo;
+            this.activa = activa;
+        }
+
+        // Getters
+        public Long getId() { return id; }
+        public String getHashCatalogo() { return hashCatalogo; }
+        public boolean isActiva() { return activa; }
+    }
+}
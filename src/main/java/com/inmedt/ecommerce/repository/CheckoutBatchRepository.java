@@ -0,0 +1,82 @@
+package com.inmedt.ecommerce.repository;
+
+import com.inmedt.ecommerce.model.CarritoItem;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SortedMap;
+
+/**
+ * Escrituras del checkout con un número fijo de sentencias SQL, sin importar cuántas líneas
+ * tenga el carrito. Usa SQL multi-fila (VALUES) en lugar de batch JDBC porque en producción
+ * hibernate.jdbc.batch_size=0 (PgBouncer en modo transacción) y PedidoItem usa IDENTITY.
+ * Participa en la transacción JPA activa (misma conexión).
+ */
+@Repository
+public class CheckoutBatchRepository {
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    /**
+     * Bloquea las filas de las unidades (en orden de id, para evitar deadlocks) y devuelve su stock actual
+     */
+    public Map<Long, Integer> bloquearStock(Collection<Long> unidadIds) {
+        String sql = "SELECT id, stock FROM unidades_venta WHERE id IN (" + placeholders(unidadIds.size(), "?") + ") " +
+                     "ORDER BY id FOR UPDATE";
+
+        Map<Long, Integer> stock = new HashMap<>();
+        jdbcTemplate.query(sql, rs -> {
+            stock.put(rs.getLong("id"), rs.getInt("stock"));
+        }, unidadIds.toArray());
+        return stock;
+    }
+
+    /**
+     * Descuenta el stock de todas las unidades en un único UPDATE condicional
+     * @return número de unidades actualizadas (menor que el tamaño del mapa si alguna no tenía stock)
+     */
+    public int descontarStock(SortedMap<Long, Integer> cantidadesPorUnidad) {
+        String sql = "UPDATE unidades_venta AS u SET stock = u.stock - v.cantidad " +
+                     "FROM (VALUES " + placeholders(cantidadesPorUnidad.size(), "(?::bigint, ?::int)") + ") AS v(id, cantidad) " +
+                     "WHERE u.id = v.id AND u.stock >= v.cantidad";
+
+        List<Object> params = new ArrayList<>();
+        for (Map.Entry<Long, Integer> entry : cantidadesPorUnidad.entrySet()) {
+            params.add(entry.getKey());
+            params.add(entry.getValue());
+        }
+        return jdbcTemplate.update(sql, params.toArray());
+    }
+
+    /**
+     * Inserta todos los items del pedido en un único INSERT multi-fila
+     */
+    public int insertarItems(Long pedidoId, List<CarritoItem> carritoItems) {
+        String sql = "INSERT INTO pedido_items (cantidad, precio_unitario, subtotal, pedido_id, unidad_venta_id) VALUES " +
+                     placeholders(carritoItems.size(), "(?, ?, ?, ?, ?)");
+
+        List<Object> params = new ArrayList<>();
+        for (CarritoItem item : carritoItems) {
+            BigDecimal subtotal = item.getPrecioUnitario().multiply(BigDecimal.valueOf(item.getCantidad()));
+            params.add(item.getCantidad());
+            params.add(item.getPrecioUnitario());
+            params.add(subtotal);
+            params.add(pedidoId);
+            params.add(item.getUnidadVenta().getId());
+        }
+        return jdbcTemplate.update(sql, params.toArray());
+    }
+
+    private String placeholders(int count, String placeholder) {
+        return String.join(", ", Collections.nCopies(count, placeholder));
+    }
+}
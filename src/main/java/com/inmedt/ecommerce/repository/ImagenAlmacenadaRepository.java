@@ -0,0 +1,36 @@
+package com.inmedt.ecommerce.repository;
+
+import com.inmedt.ecommerce.model.ImagenAlmacenada;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Optional;
+
+@Repository
+public interface ImagenAlmacenadaRepository extends JpaRepository<ImagenAlmacenada, Long> {
+
+    Optional<ImagenAlmacenada> findByHash(String hash);
+
+    Optional<ImagenAlmacenada> findByUrl(String url);
+
+    // Devuelve 0 si la fila ya no existe (se eliminó su última referencia mientras tanto)
+    @Transactional
+    @Modifying
+    @Query("UPDATE ImagenAlmacenada i SET i.referencias = i.referencias + 1 WHERE i.id = :id")
+    int incrementarReferencias(@Param("id") Long id);
+
+    @Transactional
+    @Modifying
+    @Query("UPDATE ImagenAlmacenada i SET i.referencias = i.referencias - 1 WHERE i.id = :id AND i.referencias > 0")
+    int decrementarReferencias(@Param("id") Long id);
+
+    // Solo borra si nadie volvió a referenciarla: quien obtiene 1 es el responsable de borrar los archivos
+    @Transactional
+    @Modifying
+    @Query("DELETE FROM ImagenAlmacenada i WHERE i.id = :id AND i.referencias <= 0")
+    int deleteSinReferencias(@Param("id") Long id);
+}
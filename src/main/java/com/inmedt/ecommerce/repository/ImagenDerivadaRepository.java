@@ -0,0 +1,26 @@
+package com.inmedt.ecommerce.repository;
+
+import com.inmedt.ecommerce.model.ImagenDerivada;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface ImagenDerivadaRepository extends JpaRepository<ImagenDerivada, Long> {
+
+    List<ImagenDerivada> findByImagenUrl(String imagenUrl);
+
+    // Derivadas de todas las imágenes de una página de productos en una sola consulta
+    List<ImagenDerivada> findByImagenUrlIn(Collection<String> imagenUrls);
+
+    @Transactional
+    @Modifying
+    @Query("DELETE FROM ImagenDerivada d WHERE d.imagenUrl = :imagenUrl")
+    int deleteByImagenUrlInBulk(@Param("imagenUrl") String imagenUrl);
+}
@@ -3,8 +3,11 @@ package com.inmedt.ecommerce.repository;
 import com.inmedt.ecommerce.model.PedidoItem;
 import com.inmedt.ecommerce.model.Pedido;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 
 @Repository
@@ -13,4 +16,9 @@ public interface PedidoItemRepository extends JpaRepository<PedidoItem, Long> {
     List<PedidoItem> findByPedido(Pedido pedido);
     
     List<PedidoItem> findByPedidoId(Long pedidoId);
+    
+    // Items de varios pedidos con su unidad, variante y producto en una sola consulta
+    @Query("SELECT i FROM PedidoItem i JOIN FETCH i.unidadVenta u JOIN FETCH u.variante v JOIN FETCH v.producto " +
+           "WHERE i.pedido.id IN :pedidoIds ORDER BY i.id")
+    List<PedidoItem> findWithProductoByPedidoIdIn(@Param("pedidoIds") Collection<Long> pedidoIds);
 }
@@ -5,13 +5,17 @@ import com.inmedt.ecommerce.model.User;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
 @Repository
-public interface PedidoRepository extends JpaRepository<Pedido, Long> {
+public interface PedidoRepository extends JpaRepository<Pedido, Long>, JpaSpecificationExecutor<Pedido>, PedidoRepositoryCustom {
     
     List<Pedido> findByUserOrderByCreatedAtDesc(User user);
     
@@ -20,4 +24,16 @@ public interface PedidoRepository extends JpaRepository<Pedido, Long> {
     Optional<Pedido> findByNumeroPedido(String numeroPedido);
     
     boolean existsByNumeroPedido(String numeroPedido);
+    
+    @Query("SELECT p.estado, COUNT(p) FROM Pedido p GROUP BY p.estado")
+    List<Object[]> countGroupByEstado();
+    
+    // Resumen de pedidos por usuario (id, cantidad, total gastado, último pedido) en una sola consulta agrupada
+    @Query("SELECT p.user.id, COUNT(p), SUM(p.total), MAX(p.createdAt) FROM Pedido p " +
+           "WHERE p.user.id IN :userIds GROUP BY p.user.id")
+    List<Object[]> resumenPorUsuario(@Param("userIds") Collection<Long> userIds);
+    
+    // El mismo resumen para todos los usuarios con pedidos, sin lista de ids
+    @Query("SELECT p.user.id, COUNT(p), SUM(p.total), MAX(p.createdAt) FROM Pedido p GROUP BY p.user.id")
+    List<Object[]> resumenTodosLosUsuarios();
 }
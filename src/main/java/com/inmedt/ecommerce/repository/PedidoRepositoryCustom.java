@@ -0,0 +1,19 @@
+package com.inmedt.ecommerce.repository;
+
+import com.inmedt.ecommerce.model.Pedido;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+public interface PedidoRepositoryCustom {
+    
+    /**
+     * Paginación por keyset (seek): devuelve hasta {@code limit} pedidos que cumplen {@code spec},
+     * ordenados por createdAt DESC, id DESC, posteriores al último pedido de la página anterior.
+     * Sin OFFSET ni COUNT, el costo no crece con la profundidad de la página.
+     * @param createdAt fecha del último pedido visto (null para la primera página)
+     * @param id id del último pedido visto (null para la primera página)
+     */
+    List<Pedido> findPageAfter(Specification<Pedido> spec, LocalDateTime createdAt, Long id, int limit);
+}
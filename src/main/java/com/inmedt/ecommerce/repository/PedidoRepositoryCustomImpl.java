@@ -0,0 +1,56 @@
+package com.inmedt.ecommerce.repository;
+
+import com.inmedt.ecommerce.model.Pedido;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.JoinType;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+public class PedidoRepositoryCustomImpl implements PedidoRepositoryCustom {
+    
+    @PersistenceContext
+    private EntityManager entityManager;
+    
+    @Override
+    public List<Pedido> findPageAfter(Specification<Pedido> spec, LocalDateTime createdAt, Long id, int limit) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Pedido> query = cb.createQuery(Pedido.class);
+        Root<Pedido> root = query.from(Pedido.class);
+        root.fetch("user", JoinType.INNER);
+        
+        List<Predicate> predicates = new ArrayList<>();
+        if (spec != null) {
+            Predicate filtro = spec.toPredicate(root, query, cb);
+            if (filtro != null) {
+                predicates.add(filtro);
+            }
+        }
+        
+        // (created_at, id) < (:createdAt, :id)
+        if (createdAt != null && id != null) {
+            predicates.add(cb.or(
+                cb.lessThan(root.get("createdAt"), createdAt),
+                cb.and(
+                    cb.equal(root.get("createdAt"), createdAt),
+                    cb.lessThan(root.get("id"), id)
+                )
+            ));
+        }
+        
+        query.select(root)
+             .where(predicates.toArray(new Predicate[0]))
+             .orderBy(cb.desc(root.get("createdAt")), cb.desc(root.get("id")));
+        
+        return entityManager.createQuery(query)
+                .setMaxResults(limit)
+                .getResultList();
+    }
+}
@@ -9,11 +9,12 @@ import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
 @Repository
-public interface ProductoRepository extends JpaRepository<Producto, Long>, JpaSpecificationExecutor<Producto> {
+public interface ProductoRepository extends JpaRepository<Producto, Long>, JpaSpecificationExecutor<Producto>, ProductoRepositoryCustom {
     
     Page<Producto> findByActivoTrue(Pageable pageable);
     
@@ -27,8 +28,33 @@ public interface ProductoRepository extends JpaRepository<Producto, Long>, JpaSp
            "LOWER(p.marca) LIKE LOWER(CONCAT('%', :search, '%')))")
     Page<Producto> findByActivoTrueAndSearchTerm(@Param("search") String search, Pageable pageable);
     
+    // Búsqueda de texto completo (columna search_vector + índice GIN, ver BusquedaProductoService)
+    @Query(value = "SELECT p.* FROM productos p WHERE p.activo = true " +
+                   "AND p.search_vector @@ to_tsquery('spanish', :tsquery) " +
+                   "ORDER BY ts_rank(p.search_vector, to_tsquery('spanish', :tsquery)) DESC, p.id",
+           countQuery = "SELECT count(*) FROM productos p WHERE p.activo = true " +
+                        "AND p.search_vector @@ to_tsquery('spanish', :tsquery)",
+           nativeQuery = true)
+    Page<Producto> searchFullTextByRelevancia(@Param("tsquery") String tsquery, Pageable pageable);
+    
+    // Misma búsqueda, con el orden solicitado por el cliente (nombre, marca...)
+    @Query(value = "SELECT p.* FROM productos p WHERE p.activo = true " +
+                   "AND p.search_vector @@ to_tsquery('spanish', :tsquery)",
+           countQuery = "SELECT count(*) FROM productos p WHERE p.activo = true " +
+                        "AND p.search_vector @@ to_tsquery('spanish', :tsquery)",
+           nativeQuery = true)
+    Page<Producto> searchFullText(@Param("tsquery") String tsquery, Pageable pageable);
+    
     List<Producto> findByActivoTrueAndCategoriaId(Long categoriaId);
     
+    // Lectura del catálogo en lote: categoría y variantes de todos los productos de una página
+    @Query("SELECT DISTINCT p FROM Producto p JOIN FETCH p.categoria LEFT JOIN FETCH p.variantes WHERE p.id IN :ids")
+    List<Producto> findWithCategoriaAndVariantesByIdIn(@Param("ids") Collection<Long> ids);
+    
+    // Galería en consulta aparte (no se pueden traer dos colecciones tipo List en el mismo JOIN FETCH)
+    @Query("SELECT DISTINCT p FROM Producto p LEFT JOIN FETCH p.imagenesGaleria WHERE p.id IN :ids")
+    List<Producto> findWithImagenesGaleriaByIdIn(@Param("ids") Collection<Long> ids);
+    
     boolean existsByNombreAndCategoriaId(String nombre, Long categoriaId);
     
     Optional<Producto> findByNombreAndCategoriaId(String nombre, Long categoriaId);
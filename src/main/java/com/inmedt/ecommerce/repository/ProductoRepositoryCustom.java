@@ -0,0 +1,23 @@
+package com.inmedt.ecommerce.repository;
+
+import com.inmedt.ecommerce.model.Producto;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.util.List;
+import java.util.Set;
+
+public interface ProductoRepositoryCustom {
+    
+    // Campos por los que se puede paginar por cursor (no nulos, con índice junto al id)
+    Set<String> CAMPOS_CURSOR = Set.of("nombre", "id");
+    
+    /**
+     * Paginación por keyset (seek): devuelve hasta {@code limit} productos que cumplen {@code spec},
+     * ordenados por {@code campo} y luego por id, posteriores al último producto de la página anterior.
+     * @param campo "nombre" o "id"
+     * @param valor valor de {@code campo} en el último producto visto (null para la primera página)
+     * @param id id del último producto visto (null para la primera página)
+     */
+    List<Producto> findPageAfter(Specification<Producto> spec, String campo, boolean descendente,
+                                 String valor, Long id, int limit);
+}
@@ -0,0 +1,70 @@
+package com.inmedt.ecommerce.repository;
+
+import com.inmedt.ecommerce.model.Producto;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Expression;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class ProductoRepositoryCustomImpl implements ProductoRepositoryCustom {
+    
+    @PersistenceContext
+    private EntityManager entityManager;
+    
+    @Override
+    public List<Producto> findPageAfter(Specification<Producto> spec, String campo, boolean descendente,
+                                        String valor, Long id, int limit) {
+        if (!CAMPOS_CURSOR.contains(campo)) {
+            throw new RuntimeException("Orden no soportado para paginación por cursor: " + campo);
+        }
+        
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Producto> query = cb.createQuery(Producto.class);
+        Root<Producto> root = query.from(Producto.class);
+        Expression<Long> idPath = root.get("id");
+        
+        List<Predicate> predicates = new ArrayList<>();
+        if (spec != null) {
+            Predicate filtro = spec.toPredicate(root, query, cb);
+            if (filtro != null) {
+                predicates.add(filtro);
+            }
+        }
+        
+        if ("id".equals(campo)) {
+            if (id != null) {
+                predicates.add(descendente ? cb.lessThan(idPath, id) : cb.greaterThan(idPath, id));
+            }
+            query.orderBy(descendente ? cb.desc(idPath) : cb.asc(idPath));
+        } else {
+            Expression<String> campoPath = root.get(campo);
+            // (campo, id) > (:valor, :id) en ascendente, < en descendente
+            if (valor != null && id != null) {
+                predicates.add(cb.or(
+                    descendente ? cb.lessThan(campoPath, valor) : cb.greaterThan(campoPath, valor),
+                    cb.and(
+                        cb.equal(campoPath, valor),
+                        descendente ? cb.lessThan(idPath, id) : cb.greaterThan(idPath, id)
+                    )
+                ));
+            }
+            query.orderBy(
+                descendente ? cb.desc(campoPath) : cb.asc(campoPath),
+                descendente ? cb.desc(idPath) : cb.asc(idPath)
+            );
+        }
+        
+        query.select(root).where(predicates.toArray(new Predicate[0]));
+        
+        return entityManager.createQuery(query)
+                .setMaxResults(limit)
+                .getResultList();
+    }
+}
@@ -27,5 +27,9 @@ public interface UnidadDeVentaRepository extends JpaRepository<UnidadDeVenta, Lo
            "u.variante.producto.id = :productoId")
     List<UnidadDeVenta> findAvailableByProductoId(@Param("productoId") Long productoId);
     
+    // Unidad con su variante y producto en una sola consulta (para armar la respuesta del carrito)
+    @Query("SELECT u FROM UnidadDeVenta u JOIN FETCH u.variante v JOIN FETCH v.producto WHERE u.id = :id")
+    Optional<UnidadDeVenta> findWithProductoById(@Param("id") Long id);
+    
     boolean existsBySku(String sku);
 }
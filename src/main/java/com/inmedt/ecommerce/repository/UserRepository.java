@@ -1,17 +1,34 @@
 package com.inmedt.ecommerce.repository;
 
 import com.inmedt.ecommerce.model.User;
+import com.inmedt.ecommerce.security.AuthenticatedUser;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.util.Optional;
 
 @Repository
-public interface UserRepository extends JpaRepository<User, Long> {
+public interface UserRepository extends JpaRepository<User, Long>, JpaSpecificationExecutor<User> {
     
     Optional<User> findByEmail(String email);
     
+    // Solo las columnas del principal: cargar la entidad consultaría también su carrito
+    @Query("SELECT new com.inmedt.ecommerce.security.AuthenticatedUser(u.id, u.email, u.role, u.enabled, u.tokenVersion) " +
+           "FROM User u WHERE u.email = :email")
+    Optional<AuthenticatedUser> findPrincipalByEmail(@Param("email") String email);
+    
     boolean existsByEmail(String email);
     
     boolean existsByRucCedula(String rucCedula);
+    
+    Page<User> findByRole(User.Role role, Pageable pageable);
+    
+    Page<User> findByEnabled(Boolean enabled, Pageable pageable);
+    
+    long countByRole(User.Role role);
 }
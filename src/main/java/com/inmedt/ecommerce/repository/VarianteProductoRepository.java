@@ -2,8 +2,11 @@ package com.inmedt.ecommerce.repository;
 
 import com.inmedt.ecommerce.model.VarianteProducto;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -19,4 +22,7 @@ public interface VarianteProductoRepository extends JpaRepository<VarianteProduc
     boolean existsByNombreAndProductoId(String nombre, Long productoId);
     
     Optional<VarianteProducto> findByNombreAndProductoId(String nombre, Long productoId);
+    
+    @Query("SELECT DISTINCT v FROM VarianteProducto v LEFT JOIN FETCH v.unidadesVenta WHERE v.producto.id IN :productoIds")
+    List<VarianteProducto> findWithUnidadesVentaByProductoIdIn(@Param("productoIds") Collection<Long> productoIds);
 }
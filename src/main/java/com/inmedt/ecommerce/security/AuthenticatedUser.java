@@ -0,0 +1,97 @@
+package com.inmedt.ecommerce.security;
+
+import com.inmedt.ecommerce.model.User;
+import io.jsonwebtoken.Claims;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.userdetails.UserDetails;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Principal liviano de las peticiones autenticadas por JWT. A diferencia de la entidad User,
+ * no está ligado a una sesión de Hibernate y puede guardarse en caché entre peticiones.
+ */
+public class AuthenticatedUser implements UserDetails {
+    
+    private final Long id;
+    private final String email;
+    private final User.Role role;
+    private final boolean enabled;
+    private final int tokenVersion;
+    
+    public AuthenticatedUser(Long id, String email, User.Role role, boolean enabled, int tokenVersion) {
+        this.id = id;
+        this.email = email;
+        this.role = role;
+        this.enabled = enabled;
+        this.tokenVersion = tokenVersion;
+    }
+    
+    public static AuthenticatedUser from(User user) {
+        return new AuthenticatedUser(user.getId(), user.getEmail(), user.getRole(), Boolean.TRUE.equals(user.getEnabled()),
+                user.getTokenVersion() != null ? user.getTokenVersion() : 0);
+    }
+    
+    /**
+     * @return null si el token no trae los claims del usuario (tokens emitidos antes de incluirlos)
+     */
+    public static AuthenticatedUser fromClaims(Claims claims) {
+        Long id = claims.get(JwtUtil.CLAIM_USER_ID, Long.class);
+        String role = claims.get(JwtUtil.CLAIM_ROLE, String.class);
+        Boolean enabled = claims.get(JwtUtil.CLAIM_ENABLED, Boolean.class);
+        Integer tokenVersion = claims.get(JwtUtil.CLAIM_TOKEN_VERSION, Integer.class);
+        if (id == null || role == null || enabled == null || tokenVersion == null) {
+            return null;
+        }
+        try {
+            return new AuthenticatedUser(id, claims.getSubject(), User.Role.valueOf(role), enabled, tokenVersion);
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+    
+    public Long getId() { return id; }
+    
+    public String getEmail() { return email; }
+    
+    public User.Role getRole() { return role; }
+    
+    public int getTokenVersion() { return tokenVersion; }
+    
+    @Override
+    public Collection<? extends GrantedAuthority> getAuthorities() {
+        return List.of(new SimpleGrantedAuthority(role.name()));
+    }
+    
+    @Override
+    public String getPassword() {
+        return null;
+    }
+    
+    @Override
+    public String getUsername() {
+        return email;
+    }
+    
+    @Override
+    public boolean isAccountNonExpired() {
+        return true;
+    }
+    
+    @Override
+    public boolean isAccountNonLocked() {
+        return true;
+    }
+    
+    @Override
+    public boolean isCredentialsNonExpired() {
+        return true;
+    }
+    
+    @Override
+    public boolean isEnabled() {
+        return enabled;
+    }
+}
@@ -0,0 +1,76 @@
+package com.inmedt.ecommerce.security;
+
+import com.inmedt.ecommerce.model.Carrito;
+import com.inmedt.ecommerce.model.User;
+import com.inmedt.ecommerce.repository.CarritoRepository;
+import com.inmedt.ecommerce.repository.UserRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.annotation.RequestScope;
+
+/**
+ * Usuario y carrito de la petición actual, resueltos una sola vez por petición.
+ * El id sale del principal autenticado (AuthenticatedUser), sin consultar la base de datos.
+ */
+@Component
+@RequestScope
+public class CurrentUserContext {
+    
+    @Autowired
+    private UserRepository userRepository;
+    
+    @Autowired
+    private CarritoRepository carritoRepository;
+    
+    private Long userId;
+    
+    private User user;
+    
+    private Carrito carrito;
+    
+    public Long getUserId() {
+        if (userId == null) {
+            Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+            if (authentication == null) {
+                throw new RuntimeException("Usuario no autenticado");
+            }
+            
+            Object principal = authentication.getPrincipal();
+            if (principal instanceof AuthenticatedUser authenticatedUser) {
+                userId = authenticatedUser.getId();
+            } else if (principal instanceof User usuario) {
+                userId = usuario.getId();
+            } else {
+                userId = userRepository.findByEmail(authentication.getName())
+                        .orElseThrow(() -> new RuntimeException("Usuario no encontrado"))
+                        .getId();
+            }
+        }
+        return userId;
+    }
+    
+    /**
+     * Referencia al usuario actual: no consulta la base de datos hasta que se lee un campo distinto del id
+     * (suficiente para asociarlo a pedidos, favoritos o direcciones)
+     */
+    public User getUser() {
+        if (user == null) {
+            user = userRepository.getReferenceById(getUserId());
+        }
+        return user;
+    }
+    
+    /**
+     * Carrito del usuario actual, bloqueado hasta el fin de la transacción (ver CarritoRepository.findForUpdateByUserId);
+     * se crea si todavía no existe. Solo dentro de una transacción.
+     */
+    public Carrito getCarrito() {
+        if (carrito == null) {
+            carrito = carritoRepository.findForUpdateByUserId(getUserId())
+                    .orElseGet(() -> carritoRepository.save(new Carrito(getUser())));
+        }
+        return carrito;
+    }
+}
@@ -1,5 +1,9 @@
 package com.inmedt.ecommerce.security;
 
+import com.inmedt.ecommerce.config.MetricsConfig;
+import io.jsonwebtoken.Claims;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
@@ -7,8 +11,6 @@ import jakarta.servlet.http.HttpServletResponse;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.context.SecurityContextHolder;
-import org.springframework.security.core.userdetails.UserDetails;
-import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.web.authentication.WebAuthenticationDetailsSource;
 import org.springframework.stereotype.Component;
 import org.springframework.web.filter.OncePerRequestFilter;
@@ -19,39 +21,50 @@ import java.io.IOException;
 public class JwtAuthenticationFilter extends OncePerRequestFilter {
     
     @Autowired
-    private UserDetailsService userDetailsService;
+    private UserPrincipalCache userPrincipalCache;
     
     @Autowired
     private JwtUtil jwtUtil;
     
+    @Autowired
+    private MeterRegistry meterRegistry;
+    
     @Override
     protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, 
                                   FilterChain filterChain) throws ServletException, IOException {
         
         final String authorizationHeader = request.getHeader("Authorization");
         
-        String username = null;
-        String jwt = null;
+        // Solo se mide la autenticación, no el resto de la cadena de filtros
+        Timer.Sample muestra = Timer.start(meterRegistry);
+        String resultado = "anonimo";
+        Claims claims = null;
         
         if (authorizationHeader != null && authorizationHeader.startsWith("Bearer ")) {
-            jwt = authorizationHeader.substring(7);
+            String jwt = authorizationHeader.substring(7);
             try {
-                username = jwtUtil.extractUsername(jwt);
+                // Un solo parseo: verifica firma y expiración y devuelve los claims
+                claims = jwtUtil.parseToken(jwt);
             } catch (Exception e) {
-                logger.error("Error al extraer username del JWT", e);
+                logger.error("Error al validar el JWT", e);
+                resultado = "invalido";
             }
         }
         
-        if (username != null && SecurityContextHolder.getContext().getAuthentication() == null) {
-            UserDetails userDetails = this.userDetailsService.loadUserByUsername(username);
+        if (claims != null && claims.getSubject() != null && SecurityContextHolder.getContext().getAuthentication() == null) {
+            AuthenticatedUser principal = userPrincipalCache.getPrincipal(claims);
             
-            if (jwtUtil.validateToken(jwt, userDetails)) {
+            if (principal != null && principal.isEnabled()) {
                 UsernamePasswordAuthenticationToken authToken = 
-                    new UsernamePasswordAuthenticationToken(userDetails, null, userDetails.getAuthorities());
+                    new UsernamePasswordAuthenticationToken(principal, null, principal.getAuthorities());
                 authToken.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
                 SecurityContextHolder.getContext().setAuthentication(authToken);
+                resultado = "autenticado";
+            } else {
+                resultado = "rechazado";
             }
         }
+        muestra.stop(meterRegistry.timer(MetricsConfig.JWT, "resultado", resultado));
         
         filterChain.doFilter(request, response);
     }
@@ -1,5 +1,6 @@
 package com.inmedt.ecommerce.security;
 
+import com.inmedt.ecommerce.config.SqlMetricsFilter;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
@@ -67,6 +68,7 @@ public class SecurityConfig {
                         .requestMatchers("/setup/**").permitAll() // Endpoint temporal para setup inicial
                         .requestMatchers("/manifest.json").permitAll()
                         .requestMatchers("/favicon.ico").permitAll()
+                        .requestMatchers("/actuator/**").permitAll() // Solo en el puerto de management (MANAGEMENT_PORT)
                         // Endpoints que requieren autenticación
                         .requestMatchers("/carrito/**").authenticated()
                         .requestMatchers("/pedidos/**").authenticated()
@@ -97,7 +99,7 @@ public class SecurityConfig {
 
         configuration.setAllowedMethods(Arrays.asList("GET", "POST", "PUT", "DELETE", "OPTIONS", "PATCH"));
         configuration.setAllowedHeaders(Arrays.asList("*"));
-        configuration.setExposedHeaders(Arrays.asList("Authorization"));
+        configuration.setExposedHeaders(Arrays.asList("Authorization", SqlMetricsFilter.HEADER));
         configuration.setAllowCredentials(true);
         configuration.setMaxAge(3600L);
 
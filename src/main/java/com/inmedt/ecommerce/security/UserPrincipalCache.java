@@ -0,0 +1,87 @@
+package com.inmedt.ecommerce.security;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.inmedt.ecommerce.model.User;
+import com.inmedt.ecommerce.repository.UserRepository;
+import io.jsonwebtoken.Claims;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+
+/**
+ * Caché de corta duración de los principales autenticados, para que las peticiones con JWT
+ * no consulten la base de datos en cada petición. El principal sale siempre de la base de datos
+ * (rol, estado y versión de token actuales) y el token solo se acepta si su versión coincide con
+ * la del usuario: al cambiar su rol, estado o contraseña la versión se incrementa y los tokens
+ * anteriores se rechazan en todas las instancias, como mucho tras el TTL de esta caché.
+ * Los tokens con rol de administrador se comprueban contra la base de datos en cada petición.
+ */
+@Component
+public class UserPrincipalCache {
+    
+    @Autowired
+    private UserRepository userRepository;
+    
+    @Value("${app.security.principal-cache.ttl-seconds:60}")
+    private long ttlSeconds;
+    
+    @Value("${app.security.principal-cache.max-size:10000}")
+    private long maxSize;
+    
+    private Cache<String, AuthenticatedUser> principales;
+    
+    @PostConstruct
+    public void init() {
+        principales = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(Duration.ofSeconds(ttlSeconds))
+                .build();
+    }
+    
+    /**
+     * @return el principal del token, o null si el usuario ya no existe o el token es de una versión anterior
+     */
+    public AuthenticatedUser getPrincipal(Claims claims) {
+        AuthenticatedUser delToken = AuthenticatedUser.fromClaims(claims);
+        if (delToken == null) {
+            // Token emitido antes de incluir los claims del usuario
+            return null;
+        }
+        
+        String email = claims.getSubject();
+        AuthenticatedUser principal = delToken.getRole() == User.Role.ROLE_ADMIN ? null : principales.getIfPresent(email);
+        if (principal == null) {
+            principal = userRepository.findPrincipalByEmail(email).orElse(null);
+            if (principal == null) {
+                return null;
+            }
+            principales.put(email, principal);
+        }
+        
+        return principal.getTokenVersion() == delToken.getTokenVersion() ? principal : null;
+    }
+    
+    /**
+     * Invalida el principal de un usuario cuyo rol, estado o contraseña cambió.
+     * Dentro de una transacción se aplica después del commit, para no volver a cachear el estado anterior.
+     * Solo afecta a esta instancia; en las demás lo cubre la versión del token.
+     */
+    public void invalidar(String email) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    principales.invalidate(email);
+                }
+            });
+        } else {
+            principales.invalidate(email);
+        }
+    }
+}
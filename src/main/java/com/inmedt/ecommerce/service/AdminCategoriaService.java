@@ -21,6 +21,9 @@ public class AdminCategoriaService {
     @Autowired
     private ProductoRepository productoRepository;
 
+    @Autowired
+    private CatalogoCacheService catalogoCacheService;
+
     public Page<CategoriaResponse> getAllCategorias(Pageable pageable) {
         Page<Categoria> categorias = categoriaRepository.findAll(pageable);
         return categorias.map(this::convertToResponse);
@@ -44,6 +47,7 @@ public class AdminCategoriaService {
         categoria.setActiva(request.getActiva() != null ? request.getActiva() : true);
 
         categoria = categoriaRepository.save(categoria);
+        catalogoCacheService.evictCategorias();
         return convertToResponse(categoria);
     }
 
@@ -64,6 +68,8 @@ public class AdminCategoriaService {
         }
 
         categoria = categoriaRepository.save(categoria);
+        // El nombre de la categoría forma parte de cada ProductoResponse
+        catalogoCacheService.evictAll();
         return convertToResponse(categoria);
     }
 
@@ -73,6 +79,7 @@ public class AdminCategoriaService {
 
         categoria.setActiva(activa);
         categoria = categoriaRepository.save(categoria);
+        catalogoCacheService.evictCategorias();
         return convertToResponse(categoria);
     }
 
@@ -87,6 +94,7 @@ public class AdminCategoriaService {
         }
 
         categoriaRepository.delete(categoria);
+        catalogoCacheService.evictCategorias();
     }
 
     public Long getTotalCategorias() {
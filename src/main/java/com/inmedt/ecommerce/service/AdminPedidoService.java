@@ -1,40 +1,115 @@
 package com.inmedt.ecommerce.service;
 
+import com.inmedt.ecommerce.dto.CursorPageResponse;
+import com.inmedt.ecommerce.dto.PageCursor;
 import com.inmedt.ecommerce.dto.PedidoResponse;
 import com.inmedt.ecommerce.dto.UpdatePedidoInfoRequest;
 import com.inmedt.ecommerce.model.Pedido;
+import com.inmedt.ecommerce.model.PedidoItem;
 import com.inmedt.ecommerce.repository.PedidoRepository;
 import com.inmedt.ecommerce.repository.PedidoItemRepository;
+import com.inmedt.ecommerce.repository.UserRepository;
+import jakarta.persistence.criteria.Predicate;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.stream.Collectors;
 
 @Service
 @Transactional
 public class AdminPedidoService {
     
+    // Ids por consulta al cargar usuarios e items: acota el IN (getAllPedidos no está paginado)
+    private static final int LOTE_IDS = 1000;
+    
     @Autowired
     private PedidoRepository pedidoRepository;
     
     @Autowired
     private PedidoItemRepository pedidoItemRepository;
     
+    @Autowired
+    private UserRepository userRepository;
+    
     public Page<PedidoResponse> getAllPedidos(Pageable pageable) {
         Page<Pedido> pedidos = pedidoRepository.findAll(pageable);
-        return pedidos.map(this::convertToPedidoResponse);
+        return convertToPedidoResponsePage(pedidos);
+    }
+    
+    /**
+     * Listado paginado con filtros opcionales (estado, usuario, rango de fechas) resueltos en la base de datos
+     */
+    public Page<PedidoResponse> buscarPedidos(String estado, Long userId, LocalDateTime fechaInicio,
+                                              LocalDateTime fechaFin, Pageable pageable) {
+        Specification<Pedido> spec = buildSpecification(parseEstado(estado), userId, fechaInicio, fechaFin);
+        Page<Pedido> pedidos = pedidoRepository.findAll(spec, pageable);
+        return convertToPedidoResponsePage(pedidos);
+    }
+    
+    /**
+     * Mismos filtros con paginación por cursor (keyset sobre createdAt DESC, id DESC): sin OFFSET ni COUNT.
+     * Un cursor vacío pide la primera página.
+     */
+    public CursorPageResponse<PedidoResponse> buscarPedidosPorCursor(String estado, Long userId, LocalDateTime fechaInicio,
+                                                                     LocalDateTime fechaFin, String cursor, int size) {
+        PageCursor.validarTamano(size);
+        PageCursor pageCursor = PageCursor.parse(cursor);
+        LocalDateTime cursorCreatedAt = null;
+        if (pageCursor != null) {
+            pageCursor.validarOrden("createdAt", true);
+            cursorCreatedAt = parseFechaCursor(pageCursor.getValor());
+        }
+        
+        Specification<Pedido> spec = buildSpecification(parseEstado(estado), userId, fechaInicio, fechaFin);
+        // Se pide un elemento extra para saber si hay página siguiente
+        List<Pedido> pedidos = pedidoRepository.findPageAfter(spec, cursorCreatedAt,
+                pageCursor != null ? pageCursor.getId() : null, size + 1);
+        
+        String nextCursor = null;
+        if (pedidos.size() > size) {
+            pedidos = pedidos.subList(0, size);
+            Pedido ultimo = pedidos.get(size - 1);
+            nextCursor = new PageCursor("createdAt", true, ultimo.getCreatedAt().toString(), ultimo.getId()).toToken();
+        }
+        
+        return new CursorPageResponse<>(convertToPedidoResponses(pedidos), nextCursor, size);
+    }
+    
+    /**
+     * Cantidad de pedidos por estado y total, con un único GROUP BY
+     */
+    public Map<String, Long> getEstadisticas() {
+        Map<String, Long> estadisticas = new LinkedHashMap<>();
+        for (Pedido.EstadoPedido estado : Pedido.EstadoPedido.values()) {
+            estadisticas.put(estado.name(), 0L);
+        }
+        
+        long total = 0;
+        for (Object[] fila : pedidoRepository.countGroupByEstado()) {
+            Long cantidad = (Long) fila[1];
+            estadisticas.put(((Pedido.EstadoPedido) fila[0]).name(), cantidad);
+            total += cantidad;
+        }
+        estadisticas.put("total", total);
+        return estadisticas;
     }
     
     public List<PedidoResponse> getAllPedidos() {
         List<Pedido> pedidos = pedidoRepository.findAll();
-        return pedidos.stream()
-                .map(this::convertToPedidoResponse)
-                .collect(Collectors.toList());
+        return convertToPedidoResponses(pedidos);
     }
     
     public PedidoResponse getPedidoById(Long id) {
@@ -58,37 +133,16 @@ public class AdminPedidoService {
         }
     }
     
-    public List<PedidoResponse> getPedidosByEstado(String estado) {
-        try {
-            Pedido.EstadoPedido estadoPedido = Pedido.EstadoPedido.valueOf(estado.toUpperCase());
-            List<Pedido> pedidos = pedidoRepository.findAll().stream()
-                    .filter(pedido -> pedido.getEstado() == estadoPedido)
-                    .collect(Collectors.toList());
-            return pedidos.stream()
-                    .map(this::convertToPedidoResponse)
-                    .collect(Collectors.toList());
-        } catch (IllegalArgumentException e) {
-            throw new RuntimeException("Estado de pedido inválido: " + estado);
-        }
+    public Page<PedidoResponse> getPedidosByEstado(String estado, Pageable pageable) {
+        return buscarPedidos(estado, null, null, null, pageable);
     }
     
-    public List<PedidoResponse> getPedidosByUser(Long userId) {
-        List<Pedido> pedidos = pedidoRepository.findAll().stream()
-                .filter(pedido -> pedido.getUser().getId().equals(userId))
-                .collect(Collectors.toList());
-        return pedidos.stream()
-                .map(this::convertToPedidoResponse)
-                .collect(Collectors.toList());
+    public Page<PedidoResponse> getPedidosByUser(Long userId, Pageable pageable) {
+        return buscarPedidos(null, userId, null, null, pageable);
     }
     
-    public List<PedidoResponse> getPedidosByDateRange(LocalDateTime fechaInicio, LocalDateTime fechaFin) {
-        List<Pedido> pedidos = pedidoRepository.findAll().stream()
-                .filter(pedido -> pedido.getCreatedAt().isAfter(fechaInicio) && 
-                                 pedido.getCreatedAt().isBefore(fechaFin))
-                .collect(Collectors.toList());
-        return pedidos.stream()
-                .map(this::convertToPedidoResponse)
-                .collect(Collectors.toList());
+    public Page<PedidoResponse> getPedidosByDateRange(LocalDateTime fechaInicio, LocalDateTime fechaFin, Pageable pageable) {
+        return buscarPedidos(null, null, fechaInicio, fechaFin, pageable);
     }
     
     public void deletePedido(Long id) {
@@ -118,7 +172,93 @@ public class AdminPedidoService {
         return convertToPedidoResponse(savedPedido);
     }
     
+    private Pedido.EstadoPedido parseEstado(String estado) {
+        if (estado == null || estado.trim().isEmpty()) {
+            return null;
+        }
+        try {
+            return Pedido.EstadoPedido.valueOf(estado.toUpperCase());
+        } catch (IllegalArgumentException e) {
+            throw new RuntimeException("Estado de pedido inválido: " + estado);
+        }
+    }
+    
+    private LocalDateTime parseFechaCursor(String valor) {
+        try {
+            return LocalDateTime.parse(valor);
+        } catch (DateTimeParseException e) {
+            throw new RuntimeException("Cursor de paginación inválido");
+        }
+    }
+    
+    private Specification<Pedido> buildSpecification(Pedido.EstadoPedido estado, Long userId,
+                                                     LocalDateTime fechaInicio, LocalDateTime fechaFin) {
+        // Cubiertos por los índices (estado, created_at, id), (user_id, created_at, id) y (created_at, id)
+        return (root, query, criteriaBuilder) -> {
+            List<Predicate> predicates = new ArrayList<>();
+            
+            if (estado != null) {
+                predicates.add(criteriaBuilder.equal(root.get("estado"), estado));
+            }
+            
+            if (userId != null) {
+                predicates.add(criteriaBuilder.equal(root.get("user").get("id"), userId));
+            }
+            
+            if (fechaInicio != null) {
+                predicates.add(criteriaBuilder.greaterThanOrEqualTo(root.get("createdAt"), fechaInicio));
+            }
+            
+            if (fechaFin != null) {
+                predicates.add(criteriaBuilder.lessThan(root.get("createdAt"), fechaFin));
+            }
+            
+            return criteriaBuilder.and(predicates.toArray(new Predicate[0]));
+        };
+    }
+    
+    private Page<PedidoResponse> convertToPedidoResponsePage(Page<Pedido> pedidos) {
+        return new PageImpl<>(convertToPedidoResponses(pedidos.getContent()), pedidos.getPageable(), pedidos.getTotalElements());
+    }
+    
+    /**
+     * Convierte una lista de pedidos cargando en lote sus usuarios e items (con unidad, variante y producto),
+     * en lugar de consultar los items de cada pedido por separado: una consulta por cada {@value #LOTE_IDS} ids
+     */
+    private List<PedidoResponse> convertToPedidoResponses(List<Pedido> pedidos) {
+        if (pedidos.isEmpty()) {
+            return Collections.emptyList();
+        }
+        
+        List<Long> userIds = pedidos.stream()
+                .map(pedido -> pedido.getUser().getId())
+                .distinct()
+                .collect(Collectors.toList());
+        for (int i = 0; i < userIds.size(); i += LOTE_IDS) {
+            userRepository.findAllById(userIds.subList(i, Math.min(i + LOTE_IDS, userIds.size())));
+        }
+        
+        List<Long> pedidoIds = pedidos.stream()
+                .map(Pedido::getId)
+                .collect(Collectors.toList());
+        Map<Long, List<PedidoItem>> itemsPorPedido = new HashMap<>();
+        for (int i = 0; i < pedidoIds.size(); i += LOTE_IDS) {
+            for (PedidoItem item : pedidoItemRepository.findWithProductoByPedidoIdIn(pedidoIds.subList(i, Math.min(i + LOTE_IDS, pedidoIds.size())))) {
+                itemsPorPedido.computeIfAbsent(item.getPedido().getId(), id -> new ArrayList<>()).add(item);
+            }
+        }
+        
+        return pedidos.stream()
+                .map(pedido -> convertToPedidoResponse(pedido,
+                        itemsPorPedido.getOrDefault(pedido.getId(), Collections.emptyList())))
+                .collect(Collectors.toList());
+    }
+    
     private PedidoResponse convertToPedidoResponse(Pedido pedido) {
+        return convertToPedidoResponse(pedido, pedidoItemRepository.findByPedido(pedido));
+    }
+    
+    private PedidoResponse convertToPedidoResponse(Pedido pedido, List<PedidoItem> pedidoItems) {
         PedidoResponse response = new PedidoResponse(
             pedido.getId(),
             pedido.getNumeroPedido(),
@@ -143,7 +283,7 @@ public class AdminPedidoService {
             response.setUserEmail(pedido.getUser().getEmail());
         }
         
-        List<PedidoResponse.PedidoItemResponse> items = pedidoItemRepository.findByPedido(pedido)
+        List<PedidoResponse.PedidoItemResponse> items = pedidoItems
                 .stream()
                 .map(this::convertToPedidoItemResponse)
                 .collect(Collectors.toList());
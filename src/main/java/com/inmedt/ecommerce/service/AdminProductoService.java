@@ -1,5 +1,6 @@
 package com.inmedt.ecommerce.service;
 
+import com.inmedt.ecommerce.config.BusquedaFunctionContributor;
 import com.inmedt.ecommerce.dto.*;
 import com.inmedt.ecommerce.model.*;
 import com.inmedt.ecommerce.repository.*;
@@ -34,13 +35,63 @@ public class AdminProductoService {
     @Autowired
     private ImageService imageService;
     
+    @Autowired
+    private CatalogoCacheService catalogoCacheService;
+    
+    @Autowired
+    private BusquedaProductoService busquedaProductoService;
+    
     // Gestión de Productos
     public Page<ProductoResponse> getAllProductos(Pageable pageable, String search, Long categoriaId, Boolean activo, String marca) {
-        Specification<Producto> spec = (root, query, criteriaBuilder) -> {
+        Specification<Producto> spec = buildSpecification(search, categoriaId, activo, marca);
+        Page<Producto> productos = productoRepository.findAll(spec, pageable);
+        return productos.map(this::convertToProductoResponse);
+    }
+    
+    /**
+     * Mismos filtros que getAllProductos, paginados por cursor (keyset) en lugar de OFFSET + COUNT
+     */
+    public CursorPageResponse<ProductoResponse> getProductosPorCursor(String search, Long categoriaId, Boolean activo, String marca,
+                                                                      String sortBy, boolean descendente, String cursor, int size) {
+        PageCursor.validarTamano(size);
+        PageCursor pageCursor = PageCursor.parse(cursor);
+        if (pageCursor != null) {
+            pageCursor.validarOrden(sortBy, descendente);
+        }
+        
+        Specification<Producto> spec = buildSpecification(search, categoriaId, activo, marca);
+        // Se pide un elemento extra para saber si hay página siguiente
+        List<Producto> productos = productoRepository.findPageAfter(spec, sortBy, descendente,
+                pageCursor != null ? pageCursor.getValor() : null,
+                pageCursor != null ? pageCursor.getId() : null,
+                size + 1);
+        
+        String nextCursor = null;
+        if (productos.size() > size) {
+            productos = productos.subList(0, size);
+            Producto ultimo = productos.get(size - 1);
+            String valor = "id".equals(sortBy) ? String.valueOf(ultimo.getId()) : ultimo.getNombre();
+            nextCursor = new PageCursor(sortBy, descendente, valor, ultimo.getId()).toToken();
+        }
+        
+        List<ProductoResponse> content = productos.stream()
+                .map(this::convertToProductoResponse)
+                .collect(Collectors.toList());
+        return new CursorPageResponse<>(content, nextCursor, size);
+    }
+    
+    private Specification<Producto> buildSpecification(String search, Long categoriaId, Boolean activo, String marca) {
+        String tsquery = busquedaProductoService.isDisponible() ? busquedaProductoService.toTsQuery(search) : null;
+        
+        return (root, query, criteriaBuilder) -> {
             List<Predicate> predicates = new ArrayList<>();
             
-            // Búsqueda por nombre, descripción o marca (case insensitive)
-            if (search != null && !search.trim().isEmpty()) {
+            if (tsquery != null) {
+                // Búsqueda de texto completo en la misma consulta (índice GIN), ver BusquedaFunctionContributor
+                predicates.add(criteriaBuilder.isTrue(criteriaBuilder.function(BusquedaFunctionContributor.PRODUCTO_COINCIDE,
+                    Boolean.class, root.get("id"), criteriaBuilder.literal(tsquery))));
+            } else if (search != null && !search.trim().isEmpty()) {
+                // Búsqueda por nombre, descripción o marca (case insensitive)
                 String searchPattern = "%" + search.toLowerCase() + "%";
                 Predicate nombrePredicate = criteriaBuilder.like(
                     criteriaBuilder.lower(root.get("nombre")),
@@ -81,9 +132,6 @@ public class AdminProductoService {
             
             return criteriaBuilder.and(predicates.toArray(new Predicate[0]));
         };
-        
-        Page<Producto> productos = productoRepository.findAll(spec, pageable);
-        return productos.map(this::convertToProductoResponse);
     }
     
     // Mantener el método sin filtros para compatibilidad
@@ -109,6 +157,8 @@ public class AdminProductoService {
         producto.setActivo(request.getActivo());
         
         Producto savedProducto = productoRepository.save(producto);
+        catalogoCacheService.evictProducto(savedProducto.getId());
+        catalogoCacheService.evictCategorias();
         return convertToProductoResponse(savedProducto);
     }
     
@@ -126,13 +176,24 @@ public class AdminProductoService {
         producto.setActivo(request.getActivo());
         
         Producto savedProducto = productoRepository.save(producto);
+        catalogoCacheService.evictProducto(id);
+        catalogoCacheService.evictCategorias();
         return convertToProductoResponse(savedProducto);
     }
     
     public void deleteProducto(Long id) {
         Producto producto = productoRepository.findById(id)
                 .orElseThrow(() -> new RuntimeException("Producto no encontrado"));
+        
+        // Soltar las referencias a sus imágenes (se borran si ningún otro producto las usa)
+        imageService.deleteImage(producto.getImagenPrincipal());
+        if (producto.getImagenesGaleria() != null) {
+            producto.getImagenesGaleria().forEach(imageService::deleteImage);
+        }
+        
         productoRepository.delete(producto);
+        catalogoCacheService.evictProducto(id);
+        catalogoCacheService.evictCategorias();
     }
     
     // Gestión de Categorías
@@ -150,6 +211,7 @@ public class AdminProductoService {
         categoria.setActiva(request.getActiva());
         
         Categoria savedCategoria = categoriaRepository.save(categoria);
+        catalogoCacheService.evictCategorias();
         return convertToCategoriaResponse(savedCategoria);
     }
     
@@ -162,6 +224,8 @@ public class AdminProductoService {
         categoria.setActiva(request.getActiva());
         
         Categoria savedCategoria = categoriaRepository.save(categoria);
+        // El nombre de la categoría forma parte de cada ProductoResponse
+        catalogoCacheService.evictAll();
         return convertToCategoriaResponse(savedCategoria);
     }
     
@@ -169,6 +233,7 @@ public class AdminProductoService {
         Categoria categoria = categoriaRepository.findById(id)
                 .orElseThrow(() -> new RuntimeException("Categoría no encontrada"));
         categoriaRepository.delete(categoria);
+        catalogoCacheService.evictAll();
     }
     
     // Gestión de Variantes
@@ -190,6 +255,7 @@ public class AdminProductoService {
         variante.setActiva(request.getActiva());
         
         VarianteProducto savedVariante = varianteProductoRepository.save(variante);
+        catalogoCacheService.evictProducto(producto.getId());
         return convertToVarianteResponse(savedVariante);
     }
     
@@ -202,6 +268,7 @@ public class AdminProductoService {
         variante.setActiva(request.getActiva());
         
         VarianteProducto savedVariante = varianteProductoRepository.save(variante);
+        catalogoCacheService.evictProducto(variante.getProducto().getId());
         return convertToVarianteResponse(savedVariante);
     }
     
@@ -209,6 +276,7 @@ public class AdminProductoService {
         VarianteProducto variante = varianteProductoRepository.findById(id)
                 .orElseThrow(() -> new RuntimeException("Variante no encontrada"));
         varianteProductoRepository.delete(variante);
+        catalogoCacheService.evictProducto(variante.getProducto().getId());
     }
     
     // Gestión de Unidades de Venta
@@ -237,6 +305,7 @@ public class AdminProductoService {
         unidad.setActiva(request.getActiva() != null ? request.getActiva() : true);
         
         UnidadDeVenta savedUnidad = unidadDeVentaRepository.save(unidad);
+        catalogoCacheService.evictProducto(variante.getProducto().getId());
         return convertToUnidadVentaResponse(savedUnidad);
     }
     
@@ -256,6 +325,7 @@ public class AdminProductoService {
         unidad.setActiva(request.getActiva());
         
         UnidadDeVenta savedUnidad = unidadDeVentaRepository.save(unidad);
+        catalogoCacheService.evictProducto(unidad.getVariante().getProducto().getId());
         return convertToUnidadVentaResponse(savedUnidad);
     }
     
@@ -263,6 +333,7 @@ public class AdminProductoService {
         UnidadDeVenta unidad = unidadDeVentaRepository.findById(id)
                 .orElseThrow(() -> new RuntimeException("Unidad de venta no encontrada"));
         unidadDeVentaRepository.delete(unidad);
+        catalogoCacheService.evictProducto(unidad.getVariante().getProducto().getId());
     }
     
     // Métodos de conversión
@@ -342,6 +413,7 @@ public class AdminProductoService {
         producto.setImagenPrincipal(filename);
         producto.setImagenThumbnail(thumbnailName);
         productoRepository.save(producto);
+        catalogoCacheService.evictProducto(productoId);
         
         return convertToProductoResponse(producto);
     }
@@ -358,6 +430,7 @@ public class AdminProductoService {
         galeria.add(filename);
         producto.setImagenesGaleria(galeria);
         productoRepository.save(producto);
+        catalogoCacheService.evictProducto(productoId);
         
         return convertToProductoResponse(producto);
     }
@@ -371,6 +444,7 @@ public class AdminProductoService {
             producto.setImagenPrincipal(null);
             producto.setImagenThumbnail(null);
             productoRepository.save(producto);
+            catalogoCacheService.evictProducto(productoId);
         }
     }
     
@@ -380,14 +454,16 @@ public class AdminProductoService {
         
         List<String> galeria = producto.getImagenesGaleria();
         if (galeria != null) {
-            // Extraer solo el nombre del archivo de la URL
+            // La galería guarda URLs completas; las imágenes antiguas pueden tener solo el nombre del archivo
             String nombreArchivo = filename.replace("/uploads/productos/", "");
-            galeria.remove(nombreArchivo);
-            producto.setImagenesGaleria(galeria);
-            productoRepository.save(producto);
-            
-            // Eliminar archivo físico
-            imageService.deleteImage(nombreArchivo);
+            if (galeria.remove(filename) || galeria.remove(nombreArchivo)) {
+                producto.setImagenesGaleria(galeria);
+                productoRepository.save(producto);
+                catalogoCacheService.evictProducto(productoId);
+                
+                // Soltar la referencia (el archivo se borra si ningún otro producto lo usa)
+                imageService.deleteImage(filename);
+            }
         }
         
         return convertToProductoResponse(producto);
@@ -4,20 +4,31 @@ import com.inmedt.ecommerce.dto.UserResponse;
 import com.inmedt.ecommerce.model.User;
 import com.inmedt.ecommerce.repository.UserRepository;
 import com.inmedt.ecommerce.repository.PedidoRepository;
+import com.inmedt.ecommerce.security.UserPrincipalCache;
+import jakarta.persistence.criteria.Predicate;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.stream.Collectors;
 
 @Service
 @Transactional
 public class AdminUserService {
     
+    // Ids por consulta del resumen de pedidos: mantiene la lista IN lejos del límite de parámetros de Postgres
+    private static final int LOTE_RESUMEN = 1000;
+    
     @Autowired
     private UserRepository userRepository;
     
@@ -27,15 +38,24 @@ public class AdminUserService {
     @Autowired
     private PasswordEncoder passwordEncoder;
     
-    public Page<UserResponse> getAllUsers(Pageable pageable) {
-        Page<User> users = userRepository.findAll(pageable);
-        return users.map(this::convertToUserResponse);
+    @Autowired
+    private UserPrincipalCache userPrincipalCache;
+    
+    /**
+     * Listado filtrable del panel: rol, estado y búsqueda por prefijo de nombre, email o cédula,
+     * resueltos con los índices de agregar-indices-usuarios.sql
+     */
+    public Page<UserResponse> buscarUsuarios(String role, Boolean enabled, String search, Pageable pageable) {
+        Specification<User> spec = buildSpecification(role != null ? parseRole(role) : null, enabled, search);
+        return convertToUserResponses(userRepository.findAll(spec, pageable));
     }
     
     public List<UserResponse> getAllUsers() {
         List<User> users = userRepository.findAll();
+        // Toda la tabla: una sola consulta agrupada sin lista de ids
+        Map<Long, Object[]> resumenes = indexarResumenes(pedidoRepository.resumenTodosLosUsuarios());
         return users.stream()
-                .map(this::convertToUserResponse)
+                .map(user -> convertToUserResponse(user, resumenes.get(user.getId())))
                 .collect(Collectors.toList());
     }
     
@@ -52,7 +72,10 @@ public class AdminUserService {
         try {
             User.Role role = User.Role.valueOf(newRole.toUpperCase());
             user.setRole(role);
+            // Los tokens emitidos con el rol anterior dejan de aceptarse (ver UserPrincipalCache)
+            user.setTokenVersion(user.getTokenVersion() + 1);
             User savedUser = userRepository.save(user);
+            userPrincipalCache.invalidar(savedUser.getEmail());
             return convertToUserResponse(savedUser);
         } catch (IllegalArgumentException e) {
             throw new RuntimeException("Rol inválido: " + newRole);
@@ -64,7 +87,9 @@ public class AdminUserService {
                 .orElseThrow(() -> new RuntimeException("Usuario no encontrado"));
         
         user.setEnabled(enabled);
+        user.setTokenVersion(user.getTokenVersion() + 1);
         User savedUser = userRepository.save(user);
+        userPrincipalCache.invalidar(savedUser.getEmail());
         return convertToUserResponse(savedUser);
     }
     
@@ -73,7 +98,9 @@ public class AdminUserService {
                 .orElseThrow(() -> new RuntimeException("Usuario no encontrado"));
         
         user.setPassword(passwordEncoder.encode(newPassword));
+        user.setTokenVersion(user.getTokenVersion() + 1);
         User savedUser = userRepository.save(user);
+        userPrincipalCache.invalidar(savedUser.getEmail());
         return convertToUserResponse(savedUser);
     }
     
@@ -82,42 +109,93 @@ public class AdminUserService {
                 .orElseThrow(() -> new RuntimeException("Usuario no encontrado"));
         
         // No permitir eliminar el último admin
-        if (user.getRole() == User.Role.ROLE_ADMIN) {
-            long adminCount = userRepository.findAll().stream()
-                    .filter(u -> u.getRole() == User.Role.ROLE_ADMIN)
-                    .count();
-            if (adminCount <= 1) {
-                throw new RuntimeException("No se puede eliminar el último administrador");
-            }
+        if (user.getRole() == User.Role.ROLE_ADMIN
+                && userRepository.countByRole(User.Role.ROLE_ADMIN) <= 1) {
+            throw new RuntimeException("No se puede eliminar el último administrador");
         }
         
         userRepository.delete(user);
+        userPrincipalCache.invalidar(user.getEmail());
+    }
+    
+    public Page<UserResponse> getUsersByRole(String role, Pageable pageable) {
+        return convertToUserResponses(userRepository.findByRole(parseRole(role), pageable));
+    }
+    
+    public Page<UserResponse> getUsersByStatus(Boolean enabled, Pageable pageable) {
+        return convertToUserResponses(userRepository.findByEnabled(enabled, pageable));
     }
     
-    public List<UserResponse> getUsersByRole(String role) {
+    private User.Role parseRole(String role) {
         try {
-            User.Role userRole = User.Role.valueOf(role.toUpperCase());
-            List<User> users = userRepository.findAll().stream()
-                    .filter(user -> user.getRole() == userRole)
-                    .collect(Collectors.toList());
-            return users.stream()
-                    .map(this::convertToUserResponse)
-                    .collect(Collectors.toList());
+            return User.Role.valueOf(role.toUpperCase());
         } catch (IllegalArgumentException e) {
             throw new RuntimeException("Rol inválido: " + role);
         }
     }
     
-    public List<UserResponse> getUsersByStatus(Boolean enabled) {
-        List<User> users = userRepository.findAll().stream()
-                .filter(user -> user.getEnabled().equals(enabled))
-                .collect(Collectors.toList());
-        return users.stream()
-                .map(this::convertToUserResponse)
-                .collect(Collectors.toList());
+    private Specification<User> buildSpecification(User.Role role, Boolean enabled, String search) {
+        return (root, query, criteriaBuilder) -> {
+            List<Predicate> predicates = new ArrayList<>();
+            
+            if (role != null) {
+                predicates.add(criteriaBuilder.equal(root.get("role"), role));
+            }
+            
+            if (enabled != null) {
+                predicates.add(criteriaBuilder.equal(root.get("enabled"), enabled));
+            }
+            
+            // Solo por prefijo: 'texto%' puede usar los índices, '%texto%' recorrería toda la tabla
+            if (search != null && !search.trim().isEmpty()) {
+                String prefijo = escaparLike(search.trim().toLowerCase()) + "%";
+                predicates.add(criteriaBuilder.or(
+                    criteriaBuilder.like(criteriaBuilder.lower(root.get("nombre")), prefijo, '\\'),
+                    criteriaBuilder.like(criteriaBuilder.lower(root.get("email")), prefijo, '\\'),
+                    criteriaBuilder.like(root.get("rucCedula"), prefijo, '\\')
+                ));
+            }
+            
+            return criteriaBuilder.and(predicates.toArray(new Predicate[0]));
+        };
+    }
+    
+    // Que un "_" o "%" escrito por el administrador se busque literalmente
+    private String escaparLike(String texto) {
+        return texto.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_");
+    }
+    
+    private Page<UserResponse> convertToUserResponses(Page<User> users) {
+        Map<Long, Object[]> resumenes = resumenesDePedidos(users.getContent());
+        return users.map(user -> convertToUserResponse(user, resumenes.get(user.getId())));
     }
     
     private UserResponse convertToUserResponse(User user) {
+        return convertToUserResponse(user, resumenesDePedidos(List.of(user)).get(user.getId()));
+    }
+    
+    /**
+     * Cantidad de pedidos, total gastado y fecha del último pedido de cada usuario, agrupados en
+     * la base de datos: una consulta por cada {@value #LOTE_RESUMEN} usuarios, sin cargar pedidos
+     */
+    private Map<Long, Object[]> resumenesDePedidos(List<User> users) {
+        List<Long> ids = users.stream().map(User::getId).collect(Collectors.toList());
+        List<Object[]> filas = new ArrayList<>();
+        for (int i = 0; i < ids.size(); i += LOTE_RESUMEN) {
+            filas.addAll(pedidoRepository.resumenPorUsuario(ids.subList(i, Math.min(i + LOTE_RESUMEN, ids.size()))));
+        }
+        return indexarResumenes(filas);
+    }
+    
+    private Map<Long, Object[]> indexarResumenes(List<Object[]> filas) {
+        Map<Long, Object[]> resumenes = new HashMap<>();
+        for (Object[] fila : filas) {
+            resumenes.put((Long) fila[0], fila);
+        }
+        return resumenes;
+    }
+    
+    private UserResponse convertToUserResponse(User user, Object[] resumen) {
         UserResponse response = new UserResponse(
             user.getId(),
             user.getNombre(),
@@ -128,9 +206,15 @@ public class AdminUserService {
             user.getCreatedAt()
         );
         
-        // Contar pedidos del usuario
-        int totalPedidos = pedidoRepository.findByUserOrderByCreatedAtDesc(user).size();
-        response.setTotalPedidos(totalPedidos);
+        // Usuarios sin pedidos no aparecen en el resumen agrupado
+        if (resumen != null) {
+            response.setTotalPedidos(((Long) resumen[1]).intValue());
+            response.setTotalGastado((BigDecimal) resumen[2]);
+            response.setUltimoPedido((LocalDateTime) resumen[3]);
+        } else {
+            response.setTotalPedidos(0);
+            response.setTotalGastado(BigDecimal.ZERO);
+        }
         
         return response;
     }
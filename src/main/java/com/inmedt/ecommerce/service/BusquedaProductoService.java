@@ -0,0 +1,98 @@
+package com.inmedt.ecommerce.service;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.text.Normalizer;
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.stream.Collectors;
+
+/**
+ * Búsqueda de texto completo del catálogo con PostgreSQL (tsvector + índice GIN,
+ * stemming en español e insensible a tildes). Si el índice no está disponible
+ * se sigue usando la búsqueda LIKE original.
+ */
+@Service
+public class BusquedaProductoService {
+
+    private static final String[] SCRIPT_INDICE = {
+        "CREATE EXTENSION IF NOT EXISTS unaccent",
+        // unaccent() no es IMMUTABLE; este envoltorio permite usarla en una columna generada
+        "CREATE OR REPLACE FUNCTION f_unaccent(text) RETURNS text LANGUAGE sql IMMUTABLE PARALLEL SAFE STRICT " +
+            "AS $$ SELECT public.unaccent('public.unaccent'::regdictionary, $1) $$",
+        "ALTER TABLE productos ADD COLUMN IF NOT EXISTS search_vector tsvector GENERATED ALWAYS AS (" +
+            "setweight(to_tsvector('spanish'::regconfig, f_unaccent(coalesce(nombre, ''))), 'A') || " +
+            "setweight(to_tsvector('spanish'::regconfig, f_unaccent(coalesce(marca, ''))), 'B') || " +
+            "setweight(to_tsvector('spanish'::regconfig, f_unaccent(coalesce(descripcion, ''))), 'C')) STORED",
+        "CREATE INDEX IF NOT EXISTS idx_productos_search_vector ON productos USING GIN (search_vector)"
+    };
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Value("${app.search.fulltext.auto-setup:true}")
+    private boolean autoSetup;
+
+    private volatile boolean disponible = false;
+
+    /**
+     * Crea (si falta) la columna search_vector y su índice GIN una vez que Hibernate
+     * ya creó/validó el esquema. Equivale al script agregar-busqueda-fulltext.sql.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void inicializarIndice() {
+        if (autoSetup) {
+            try {
+                for (String sentencia : SCRIPT_INDICE) {
+                    jdbcTemplate.execute(sentencia);
+                }
+            } catch (Exception e) {
+                System.err.println("⚠️ No se pudo crear el índice de búsqueda: " + e.getMessage());
+            }
+        }
+
+        Integer columnas = jdbcTemplate.queryForObject(
+            "SELECT count(*) FROM information_schema.columns " +
+            "WHERE table_name = 'productos' AND column_name = 'search_vector'",
+            Integer.class
+        );
+        disponible = columnas != null && columnas > 0;
+
+        if (disponible) {
+            System.out.println("✅ Búsqueda de texto completo habilitada");
+        } else {
+            System.out.println("⚠️ Búsqueda de texto completo no disponible, usando LIKE");
+        }
+    }
+
+    public boolean isDisponible() {
+        return disponible;
+    }
+
+    /**
+     * Convierte el texto del usuario en un tsquery seguro: términos sin tildes,
+     * unidos con AND y con coincidencia por prefijo ("jeringá 5ml" -> "jeringa:* & 5ml:*").
+     * @return null si no queda ningún término buscable
+     */
+    public String toTsQuery(String search) {
+        if (search == null) {
+            return null;
+        }
+
+        String normalizado = Normalizer.normalize(search, Normalizer.Form.NFD)
+                .replaceAll("\\p{M}", "")
+                .toLowerCase(Locale.ROOT);
+
+        String tsquery = Arrays.stream(normalizado.split("[^\\p{L}\\p{N}]+"))
+                .filter(termino -> !termino.isEmpty())
+                .map(termino -> termino + ":*")
+                .collect(Collectors.joining(" & "));
+
+        return tsquery.isEmpty() ? null : tsquery;
+    }
+}
@@ -1,18 +1,20 @@
 package com.inmedt.ecommerce.service;
 
+import com.inmedt.ecommerce.config.MetricsConfig;
 import com.inmedt.ecommerce.dto.AddToCartRequest;
 import com.inmedt.ecommerce.dto.CarritoResponse;
 import com.inmedt.ecommerce.dto.UpdateCartItemRequest;
 import com.inmedt.ecommerce.model.*;
 import com.inmedt.ecommerce.repository.*;
+import com.inmedt.ecommerce.security.CurrentUserContext;
+import io.micrometer.core.annotation.Timed;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.security.core.Authentication;
-import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
 import java.util.stream.Collectors;
@@ -28,47 +30,60 @@ public class CarritoService {
     private CarritoItemRepository carritoItemRepository;
     
     @Autowired
-    private UserRepository userRepository;
+    private CurrentUserContext currentUserContext;
     
     @Autowired
     private UnidadDeVentaRepository unidadDeVentaRepository;
     
+    @Autowired
+    private MetricasNegocioService metricasNegocioService;
+    
     public CarritoResponse getCarrito() {
-        User user = getCurrentUser();
-        Carrito carrito = getOrCreateCarrito(user);
+        Carrito carrito = currentUserContext.getCarrito();
+        List<CarritoItem> items = carritoItemRepository.findWithProductoByCarritoId(carrito.getId());
         
-        return convertToCarritoResponse(carrito);
+        return convertToCarritoResponse(carrito, items);
     }
     
+    @Timed(value = MetricsConfig.CARRITO, extraTags = {"operacion", "agregar"})
     public CarritoResponse addToCart(AddToCartRequest request) {
-        User user = getCurrentUser();
-        Carrito carrito = getOrCreateCarrito(user);
+        Carrito carrito = currentUserContext.getCarrito();
+        List<CarritoItem> items = new ArrayList<>(carritoItemRepository.findWithProductoByCarritoId(carrito.getId()));
+        
+        // Verificar si el item ya existe en el carrito (ya cargado junto con su unidad de venta)
+        Optional<CarritoItem> existingItem = items.stream()
+                .filter(item -> item.getUnidadVenta().getId().equals(request.getUnidadVentaId()))
+                .findFirst();
         
-        UnidadDeVenta unidadVenta = unidadDeVentaRepository.findById(request.getUnidadVentaId())
-                .orElseThrow(() -> new RuntimeException("Unidad de venta no encontrada"));
+        UnidadDeVenta unidadVenta = existingItem.isPresent()
+                ? existingItem.get().getUnidadVenta()
+                : unidadDeVentaRepository.findWithProductoById(request.getUnidadVentaId())
+                        .orElseThrow(() -> new RuntimeException("Unidad de venta no encontrada"));
         
         if (!unidadVenta.getActiva()) {
             throw new RuntimeException("Producto no disponible");
         }
         
         if (unidadVenta.getStock() < request.getCantidad()) {
+            metricasNegocioService.registrarSinStock("carrito");
             throw new RuntimeException("Stock insuficiente");
         }
         
-        // Verificar si el item ya existe en el carrito
-        Optional<CarritoItem> existingItem = carritoItemRepository.findByCarritoAndUnidadVenta(carrito, unidadVenta);
-        
+        BigDecimal diferencia;
         if (existingItem.isPresent()) {
             // Actualizar cantidad existente
             CarritoItem item = existingItem.get();
             int nuevaCantidad = item.getCantidad() + request.getCantidad();
             
             if (unidadVenta.getStock() < nuevaCantidad) {
+                metricasNegocioService.registrarSinStock("carrito");
                 throw new RuntimeException("Stock insuficiente para la cantidad solicitada");
             }
             
+            BigDecimal subtotalAnterior = item.getSubtotal();
             item.setCantidad(nuevaCantidad);
             carritoItemRepository.save(item);
+            diferencia = item.getSubtotal().subtract(subtotalAnterior);
         } else {
             // Crear nuevo item
             CarritoItem newItem = new CarritoItem(
@@ -77,100 +92,86 @@ public class CarritoService {
                 carrito,
                 unidadVenta
             );
-            carritoItemRepository.save(newItem);
+            items.add(carritoItemRepository.save(newItem));
+            diferencia = newItem.getSubtotal();
         }
         
-        // Recalcular total del carrito
-        updateCarritoTotal(carrito);
-        
-        return convertToCarritoResponse(carrito);
+        return ajustarTotal(carrito, diferencia, items);
     }
     
+    @Timed(value = MetricsConfig.CARRITO, extraTags = {"operacion", "actualizar"})
     public CarritoResponse updateCartItem(Long itemId, UpdateCartItemRequest request) {
-        User user = getCurrentUser();
-        Carrito carrito = getOrCreateCarrito(user);
+        Carrito carrito = currentUserContext.getCarrito();
+        List<CarritoItem> items = carritoItemRepository.findWithProductoByCarritoId(carrito.getId());
         
-        CarritoItem item = carritoItemRepository.findById(itemId)
-                .orElseThrow(() -> new RuntimeException("Item del carrito no encontrado"));
-        
-        if (!item.getCarrito().getId().equals(carrito.getId())) {
-            throw new RuntimeException("No tienes permisos para modificar este item");
-        }
+        CarritoItem item = findItem(items, itemId, "No tienes permisos para modificar este item");
         
         if (item.getUnidadVenta().getStock() < request.getCantidad()) {
+            metricasNegocioService.registrarSinStock("carrito");
             throw new RuntimeException("Stock insuficiente");
         }
         
+        BigDecimal subtotalAnterior = item.getSubtotal();
         item.setCantidad(request.getCantidad());
         carritoItemRepository.save(item);
         
-        // Recalcular total del carrito
-        updateCarritoTotal(carrito);
-        
-        return convertToCarritoResponse(carrito);
+        return ajustarTotal(carrito, item.getSubtotal().subtract(subtotalAnterior), items);
     }
     
+    @Timed(value = MetricsConfig.CARRITO, extraTags = {"operacion", "eliminar"})
     public CarritoResponse removeFromCart(Long itemId) {
-        User user = getCurrentUser();
-        Carrito carrito = getOrCreateCarrito(user);
+        Carrito carrito = currentUserContext.getCarrito();
+        List<CarritoItem> items = new ArrayList<>(carritoItemRepository.findWithProductoByCarritoId(carrito.getId()));
         
-        CarritoItem item = carritoItemRepository.findById(itemId)
-                .orElseThrow(() -> new RuntimeException("Item del carrito no encontrado"));
-        
-        if (!item.getCarrito().getId().equals(carrito.getId())) {
-            throw new RuntimeException("No tienes permisos para eliminar este item");
-        }
+        CarritoItem item = findItem(items, itemId, "No tienes permisos para eliminar este item");
         
         carritoItemRepository.delete(item);
+        items.remove(item);
         
-        // Recalcular total del carrito
-        updateCarritoTotal(carrito);
-        
-        return convertToCarritoResponse(carrito);
+        return ajustarTotal(carrito, item.getSubtotal().negate(), items);
     }
     
+    @Timed(value = MetricsConfig.CARRITO, extraTags = {"operacion", "vaciar"})
     public CarritoResponse clearCart() {
-        User user = getCurrentUser();
-        Carrito carrito = getOrCreateCarrito(user);
+        Carrito carrito = currentUserContext.getCarrito();
         
-        carritoItemRepository.deleteByCarrito(carrito);
+        // Un solo DELETE en lugar de cargar y borrar cada item
+        carritoItemRepository.deleteAllByCarritoIdInBulk(carrito.getId());
         carrito.setTotal(BigDecimal.ZERO);
         carrito.setUpdatedAt(LocalDateTime.now());
         carritoRepository.save(carrito);
         
-        return convertToCarritoResponse(carrito);
-    }
-    
-    private User getCurrentUser() {
-        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
-        String email = authentication.getName();
-        return userRepository.findByEmail(email)
-                .orElseThrow(() -> new RuntimeException("Usuario no encontrado"));
+        return convertToCarritoResponse(carrito, new ArrayList<>());
     }
     
-    private Carrito getOrCreateCarrito(User user) {
-        Optional<Carrito> carritoOpt = carritoRepository.findByUser(user);
-        
-        if (carritoOpt.isPresent()) {
-            return carritoOpt.get();
-        } else {
-            Carrito carrito = new Carrito(user);
-            return carritoRepository.save(carrito);
-        }
+    /**
+     * Busca el item entre los ya cargados del carrito; si no está, distingue entre
+     * un item inexistente y uno de otro carrito
+     */
+    private CarritoItem findItem(List<CarritoItem> items, Long itemId, String mensajeSinPermisos) {
+        return items.stream()
+                .filter(item -> item.getId().equals(itemId))
+                .findFirst()
+                .orElseThrow(() -> carritoItemRepository.existsById(itemId)
+                        ? new RuntimeException(mensajeSinPermisos)
+                        : new RuntimeException("Item del carrito no encontrado"));
     }
     
-    private void updateCarritoTotal(Carrito carrito) {
-        List<CarritoItem> items = carritoItemRepository.findByCarrito(carrito);
-        BigDecimal total = items.stream()
-                .map(CarritoItem::getSubtotal)
-                .reduce(BigDecimal.ZERO, BigDecimal::add);
-        
-        carrito.setTotal(total);
-        carrito.setUpdatedAt(LocalDateTime.now());
-        carritoRepository.save(carrito);
+    /**
+     * Suma la diferencia del item modificado al total guardado, sin volver a sumar todos los items.
+     * La entidad no se modifica (Hibernate volvería a escribir el total): la respuesta lleva el total actualizado.
+     */
+    private CarritoResponse ajustarTotal(Carrito carrito, BigDecimal diferencia, List<CarritoItem> items) {
+        LocalDateTime ahora = LocalDateTime.now();
+        BigDecimal total = carritoRepository.sumarAlTotal(carrito.getId(), diferencia, ahora);
+        
+        CarritoResponse response = convertToCarritoResponse(carrito, items);
+        response.setTotal(total);
+        response.setUpdatedAt(ahora);
+        return response;
     }
     
-    private CarritoResponse convertToCarritoResponse(Carrito carrito) {
+    private CarritoResponse convertToCarritoResponse(Carrito carrito, List<CarritoItem> carritoItems) {
         CarritoResponse response = new CarritoResponse(
             carrito.getId(),
             carrito.getTotal(),
@@ -178,7 +179,7 @@ public class CarritoService {
             carrito.getUpdatedAt()
         );
         
-        List<CarritoResponse.CarritoItemResponse> items = carritoItemRepository.findByCarrito(carrito)
+        List<CarritoResponse.CarritoItemResponse> items = carritoItems
                 .stream()
                 .map(this::convertToCarritoItemResponse)
                 .collect(Collectors.toList());
@@ -0,0 +1,133 @@
+package com.inmedt.ecommerce.service;
+
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import com.inmedt.ecommerce.config.CacheConfig;
+import com.inmedt.ecommerce.dto.CursorPageResponse;
+import com.inmedt.ecommerce.dto.ProductoResponse;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.caffeine.CaffeineCache;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
+import org.springframework.data.domain.Page;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Invalidación y estadísticas de la caché del catálogo público.
+ * Dentro de una transacción las invalidaciones se difieren hasta el commit (ver CacheConfig).
+ */
+@Service
+public class CatalogoCacheService {
+
+    @Autowired
+    private CacheManager cacheManager;
+
+    @Autowired
+    private CaffeineCacheManager caffeineCacheManager;
+
+    /**
+     * Invalida un producto y todas las páginas cacheadas (cualquiera puede contenerlo)
+     */
+    public void evictProducto(Long productoId) {
+        if (productoId != null) {
+            evict(CacheConfig.PRODUCTOS, productoId);
+        }
+        clear(CacheConfig.PRODUCTOS_PAGINAS);
+    }
+
+    /**
+     * Invalida los productos cuyo stock cambió (checkout) y solo las páginas cacheadas que los contienen,
+     * no todas: cada pedido tiraría el listado completo. Las páginas se buscan después del commit, para no
+     * dejar pasar una que se cachee con el stock anterior mientras la transacción sigue abierta.
+     */
+    public void evictStock(Collection<Long> productoIds) {
+        for (Long productoId : productoIds) {
+            evict(CacheConfig.PRODUCTOS, productoId);
+        }
+        
+        Set<Long> ids = new HashSet<>(productoIds);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    evictPaginasCon(ids);
+                }
+            });
+        } else {
+            evictPaginasCon(ids);
+        }
+    }
+
+    private void evictPaginasCon(Set<Long> productoIds) {
+        Cache cache = caffeineCacheManager.getCache(CacheConfig.PRODUCTOS_PAGINAS);
+        if (!(cache instanceof CaffeineCache caffeineCache)) {
+            return;
+        }
+        // Page (offset) o CursorPageResponse (keyset), ambas de ProductoResponse
+        caffeineCache.getNativeCache().asMap().entrySet().removeIf(entrada -> {
+            List<?> contenido = entrada.getValue() instanceof Page<?> pagina ? pagina.getContent()
+                    : entrada.getValue() instanceof CursorPageResponse<?> pagina ? pagina.getContent()
+                    : List.of();
+            return contenido.stream().anyMatch(producto ->
+                    producto instanceof ProductoResponse respuesta && productoIds.contains(respuesta.getId()));
+        });
+    }
+
+    public void evictCategorias() {
+        clear(CacheConfig.CATEGORIAS);
+    }
+
+    /**
+     * Invalida todo el catálogo (cambios de categoría o importaciones masivas)
+     */
+    public void evictAll() {
+        clear(CacheConfig.PRODUCTOS);
+        clear(CacheConfig.PRODUCTOS_PAGINAS);
+        clear(CacheConfig.CATEGORIAS);
+    }
+
+    /**
+     * Contadores de aciertos, fallos y expulsiones por caché, para dimensionarla
+     */
+    public Map<String, Object> getEstadisticas() {
+        Map<String, Object> estadisticas = new LinkedHashMap<>();
+        for (String nombre : caffeineCacheManager.getCacheNames()) {
+            Cache cache = caffeineCacheManager.getCache(nombre);
+            if (!(cache instanceof CaffeineCache caffeineCache)) {
+                continue;
+            }
+            CacheStats stats = caffeineCache.getNativeCache().stats();
+            Map<String, Object> datos = new LinkedHashMap<>();
+            datos.put("entradas", caffeineCache.getNativeCache().estimatedSize());
+            datos.put("aciertos", stats.hitCount());
+            datos.put("fallos", stats.missCount());
+            datos.put("tasaAciertos", stats.hitRate());
+            datos.put("expulsiones", stats.evictionCount());
+            estadisticas.put(nombre, datos);
+        }
+        return estadisticas;
+    }
+
+    private void evict(String cacheName, Object key) {
+        Cache cache = cacheManager.getCache(cacheName);
+        if (cache != null) {
+            cache.evict(key);
+        }
+    }
+
+    private void clear(String cacheName) {
+        Cache cache = cacheManager.getCache(cacheName);
+        if (cache != null) {
+            cache.clear();
+        }
+    }
+}
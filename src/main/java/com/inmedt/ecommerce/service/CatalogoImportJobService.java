@@ -0,0 +1,111 @@
+package com.inmedt.ecommerce.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.inmedt.ecommerce.config.CatalogoImportExecutorConfig;
+import com.inmedt.ecommerce.dto.CatalogoImportJobResponse;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.stereotype.Service;
+
+import java.io.File;
+import java.time.Duration;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+/**
+ * Importaciones del catálogo como trabajos en segundo plano: la petición (o el arranque de la
+ * aplicación) solo encola el trabajo y el panel consulta su avance.
+ */
+@Service
+public class CatalogoImportJobService {
+
+    @Autowired
+    private CatalogoImportService catalogoImportService;
+
+    @Autowired
+    @Qualifier(CatalogoImportExecutorConfig.CATALOGO_IMPORT_EXECUTOR)
+    private TaskExecutor catalogoImportExecutor;
+
+    // Los trabajos terminados se conservan un día para poder revisar el resultado de la última importación
+    private final Cache<String, CatalogoImportJobResponse> jobs = Caffeine.newBuilder()
+            .maximumSize(100)
+            .expireAfterWrite(Duration.ofDays(1))
+            .build();
+
+    public CatalogoImportJobResponse encolar(String filePath, CatalogoImportJobResponse.Tipo tipo) {
+        // Falla antes de encolar si el archivo no existe
+        if (!new File(filePath).exists()) {
+            throw new RuntimeException("Archivo no encontrado: " + filePath);
+        }
+
+        CatalogoImportJobResponse job = new CatalogoImportJobResponse(UUID.randomUUID().toString(), tipo, filePath);
+        jobs.put(job.getId(), job);
+
+        try {
+            catalogoImportExecutor.execute(() -> procesar(job));
+        } catch (TaskRejectedException e) {
+            jobs.invalidate(job.getId());
+            throw new RuntimeException("Hay demasiadas importaciones en espera, intenta nuevamente cuando terminen");
+        }
+
+        System.out.println("📥 Importación del catálogo encolada: " + job.getId() + " (" + tipo + ", " + filePath + ")");
+        return job;
+    }
+
+    public CatalogoImportJobResponse getJob(String jobId) {
+        CatalogoImportJobResponse job = jobs.getIfPresent(jobId);
+        if (job == null) {
+            throw new RuntimeException("Trabajo de importación no encontrado");
+        }
+        return job;
+    }
+
+    /**
+     * Trabajos recientes, del más nuevo al más antiguo
+     */
+    public List<CatalogoImportJobResponse> getJobs() {
+        return jobs.asMap().values().stream()
+                .sorted(Comparator.comparing(CatalogoImportJobResponse::getCreatedAt).reversed())
+                .collect(Collectors.toList());
+    }
+
+    private void procesar(CatalogoImportJobResponse job) {
+        actualizar(job, CatalogoImportJobResponse.Estado.PROCESANDO);
+        try {
+            Map<String, Object> resultado = job.getTipo() == CatalogoImportJobResponse.Tipo.SINCRONIZACION
+                    ? catalogoImportService.sincronizarCatalogo(job.getArchivo(), job)
+                    : catalogoImportService.importarCatalogo(job.getArchivo(), job);
+            job.setResultado(resultado);
+
+            if (Boolean.TRUE.equals(resultado.get("success"))) {
+                actualizar(job, CatalogoImportJobResponse.Estado.COMPLETADO);
+                System.out.println("✅ Importación " + job.getId() + " completada: " +
+                        resultado.get("productosCreados") + " productos y " +
+                        resultado.get("unidadesCreadas") + " unidades creados, " +
+                        resultado.get("errores") + " errores en " + resultado.get("duracionMs") + " ms");
+            } else {
+                fallar(job, String.valueOf(resultado.get("error")));
+            }
+        } catch (Exception e) {
+            fallar(job, e.getMessage());
+        }
+    }
+
+    private void fallar(CatalogoImportJobResponse job, String error) {
+        job.setError(error);
+        actualizar(job, CatalogoImportJobResponse.Estado.ERROR);
+        System.err.println("❌ Error en la importación " + job.getId() + ": " + error);
+    }
+
+    private void actualizar(CatalogoImportJobResponse job, CatalogoImportJobResponse.Estado estado) {
+        job.setEstado(estado);
+        // Volver a publicarlo en la caché renueva su expiración
+        jobs.put(job.getId(), job);
+    }
+}
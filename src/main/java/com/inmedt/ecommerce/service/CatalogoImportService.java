@@ -1,134 +1,201 @@
 package com.inmedt.ecommerce.service;
 
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
-import com.inmedt.ecommerce.model.*;
-import com.inmedt.ecommerce.repository.*;
+import com.inmedt.ecommerce.config.CatalogoImportExecutorConfig;
+import com.inmedt.ecommerce.config.MetricsConfig;
+import com.inmedt.ecommerce.dto.CatalogoImportJobResponse;
+import com.inmedt.ecommerce.repository.CatalogoImportBatchRepository;
+import com.inmedt.ecommerce.repository.CatalogoImportBatchRepository.UnidadCatalogo;
+import io.micrometer.core.annotation.Timed;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.io.File;
+import java.io.IOException;
 import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
-
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static com.inmedt.ecommerce.repository.CatalogoImportBatchRepository.clave;
+
+/**
+ * Importación del catálogo desde JSON.
+ * El archivo se lee en streaming (un producto en memoria a la vez), las claves naturales existentes
+ * se cargan una sola vez en mapas y las filas nuevas se escriben en lotes de productos, cada uno en
+ * su propia transacción y con INSERT multi-fila: el número de sentencias no depende del tamaño
+ * del catálogo y un error solo descarta el lote en el que ocurrió.
+ * En modo sincronización cada unidad se compara por el hash de su contenido en el archivo:
+ * solo se escriben las que son nuevas, cambiaron o desaparecieron del archivo.
+ * Los lotes se escriben en paralelo, particionados por categoría: los de una misma categoría van en
+ * orden y categorías distintas avanzan a la vez, con tantos workers como permite el pool de conexiones.
+ */
 @Service
 public class CatalogoImportService {
 
+    // Máximo de parámetros por sentencia que acepta el driver de PostgreSQL
+    private static final int MAX_PARAMETROS = 32767;
+
     @Autowired
-    private CategoriaRepository categoriaRepository;
+    private CatalogoImportBatchRepository catalogoImportBatchRepository;
 
     @Autowired
-    private ProductoRepository productoRepository;
+    private TransactionTemplate transactionTemplate;
 
     @Autowired
-    private VarianteProductoRepository varianteProductoRepository;
+    private CatalogoCacheService catalogoCacheService;
 
     @Autowired
-    private UnidadDeVentaRepository unidadDeVentaRepository;
+    @Qualifier(CatalogoImportExecutorConfig.CATALOGO_IMPORT_WORKER_EXECUTOR)
+    private ThreadPoolTaskExecutor catalogoImportWorkerExecutor;
+
+    // Productos por transacción
+    @Value("${app.catalogo.import.chunk-size:500}")
+    private int chunkSize;
+
+    // Filas por INSERT multi-fila
+    @Value("${app.catalogo.import.batch-size:1000}")
+    private int batchSize;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
 
+    /**
+     * Crea lo que falta del catálogo; lo que ya existe no se modifica
+     */
+    @Timed(value = MetricsConfig.CATALOGO_IMPORT, extraTags = {"tipo", "importacion"})
     public Map<String, Object> importarCatalogo(String jsonFilePath) {
+        return procesarArchivo(jsonFilePath, false, null, getMaxWorkers());
+    }
+
+    /**
+     * Igual que la anterior, informando el avance en el trabajo de importación
+     */
+    @Timed(value = MetricsConfig.CATALOGO_IMPORT, extraTags = {"tipo", "importacion"})
+    public Map<String, Object> importarCatalogo(String jsonFilePath, CatalogoImportJobResponse job) {
+        return procesarArchivo(jsonFilePath, false, job, getMaxWorkers());
+    }
+
+    /**
+     * Importación con un número fijo de workers (acotado al máximo configurado); la usa el benchmark
+     */
+    @Timed(value = MetricsConfig.CATALOGO_IMPORT, extraTags = {"tipo", "importacion"})
+    public Map<String, Object> importarCatalogo(String jsonFilePath, int workers) {
+        return procesarArchivo(jsonFilePath, false, null, Math.max(1, Math.min(workers, getMaxWorkers())));
+    }
+
+    /**
+     * Lotes que se escriben a la vez como máximo (tamaño del pool de workers)
+     */
+    public int getMaxWorkers() {
+        return catalogoImportWorkerExecutor.getMaxPoolSize();
+    }
+
+    /**
+     * Sincroniza con el archivo: crea las unidades nuevas, actualiza las que cambiaron (precio, stock,
+     * descripción y marca del producto) y desactiva las que ya no están. Las demás no se tocan.
+     */
+    @Timed(value = MetricsConfig.CATALOGO_IMPORT, extraTags = {"tipo", "sincronizacion"})
+    public Map<String, Object> sincronizarCatalogo(String jsonFilePath) {
+        return procesarArchivo(jsonFilePath, true, null, getMaxWorkers());
+    }
+
+    @Timed(value = MetricsConfig.CATALOGO_IMPORT, extraTags = {"tipo", "sincronizacion"})
+    public Map<String, Object> sincronizarCatalogo(String jsonFilePath, CatalogoImportJobResponse job) {
+        return procesarArchivo(jsonFilePath, true, job, getMaxWorkers());
+    }
+
+    private Map<String, Object> procesarArchivo(String jsonFilePath, boolean sincronizar,
+                                                CatalogoImportJobResponse job, int workers) {
         Map<String, Object> resultado = new HashMap<>();
-        int categoriasCreadas = 0;
-        int productosCreados = 0;
-        int variantesCreadas = 0;
-        int unidadesCreadas = 0;
-        int errores = 0;
+        long inicio = System.nanoTime();
 
         try {
-            ObjectMapper objectMapper = new ObjectMapper();
-            
             // Buscar el archivo en la raíz del proyecto
             File jsonFile = new File(jsonFilePath);
             if (!jsonFile.exists()) {
                 throw new RuntimeException("❌ Archivo no encontrado: " + jsonFilePath);
             }
-            
+
             System.out.println("📄 Leyendo archivo: " + jsonFile.getAbsolutePath());
-            
-            JsonNode rootNode = objectMapper.readTree(jsonFile);
-            JsonNode catalogoNode = rootNode.get("catalogo");
-            JsonNode categoriasArray = catalogoNode.get("categorias");
 
-            for (JsonNode categoriaNode : categoriasArray) {
-                try {
-                    String nombreCategoria = categoriaNode.get("nombre").asText();
-                    
-                    // Crear o buscar categoría
-                    Categoria categoria = categoriaRepository.findByNombre(nombreCategoria)
-                            .orElse(null);
-                    
-                    if (categoria == null) {
-                        categoria = new Categoria();
-                        categoria.setNombre(nombreCategoria);
-                        categoria.setDescripcion("Categoría de " + nombreCategoria);
-                        categoria.setActiva(true);
-                        categoria = categoriaRepository.save(categoria);
-                        categoriasCreadas++;
-                        System.out.println("✅ Categoría creada: " + nombreCategoria);
-                    }
+            Importacion importacion = cargarClavesExistentes();
+            importacion.sincronizar = sincronizar;
+            importacion.job = job;
+            importacion.tamanoArchivo = jsonFile.length();
+            importacion.enVuelo = new Semaphore(workers);
+
+            try (JsonParser parser = objectMapper.getFactory().createParser(jsonFile)) {
+                importacion.parser = parser;
+                if (parser.nextToken() != JsonToken.START_OBJECT
+                        || !buscarCampo(parser, "catalogo") || parser.nextToken() != JsonToken.START_OBJECT
+                        || !buscarCampo(parser, "categorias") || parser.nextToken() != JsonToken.START_ARRAY) {
+                    throw new RuntimeException("❌ Formato inválido: se esperaba catalogo.categorias");
+                }
 
-                    // Procesar productos de la categoría
-                    JsonNode productosArray = categoriaNode.get("productos");
-                    if (productosArray != null && productosArray.isArray()) {
-                        for (JsonNode productoNode : productosArray) {
-                            try {
-                                Producto producto = procesarProducto(productoNode, categoria);
-                                if (producto != null) {
-                                    productosCreados++;
-                                    
-                                    // Procesar variantes
-                                    JsonNode variantesArray = productoNode.get("variantes");
-                                    if (variantesArray != null && variantesArray.isArray()) {
-                                        for (JsonNode varianteNode : variantesArray) {
-                                            try {
-                                                VarianteProducto variante = procesarVariante(varianteNode, producto);
-                                                if (variante != null) {
-                                                    variantesCreadas++;
-                                                    
-                                                    // Procesar unidades de venta
-                                                    JsonNode unidadesArray = varianteNode.get("unidadesDeVenta");
-                                                    if (unidadesArray != null && unidadesArray.isArray()) {
-                                                        for (JsonNode unidadNode : unidadesArray) {
-                                                            try {
-                                                                UnidadDeVenta unidad = procesarUnidadVenta(unidadNode, variante);
-                                                                if (unidad != null) {
-                                                                    unidadesCreadas++;
-                                                                }
-                                                            } catch (Exception e) {
-                                                                errores++;
-                                                                System.err.println("❌ Error en unidad: " + e.getMessage());
-                                                            }
-                                                        }
-                                                    }
-                                                }
-                                            } catch (Exception e) {
-                                                errores++;
-                                                System.err.println("❌ Error en variante: " + e.getMessage());
-                                            }
-                                        }
-                                    }
-                                }
-                            } catch (Exception e) {
-                                errores++;
-                                System.err.println("❌ Error en producto: " + e.getMessage());
-                            }
-                        }
+                JsonToken token;
+                while ((token = parser.nextToken()) != null && token != JsonToken.END_ARRAY) {
+                    if (token == JsonToken.START_OBJECT) {
+                        procesarCategoria(parser, importacion);
+                    } else {
+                        parser.skipChildren();
+                        importacion.sumarErrores(null, 1);
                     }
-                } catch (Exception e) {
-                    errores++;
-                    System.err.println("❌ Error en categoría: " + e.getMessage());
                 }
+            } finally {
+                // Aunque la lectura falle, se espera a los lotes ya enviados antes de responder
+                CompletableFuture.allOf(importacion.particiones.values().toArray(new CompletableFuture[0])).join();
+            }
+
+            if (sincronizar) {
+                desactivarAusentes(importacion);
             }
+            catalogoCacheService.evictAll();
+
+            long duracionMs = Math.max(1, (System.nanoTime() - inicio) / 1_000_000);
+            long unidadesPorSegundo = importacion.unidadesProcesadas * 1000 / duracionMs;
+            System.out.println("⏱️ Catálogo importado en " + duracionMs + " ms con " + workers + " workers (" +
+                    importacion.productosProcesados + " productos, " + unidadesPorSegundo + " unidades/s)");
 
             resultado.put("success", true);
-            resultado.put("categoriasCreadas", categoriasCreadas);
-            resultado.put("productosCreados", productosCreados);
-            resultado.put("variantesCreadas", variantesCreadas);
-            resultado.put("unidadesCreadas", unidadesCreadas);
-            resultado.put("errores", errores);
-            resultado.put("mensaje", "Importación completada con " + errores + " errores");
+            resultado.put("categoriasCreadas", importacion.categoriasCreadas);
+            resultado.put("productosCreados", importacion.productosCreados);
+            resultado.put("variantesCreadas", importacion.variantesCreadas);
+            resultado.put("unidadesCreadas", importacion.unidadesCreadas);
+            resultado.put("productosProcesados", importacion.productosProcesados);
+            resultado.put("unidadesProcesadas", importacion.unidadesProcesadas);
+            if (sincronizar) {
+                resultado.put("unidadesActualizadas", importacion.unidadesActualizadas);
+                resultado.put("unidadesSinCambios", importacion.unidadesSinCambios);
+                resultado.put("unidadesDesactivadas", importacion.unidadesDesactivadas);
+                resultado.put("productosActualizados", importacion.productosActualizados);
+            }
+            resultado.put("errores", importacion.errores);
+            resultado.put("erroresPorCategoria", importacion.erroresPorCategoria);
+            resultado.put("workers", workers);
+            resultado.put("duracionMs", duracionMs);
+            resultado.put("unidadesPorSegundo", unidadesPorSegundo);
+            resultado.put("mensaje", (sincronizar ? "Sincronización" : "Importación") +
+                    " completada con " + importacion.errores + " errores");
 
         } catch (Exception e) {
             resultado.put("success", false);
@@ -139,142 +206,535 @@ public class CatalogoImportService {
         return resultado;
     }
 
-    private Producto procesarProducto(JsonNode productoNode, Categoria categoria) {
-        try {
-            String nombre = productoNode.get("nombre").asText();
-            // Truncar nombre si es muy largo
-            if (nombre.length() > 200) {
-                nombre = nombre.substring(0, 197) + "...";
+    /**
+     * Una consulta por tabla en lugar de una por cada categoría, producto, variante y unidad del archivo
+     */
+    private Importacion cargarClavesExistentes() {
+        Importacion importacion = new Importacion();
+        // Los workers leen y amplían los mapas a la vez: se copian a mapas concurrentes
+        importacion.categorias = catalogoImportBatchRepository.cargarCategorias();
+        importacion.productos = new ConcurrentHashMap<>(catalogoImportBatchRepository.cargarProductos());
+        importacion.variantes = new ConcurrentHashMap<>(catalogoImportBatchRepository.cargarVariantes());
+        importacion.unidades = new ConcurrentHashMap<>(catalogoImportBatchRepository.cargarUnidades());
+        importacion.skus.addAll(catalogoImportBatchRepository.cargarSkus());
+        for (UnidadCatalogo unidad : importacion.unidades.values()) {
+            // Candidatas a desactivar: las que vienen del catálogo y siguen activas
+            if (unidad.getHashCatalogo() != null && unidad.isActiva()) {
+                importacion.ausentes.add(unidad.getId());
             }
-            
-            String descripcion = productoNode.has("descripcion") && !productoNode.get("descripcion").isNull() 
-                    ? productoNode.get("descripcion").asText() 
-                    : "";
-            // Truncar descripción si es muy larga
-            if (descripcion.length() > 1000) {
-                descripcion = descripcion.substring(0, 997) + "...";
-            }
-            
-            String marca = productoNode.has("marca") && !productoNode.get("marca").isNull() 
-                    ? productoNode.get("marca").asText() 
-                    : "Sin marca";
-            // Truncar marca si es muy larga
-            if (marca.length() > 100) {
-                marca = marca.substring(0, 97) + "...";
+        }
+        System.out.println("🔑 Claves existentes: " + importacion.categorias.size() + " categorías, " +
+                importacion.productos.size() + " productos, " + importacion.unidades.size() + " unidades");
+        return importacion;
+    }
+
+    /**
+     * Avanza dentro del objeto actual hasta el campo indicado, saltando los demás sin materializarlos
+     */
+    private boolean buscarCampo(JsonParser parser, String nombre) throws IOException {
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            if (nombre.equals(parser.getCurrentName())) {
+                return true;
             }
+            parser.nextToken();
+            parser.skipChildren();
+        }
+        return false;
+    }
 
-            // Verificar si el producto ya existe
-            if (productoRepository.existsByNombreAndCategoriaId(nombre, categoria.getId())) {
-                System.out.println("⚠️  Producto ya existe: " + nombre);
-                return productoRepository.findByNombreAndCategoriaId(nombre, categoria.getId()).orElse(null);
+    /**
+     * Lee una categoría con el parser posicionado en su START_OBJECT.
+     * Cada producto se materializa por separado y se agrega al lote en curso.
+     */
+    private void procesarCategoria(JsonParser parser, Importacion importacion) throws IOException {
+        importacion.categoriaActual = null;
+        Long categoriaId = null;
+        boolean fallida = false;
+        // Productos leídos antes del nombre de la categoría (si el JSON no trae "nombre" primero)
+        List<JsonNode> sinCategoria = new ArrayList<>();
+
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String campo = parser.getCurrentName();
+            JsonToken valor = parser.nextToken();
+
+            if ("nombre".equals(campo) && valor == JsonToken.VALUE_STRING) {
+                try {
+                    importacion.categoriaActual = parser.getText();
+                    categoriaId = resolverCategoria(importacion.categoriaActual, importacion);
+                    for (JsonNode productoNode : sinCategoria) {
+                        agregarProducto(productoNode, categoriaId, importacion);
+                    }
+                } catch (Exception e) {
+                    fallida = true;
+                    importacion.sumarErrores(importacion.categoriaActual, 1);
+                    System.err.println("❌ Error en categoría: " + e.getMessage());
+                }
+                sinCategoria.clear();
+            } else if ("productos".equals(campo) && valor == JsonToken.START_ARRAY) {
+                JsonToken token;
+                while ((token = parser.nextToken()) != null && token != JsonToken.END_ARRAY) {
+                    if (token != JsonToken.START_OBJECT) {
+                        parser.skipChildren();
+                        importacion.sumarErrores(importacion.categoriaActual, 1);
+                        continue;
+                    }
+                    JsonNode productoNode = parser.readValueAsTree();
+                    if (categoriaId != null) {
+                        agregarProducto(productoNode, categoriaId, importacion);
+                    } else if (!fallida) {
+                        sinCategoria.add(productoNode);
+                    }
+                }
+            } else {
+                parser.skipChildren();
             }
+        }
+
+        if (categoriaId == null && !fallida) {
+            importacion.sumarErrores(null, 1);
+            System.err.println("❌ Error en categoría: falta el nombre (" + sinCategoria.size() + " productos omitidos)");
+        }
 
-            Producto producto = new Producto();
-            producto.setNombre(nombre);
-            producto.setDescripcion(descripcion);
-            producto.setMarca(marca);
-            producto.setCategoria(categoria);
-            producto.setActivo(true);
+        // Último lote de la categoría
+        enviarLote(importacion);
+        importacion.categoriaActual = null;
+    }
+
+    private Long resolverCategoria(String nombre, Importacion importacion) {
+        Long id = importacion.categorias.get(nombre);
+        if (id != null) {
+            return id;
+        }
 
-            producto = productoRepository.save(producto);
-            System.out.println("  ✅ Producto creado: " + nombre);
-            return producto;
+        id = catalogoImportBatchRepository.insertarCategoria(nombre, "Categoría de " + nombre);
+        importacion.categorias.put(nombre, id);
+        importacion.categoriasCreadas++;
+        System.out.println("✅ Categoría creada: " + nombre);
+        return id;
+    }
 
+    /**
+     * Valida el producto y lo suma al lote; al completarse el lote se escribe
+     */
+    private void agregarProducto(JsonNode productoNode, Long categoriaId, Importacion importacion) {
+        try {
+            String nombre = truncar(productoNode.get("nombre").asText(), 200);
+            String descripcion = truncar(texto(productoNode, "descripcion", ""), 1000);
+            String marca = truncar(texto(productoNode, "marca", "Sin marca"), 100);
+
+            String claveProducto = clave(categoriaId, nombre);
+            ProductoPendiente producto = importacion.lote.get(claveProducto);
+            if (producto == null) {
+                producto = new ProductoPendiente(categoriaId, nombre, descripcion, marca);
+                importacion.lote.put(claveProducto, producto);
+            }
+
+            JsonNode variantesArray = productoNode.get("variantes");
+            if (variantesArray != null && variantesArray.isArray()) {
+                for (JsonNode varianteNode : variantesArray) {
+                    agregarVariante(varianteNode, producto, importacion);
+                }
+            }
         } catch (Exception e) {
-            System.err.println("❌ Error al procesar producto: " + e.getMessage());
-            return null;
+            importacion.sumarErrores(importacion.categoriaActual, 1);
+            System.err.println("❌ Error en producto: " + e.getMessage());
+        }
+
+        if (importacion.lote.size() >= chunkSize) {
+            enviarLote(importacion);
         }
     }
 
-    private VarianteProducto procesarVariante(JsonNode varianteNode, Producto producto) {
+    private void agregarVariante(JsonNode varianteNode, ProductoPendiente producto, Importacion importacion) {
         try {
             String nombreVariante = varianteNode.get("nombre").asText();
-
-            // Verificar si la variante ya existe
-            if (varianteProductoRepository.existsByNombreAndProductoId(nombreVariante, producto.getId())) {
-                System.out.println("    ⚠️  Variante ya existe: " + nombreVariante);
-                return varianteProductoRepository.findByNombreAndProductoId(nombreVariante, producto.getId()).orElse(null);
+            List<UnidadPendiente> unidades = producto.variantes.computeIfAbsent(nombreVariante, n -> new ArrayList<>());
+
+            JsonNode unidadesArray = varianteNode.get("unidadesDeVenta");
+            if (unidadesArray != null && unidadesArray.isArray()) {
+                for (JsonNode unidadNode : unidadesArray) {
+                    try {
+                        String descripcion = unidadNode.get("descripcion").asText();
+                        BigDecimal precio = BigDecimal.valueOf(unidadNode.get("precio").asDouble())
+                                .setScale(2, RoundingMode.HALF_UP);
+                        // El stock es opcional: sin él se conserva el actual (o 100 en las unidades nuevas)
+                        Integer stock = unidadNode.hasNonNull("stock") ? unidadNode.get("stock").asInt() : null;
+                        unidades.add(new UnidadPendiente(descripcion, precio, stock));
+                    } catch (Exception e) {
+                        importacion.sumarErrores(importacion.categoriaActual, 1);
+                        System.err.println("❌ Error en unidad: " + e.getMessage());
+                    }
+                }
             }
+        } catch (Exception e) {
+            importacion.sumarErrores(importacion.categoriaActual, 1);
+            System.err.println("❌ Error en variante: " + e.getMessage());
+        }
+    }
 
-            VarianteProducto variante = new VarianteProducto();
-            variante.setNombre(nombreVariante);
-            variante.setDescripcion("Variante " + nombreVariante);
-            variante.setProducto(producto);
-            variante.setActiva(true);
+    /**
+     * Envía el lote en curso a los workers. Se encadena detrás del lote anterior de la misma categoría
+     * (una categoría nunca tiene dos lotes escribiéndose a la vez) y, si ya hay tantos lotes en vuelo
+     * como workers, la lectura del archivo espera: la memoria usada no depende del tamaño del catálogo.
+     */
+    private void enviarLote(Importacion importacion) {
+        if (importacion.lote.isEmpty()) {
+            return;
+        }
 
-            variante = varianteProductoRepository.save(variante);
-            System.out.println("    ✅ Variante creada: " + nombreVariante);
-            return variante;
+        List<ProductoPendiente> productos = new ArrayList<>(importacion.lote.values());
+        importacion.lote.clear();
+        Long categoriaId = productos.get(0).categoriaId;
+        String categoria = importacion.categoriaActual;
+        long bytesLeidos = importacion.parser != null && !importacion.parser.isClosed()
+                ? importacion.parser.currentLocation().getByteOffset()
+                : importacion.tamanoArchivo;
 
-        } catch (Exception e) {
-            System.err.println("❌ Error al procesar variante: " + e.getMessage());
-            return null;
+        importacion.enVuelo.acquireUninterruptibly();
+        CompletableFuture<Void> anterior = importacion.particiones.getOrDefault(categoriaId, CompletableFuture.completedFuture(null));
+        try {
+            importacion.particiones.put(categoriaId, anterior.thenRunAsync(() -> {
+                try {
+                    escribirLote(importacion, productos, categoria, bytesLeidos);
+                } finally {
+                    importacion.enVuelo.release();
+                }
+            }, catalogoImportWorkerExecutor));
+        } catch (RuntimeException e) {
+            importacion.enVuelo.release();
+            throw e;
         }
     }
 
-    private UnidadDeVenta procesarUnidadVenta(JsonNode unidadNode, VarianteProducto variante) {
+    /**
+     * Escribe un lote en su propia transacción. Los mapas de claves solo se actualizan si la
+     * transacción confirma; si falla, se descarta ese lote y el resto de la importación sigue.
+     */
+    private void escribirLote(Importacion importacion, List<ProductoPendiente> productos, String categoria, long bytesLeidos) {
+        int unidadesLeidas = 0;
+        for (ProductoPendiente producto : productos) {
+            for (List<UnidadPendiente> unidades : producto.variantes.values()) {
+                unidadesLeidas += unidades.size();
+            }
+        }
+
         try {
-            String descripcion = unidadNode.get("descripcion").asText();
-            BigDecimal precio = BigDecimal.valueOf(unidadNode.get("precio").asDouble());
+            ResultadoLote lote = transactionTemplate.execute(status -> insertarLote(productos, importacion));
+            importacion.aplicar(lote);
+        } catch (Exception e) {
+            importacion.sumarErrores(categoria, productos.size());
+            System.err.println("❌ Error en lote de " + productos.size() + " productos (" + categoria + "): " + e.getMessage());
+        }
 
-            // Generar SKU único
-            String sku = generarSKUUnico(variante, descripcion);
+        importacion.registrarProcesados(productos.size(), unidadesLeidas, bytesLeidos);
+    }
 
-            // Verificar si ya existe una unidad con este SKU
-            if (unidadDeVentaRepository.findBySku(sku).isPresent()) {
-                System.out.println("      ⚠️  Unidad ya existe: " + descripcion + " (SKU: " + sku + ")");
-                return unidadDeVentaRepository.findBySku(sku).get();
+    /**
+     * Escrituras del lote: un INSERT (o UPDATE, en sincronización) multi-fila por tabla y por cada batchSize filas
+     */
+    private ResultadoLote insertarLote(List<ProductoPendiente> productos, Importacion importacion) {
+        ResultadoLote lote = new ResultadoLote();
+
+        // 1. Productos que no existen
+        List<Object[]> filas = new ArrayList<>();
+        for (ProductoPendiente producto : productos) {
+            if (!importacion.productos.containsKey(clave(producto.categoriaId, producto.nombre))) {
+                filas.add(new Object[] {producto.nombre, producto.descripcion, producto.marca, producto.categoriaId});
             }
+        }
+        for (List<Object[]> tanda : tandas(filas, 4)) {
+            lote.productos.putAll(catalogoImportBatchRepository.insertarProductos(tanda));
+        }
 
-            UnidadDeVenta unidad = new UnidadDeVenta();
-            unidad.setSku(sku);
-            unidad.setDescripcion(descripcion);
-            unidad.setPrecio(precio);
-            unidad.setStock(100); // Stock inicial por defecto
-            unidad.setVariante(variante);
-            unidad.setActiva(true);
+        // 2. Variantes que no existen (ya con el id de su producto)
+        filas = new ArrayList<>();
+        for (ProductoPendiente producto : productos) {
+            Long productoId = lote.idProducto(producto, importacion);
+            for (String nombreVariante : producto.variantes.keySet()) {
+                if (!importacion.variantes.containsKey(clave(productoId, nombreVariante))) {
+                    filas.add(new Object[] {nombreVariante, "Variante " + nombreVariante, productoId});
+                }
+            }
+        }
+        for (List<Object[]> tanda : tandas(filas, 3)) {
+            lote.variantes.putAll(catalogoImportBatchRepository.insertarVariantes(tanda));
+        }
 
-            unidad = unidadDeVentaRepository.save(unidad);
-            System.out.println("      ✅ Unidad creada: " + descripcion + " - $" + precio);
-            return unidad;
+        // 3. Unidades: la clave natural es (variante, descripción). Las nuevas se insertan; en
+        //    sincronización las existentes solo se actualizan si cambió el hash de su contenido
+        filas = new ArrayList<>();
+        List<Object[]> cambios = new ArrayList<>();
+        Map<Long, Object[]> productosCambiados = new LinkedHashMap<>();
+        for (ProductoPendiente producto : productos) {
+            Long productoId = lote.idProducto(producto, importacion);
+            for (Map.Entry<String, List<UnidadPendiente>> variante : producto.variantes.entrySet()) {
+                Long varianteId = lote.idVariante(productoId, variante.getKey(), importacion);
+                for (UnidadPendiente unidad : variante.getValue()) {
+                    String claveUnidad = clave(varianteId, unidad.descripcion);
+                    if (lote.unidades.containsKey(claveUnidad)) {
+                        continue;
+                    }
+                    String hash = hashContenido(producto, variante.getKey(), unidad);
+                    UnidadCatalogo existente = importacion.unidades.get(claveUnidad);
+
+                    if (existente == null) {
+                        String sku = generarSKUUnico(producto.nombre, variante.getKey(), importacion);
+                        lote.unidades.put(claveUnidad, new UnidadCatalogo(null, hash, true));
+                        Integer stock = unidad.stock != null ? unidad.stock : 100; // Stock inicial por defecto
+                        filas.add(new Object[] {sku, unidad.descripcion, unidad.precio, stock, varianteId, hash});
+                    } else if (importacion.sincronizar && existente.getId() != null) {
+                        lote.vistas.add(existente.getId());
+                        if (hash.equals(existente.getHashCatalogo())) {
+                            lote.unidades.put(claveUnidad, existente);
+                            lote.unidadesSinCambios++;
+                        } else {
+                            lote.unidades.put(claveUnidad, new UnidadCatalogo(existente.getId(), hash, true));
+                            cambios.add(new Object[] {existente.getId(), unidad.precio, unidad.stock, hash});
+                            productosCambiados.putIfAbsent(productoId,
+                                    new Object[] {productoId, producto.descripcion, producto.marca});
+                        }
+                    }
+                }
+            }
+        }
+        for (List<Object[]> tanda : tandas(filas, 6)) {
+            lote.unidadesCreadas += catalogoImportBatchRepository.insertarUnidades(tanda);
+        }
+        for (List<Object[]> tanda : tandas(cambios, 4)) {
+            lote.unidadesActualizadas += catalogoImportBatchRepository.actualizarUnidades(tanda);
+        }
+        for (List<Object[]> tanda : tandas(new ArrayList<>(productosCambiados.values()), 3)) {
+            lote.productosActualizados += catalogoImportBatchRepository.actualizarProductos(tanda);
+        }
 
-        } catch (Exception e) {
-            System.err.println("❌ Error al procesar unidad de venta: " + e.getMessage());
-            return null;
+        return lote;
+    }
+
+    /**
+     * Desactiva las unidades del catálogo que no aparecieron en el archivo. Si hubo errores se omite:
+     * un producto que no se pudo leer no debe dejar de venderse.
+     */
+    private void desactivarAusentes(Importacion importacion) {
+        if (importacion.ausentes.isEmpty()) {
+            return;
+        }
+        if (importacion.errores > 0) {
+            System.err.println("⚠️ Hubo errores: no se desactivan las " + importacion.ausentes.size() +
+                    " unidades ausentes del archivo");
+            return;
+        }
+
+        List<Long> ids = new ArrayList<>(importacion.ausentes);
+        int tamano = Math.max(1, Math.min(batchSize, MAX_PARAMETROS));
+        Integer desactivadas = transactionTemplate.execute(status -> {
+            int total = 0;
+            for (int i = 0; i < ids.size(); i += tamano) {
+                total += catalogoImportBatchRepository.desactivarUnidades(ids.subList(i, Math.min(i + tamano, ids.size())));
+            }
+            return total;
+        });
+        importacion.unidadesDesactivadas = desactivadas != null ? desactivadas : 0;
+        System.out.println("🚫 Unidades desactivadas (ya no están en el archivo): " + importacion.unidadesDesactivadas);
+    }
+
+    /**
+     * SHA-256 de los datos del archivo que definen una unidad: si no cambia, la fila no se toca
+     */
+    private String hashContenido(ProductoPendiente producto, String varianteNombre, UnidadPendiente unidad) {
+        String contenido = String.join("\u001F",
+                producto.nombre, producto.descripcion, producto.marca, varianteNombre,
+                unidad.descripcion, unidad.precio.toPlainString(),
+                unidad.stock != null ? unidad.stock.toString() : "");
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(contenido.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new RuntimeException("SHA-256 no disponible", e);
         }
     }
 
-    private String generarSKU(VarianteProducto variante, String descripcion) {
-        // Generar un SKU basado en el producto, variante y descripción
-        String productoNombre = variante.getProducto().getNombre()
-                .replaceAll("[^A-Za-z0-9]", "")
-                .toUpperCase();
-        String varianteNombre = variante.getNombre()
-                .replaceAll("[^A-Za-z0-9]", "")
-                .toUpperCase();
-        
+    /**
+     * Parte las filas en grupos de batchSize, sin superar el máximo de parámetros por sentencia
+     */
+    private List<List<Object[]>> tandas(List<Object[]> filas, int columnas) {
+        int tamano = Math.max(1, Math.min(batchSize, MAX_PARAMETROS / columnas));
+        List<List<Object[]>> tandas = new ArrayList<>();
+        for (int i = 0; i < filas.size(); i += tamano) {
+            tandas.add(filas.subList(i, Math.min(i + tamano, filas.size())));
+        }
+        return tandas;
+    }
+
+    private String generarSKU(String productoNombre, String varianteNombre) {
+        // Generar un SKU basado en el producto y la variante
+        String producto = productoNombre.replaceAll("[^A-Za-z0-9]", "").toUpperCase();
+        String variante = varianteNombre.replaceAll("[^A-Za-z0-9]", "").toUpperCase();
+
         // Tomar primeras 3 letras del producto, primeras 3 de la variante
-        String skuBase = (productoNombre.length() > 3 ? productoNombre.substring(0, 3) : productoNombre) + 
-                         "-" + 
-                         (varianteNombre.length() > 3 ? varianteNombre.substring(0, 3) : varianteNombre);
-        
+        String skuBase = (producto.length() > 3 ? producto.substring(0, 3) : producto) +
+                         "-" +
+                         (variante.length() > 3 ? variante.substring(0, 3) : variante);
+
         // Agregar un timestamp corto para unicidad
         String timestamp = String.valueOf(System.currentTimeMillis() % 100000);
-        
+
         return skuBase + "-" + timestamp;
     }
 
-    private String generarSKUUnico(VarianteProducto variante, String descripcion) {
-        String skuBase = generarSKU(variante, descripcion);
-        String sku = skuBase;
-        int contador = 1;
-        
-        // Si el SKU ya existe, agregar un contador
-        while (unidadDeVentaRepository.findBySku(sku).isPresent()) {
-            sku = skuBase + "-" + contador;
-            contador++;
-        }
-        
+    /**
+     * El SKU se reserva en el conjunto compartido al generarlo: dos workers nunca obtienen el mismo
+     */
+    private String generarSKUUnico(String productoNombre, String varianteNombre, Importacion importacion) {
+        String skuBase = generarSKU(productoNombre, varianteNombre);
+        if (importacion.skus.add(skuBase)) {
+            return skuBase;
+        }
+
+        // Si el SKU ya existe (en la base o en esta importación), agregar un contador. Cada base recuerda
+        // su último contador: miles de unidades con la misma base no vuelven a probar desde 1
+        AtomicInteger contador = importacion.contadoresSku.computeIfAbsent(skuBase, base -> new AtomicInteger());
+        String sku;
+        do {
+            sku = skuBase + "-" + contador.incrementAndGet();
+        } while (!importacion.skus.add(sku));
+
         return sku;
     }
+
+    private String texto(JsonNode node, String campo, String porDefecto) {
+        return node.has(campo) && !node.get(campo).isNull() ? node.get(campo).asText() : porDefecto;
+    }
+
+    private String truncar(String valor, int maximo) {
+        return valor.length() > maximo ? valor.substring(0, maximo - 3) + "..." : valor;
+    }
+
+    /**
+     * Estado de una importación: claves existentes, lote en curso y contadores.
+     * La lectura del archivo corre en un hilo y los lotes en los workers: los mapas son concurrentes
+     * y los contadores se actualizan con el monitor de la importación.
+     */
+    private static class Importacion {
+        // Solo la usa el hilo que lee el archivo
+        Map<String, Long> categorias;
+        Map<String, Long> productos;
+        Map<String, Long> variantes;
+        Map<String, UnidadCatalogo> unidades;
+        final Set<String> skus = ConcurrentHashMap.newKeySet();
+        final Map<String, AtomicInteger> contadoresSku = new ConcurrentHashMap<>();
+        boolean sincronizar;
+        // Trabajo en segundo plano al que se informa el avance (null en importaciones síncronas)
+        CatalogoImportJobResponse job;
+        JsonParser parser;
+        long tamanoArchivo;
+        // Ids de unidades del catálogo activas que todavía no aparecieron en el archivo
+        final Set<Long> ausentes = ConcurrentHashMap.newKeySet();
+
+        // Productos leídos pendientes de escribir, por clave(categoriaId, nombre); siempre de una sola categoría
+        final Map<String, ProductoPendiente> lote = new LinkedHashMap<>();
+        String categoriaActual;
+        // Último lote enviado de cada categoría, para encadenar el siguiente detrás
+        final Map<Long, CompletableFuture<Void>> particiones = new HashMap<>();
+        Semaphore enVuelo;
+
+        int categoriasCreadas;
+        int productosCreados;
+        int variantesCreadas;
+        int unidadesCreadas;
+        int unidadesActualizadas;
+        int unidadesSinCambios;
+        int unidadesDesactivadas;
+        int productosActualizados;
+        long productosProcesados;
+        long unidadesProcesadas;
+        long bytesLeidos;
+        int errores;
+        final Map<String, Integer> erroresPorCategoria = new LinkedHashMap<>();
+
+        synchronized void aplicar(ResultadoLote lote) {
+            productos.putAll(lote.productos);
+            variantes.putAll(lote.variantes);
+            unidades.putAll(lote.unidades);
+            ausentes.removeAll(lote.vistas);
+            productosCreados += lote.productos.size();
+            variantesCreadas += lote.variantes.size();
+            unidadesCreadas += lote.unidadesCreadas;
+            unidadesActualizadas += lote.unidadesActualizadas;
+            unidadesSinCambios += lote.unidadesSinCambios;
+            productosActualizados += lote.productosActualizados;
+        }
+
+        synchronized void sumarErrores(String categoria, int cantidad) {
+            errores += cantidad;
+            erroresPorCategoria.merge(categoria != null ? categoria : "(sin nombre)", cantidad, Integer::sum);
+        }
+
+        synchronized void registrarProcesados(int productos, int unidades, long bytes) {
+            productosProcesados += productos;
+            unidadesProcesadas += unidades;
+            // Los lotes pueden terminar desordenados: el avance es el del lote más adelantado
+            bytesLeidos = Math.max(bytesLeidos, bytes);
+            System.out.println("📦 Productos procesados: " + productosProcesados +
+                    " (unidades creadas: " + unidadesCreadas + ")");
+            if (job != null) {
+                job.actualizarProgreso(productosProcesados, unidadesProcesadas, errores, bytesLeidos, tamanoArchivo);
+            }
+        }
+    }
+
+    /**
+     * Filas creadas por un lote, que se incorporan a la importación solo tras el commit
+     */
+    private static class ResultadoLote {
+        final Map<String, Long> productos = new HashMap<>();
+        final Map<String, Long> variantes = new HashMap<>();
+        // Unidades del archivo ya procesadas en el lote (las creadas o actualizadas, con su nuevo hash)
+        final Map<String, UnidadCatalogo> unidades = new HashMap<>();
+        // Unidades existentes que aparecieron en el archivo
+        final Set<Long> vistas = new HashSet<>();
+        int unidadesCreadas;
+        int unidadesActualizadas;
+        int unidadesSinCambios;
+        int productosActualizados;
+
+        Long idProducto(ProductoPendiente producto, Importacion importacion) {
+            String claveProducto = clave(producto.categoriaId, producto.nombre);
+            Long id = importacion.productos.get(claveProducto);
+            return id != null ? id : productos.get(claveProducto);
+        }
+
+        Long idVariante(Long productoId, String nombre, Importacion importacion) {
+            String claveVariante = clave(productoId, nombre);
+            Long id = importacion.variantes.get(claveVariante);
+            return id != null ? id : variantes.get(claveVariante);
+        }
+    }
+
+    private static class ProductoPendiente {
+        final Long categoriaId;
+        final String nombre;
+        final String descripcion;
+        final String marca;
+        // nombre de la variante -> unidades de venta
+        final Map<String, List<UnidadPendiente>> variantes = new LinkedHashMap<>();
+
+        ProductoPendiente(Long categoriaId, String nombre, String descripcion, String marca) {
+            this.categoriaId = categoriaId;
+            this.nombre = nombre;
+            this.descripcion = descripcion;
+            this.marca = marca;
+        }
+    }
+
+    private static class UnidadPendiente {
+        final String descripcion;
+        final BigDecimal precio;
+        final Integer stock;
+
+        UnidadPendiente(String descripcion, BigDecimal precio, Integer stock) {
+            this.descripcion = descripcion;
+            this.precio = precio;
+            this.stock = stock;
+        }
+    }
 }
@@ -8,7 +8,10 @@ import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.springframework.web.multipart.MultipartFile;
 
+import java.io.File;
 import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.Map;
 
 @Service
@@ -27,32 +30,12 @@ public class CloudinaryService {
      * @return URL de la imagen subida
      */
     public String uploadImage(MultipartFile file, String folder) throws IOException {
-        if (!cloudinaryEnabled || cloudinary == null) {
-            throw new RuntimeException("Cloudinary no está configurado. Por favor, configura las credenciales de Cloudinary.");
-        }
-
-        try {
-            // Crear transformación básica para optimización
-            Transformation transformation = new Transformation()
-                .quality("auto:good")
-                .fetchFormat("auto");
-
-            // Opciones de subida
-            @SuppressWarnings("unchecked")
-            Map<String, Object> uploadParams = ObjectUtils.asMap(
-                "folder", folder,
-                "resource_type", "auto",
-                "transformation", transformation
-            );
+        // Crear transformación básica para optimización
+        Transformation transformation = new Transformation()
+            .quality("auto:good")
+            .fetchFormat("auto");
 
-            // Subir imagen
-            Map<?, ?> uploadResult = cloudinary.uploader().upload(file.getBytes(), uploadParams);
-            
-            // Retornar URL segura
-            return (String) uploadResult.get("secure_url");
-        } catch (IOException e) {
-            throw new IOException("Error al subir imagen a Cloudinary: " + e.getMessage(), e);
-        }
+        return uploadDesdeArchivoTemporal(file, folder, transformation);
     }
 
     /**
@@ -64,27 +47,72 @@ public class CloudinaryService {
      * @return URL de la imagen subida
      */
     public String uploadImageWithTransformation(MultipartFile file, String folder, int width, int height) throws IOException {
+        return uploadDesdeArchivoTemporal(file, folder, limitar(width, height));
+    }
+
+    /**
+     * Sube una imagen con transformaciones desde un archivo en disco
+     * (la usan los trabajos asíncronos, cuando la petición original ya terminó)
+     */
+    public String uploadImageWithTransformation(File file, String folder, int width, int height) throws IOException {
+        return upload(file, folder, null, limitar(width, height));
+    }
+
+    /**
+     * Igual que la anterior pero con un public_id fijo (el almacén de imágenes usa el hash del contenido).
+     * Si ya existe un recurso con ese public_id no se sobrescribe.
+     */
+    public String uploadImageWithTransformation(File file, String folder, String publicId, int width, int height) throws IOException {
+        return upload(file, folder, publicId, limitar(width, height));
+    }
+
+    private Transformation limitar(int width, int height) {
+        return new Transformation()
+            .width(width)
+            .height(height)
+            .crop("limit")
+            .quality("auto:good")
+            .fetchFormat("auto");
+    }
+
+    /**
+     * El multipart se copia a un archivo (transferTo mueve o copia por bloques) en lugar de
+     * usar getBytes(), que carga la imagen completa en el heap
+     */
+    private String uploadDesdeArchivoTemporal(MultipartFile file, String folder, Transformation transformation) throws IOException {
+        Path temporal = Files.createTempFile("inmedt-cloudinary-", ".upload");
+        try {
+            file.transferTo(temporal);
+            return upload(temporal.toFile(), folder, null, transformation);
+        } finally {
+            Files.deleteIfExists(temporal);
+        }
+    }
+
+    /**
+     * Sube un archivo en disco: el SDK lo envía por streaming, sin leerlo completo en memoria
+     */
+    private String upload(File file, String folder, String publicId, Transformation transformation) throws IOException {
         if (!cloudinaryEnabled || cloudinary == null) {
             throw new RuntimeException("Cloudinary no está configurado. Por favor, configura las credenciales de Cloudinary.");
         }
 
         try {
-            // Crear transformación usando el objeto Transformation de Cloudinary
-            Transformation transformation = new Transformation()
-                .width(width)
-                .height(height)
-                .crop("limit")
-                .quality("auto:good")
-                .fetchFormat("auto");
-
+            // Opciones de subida
             @SuppressWarnings("unchecked")
             Map<String, Object> uploadParams = ObjectUtils.asMap(
                 "folder", folder,
                 "resource_type", "auto",
                 "transformation", transformation
             );
+            if (publicId != null) {
+                uploadParams.put("public_id", publicId);
+                uploadParams.put("overwrite", false);
+            }
 
-            Map<?, ?> uploadResult = cloudinary.uploader().upload(file.getBytes(), uploadParams);
+            Map<?, ?> uploadResult = cloudinary.uploader().upload(file, uploadParams);
+            
+            // Retornar URL segura
             return (String) uploadResult.get("secure_url");
         } catch (IOException e) {
             throw new IOException("Error al subir imagen a Cloudinary: " + e.getMessage(), e);
@@ -110,6 +138,20 @@ public class CloudinaryService {
             .generate(publicId);
     }
 
+    /**
+     * Versión de una imagen ya subida limitada a un ancho, con formato y calidad automáticos
+     * (Cloudinary entrega WebP/AVIF según el navegador). No requiere una nueva subida.
+     * @param url URL de Cloudinary
+     * @param width Ancho máximo
+     * @return URL transformada, o la original si no es una URL de entrega de Cloudinary
+     */
+    public String getUrlConAncho(String url, int width) {
+        if (url == null || !url.contains("/upload/")) {
+            return url;
+        }
+        return url.replaceFirst("/upload/", "/upload/w_" + width + ",c_limit,f_auto,q_auto/");
+    }
+
     /**
      * Elimina una imagen de Cloudinary
      * @param publicId ID público de la imagen
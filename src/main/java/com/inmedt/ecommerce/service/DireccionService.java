@@ -32,8 +32,7 @@ public class DireccionService {
     }
 
     public DireccionResponse createDireccion(Long userId, DireccionRequest request) {
-        User user = userRepository.findById(userId)
-                .orElseThrow(() -> new RuntimeException("Usuario no encontrado"));
+        User user = userRepository.getReferenceById(userId);
 
         // Verificar si ya existe una dirección con el mismo nombre
         if (direccionRepository.existsByUserIdAndNombre(userId, request.getNombre())) {
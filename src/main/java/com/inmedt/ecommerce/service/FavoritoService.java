@@ -35,8 +35,7 @@ public class FavoritoService {
     }
 
     public FavoritoResponse addFavorito(Long userId, Long productoId) {
-        User user = userRepository.findById(userId)
-                .orElseThrow(() -> new RuntimeException("Usuario no encontrado"));
+        User user = userRepository.getReferenceById(userId);
 
         Producto producto = productoRepository.findById(productoId)
                 .orElseThrow(() -> new RuntimeException("Producto no encontrado"));
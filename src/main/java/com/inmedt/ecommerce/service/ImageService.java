@@ -1,34 +1,85 @@
 package com.inmedt.ecommerce.service;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.inmedt.ecommerce.config.ImageExecutorConfig;
+import com.inmedt.ecommerce.config.MetricsConfig;
+import com.inmedt.ecommerce.dto.ImagenResponsiveResponse;
+import com.inmedt.ecommerce.model.ImagenAlmacenada;
+import com.inmedt.ecommerce.model.ImagenDerivada;
+import com.inmedt.ecommerce.repository.ImagenAlmacenadaRepository;
+import com.inmedt.ecommerce.repository.ImagenDerivadaRepository;
+import io.micrometer.core.annotation.Timed;
+import jakarta.annotation.PostConstruct;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.stereotype.Service;
-import org.springframework.web.multipart.MultipartFile;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 import javax.imageio.IIOImage;
 import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
 import javax.imageio.ImageWriteParam;
 import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageInputStream;
 import javax.imageio.stream.ImageOutputStream;
 import java.awt.*;
 import java.awt.image.BufferedImage;
 import java.io.File;
 import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
 import java.util.HashMap;
+import java.util.HexFormat;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
 import java.util.Map;
-import java.util.UUID;
+import java.util.Optional;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Semaphore;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
 
 @Service
 public class ImageService {
 
+    private static final String LOCAL_URL_PREFIX = "/uploads/productos/";
+
+    // Archivos nombrados por el hash de su contenido: principal, miniatura y versiones responsive
+    private static final Pattern NOMBRE_POR_CONTENIDO =
+        Pattern.compile("^(thumb_)?[0-9a-f]{64}(_w\\d+)?\\.[A-Za-z0-9]+$");
+
     @Autowired(required = false)
     private CloudinaryService cloudinaryService;
 
+    @Autowired
+    private ImagenDerivadaRepository imagenDerivadaRepository;
+
+    @Autowired
+    private ImagenAlmacenadaRepository imagenAlmacenadaRepository;
+
+    @Autowired
+    @Qualifier(ImageExecutorConfig.IMAGE_WORKER_EXECUTOR)
+    private Executor imageWorkerExecutor;
+
     @Value("${app.upload.dir:uploads/productos}")
     private String uploadDir;
 
@@ -41,20 +92,128 @@ public class ImageService {
     @Value("${app.image.quality:0.85}")
     private float imageQuality;
 
+    // Anchos (px) de las versiones responsive que se generan de cada imagen
+    @Value("${app.image.breakpoints:160,320,640,1280}")
+    private List<Integer> breakpoints;
+
+    // Formatos modernos que se generan además del formato de respaldo (si hay un escritor ImageIO para ellos)
+    @Value("${app.image.modern-formats:webp}")
+    private List<String> modernFormats;
+
+    private List<String> formatosModernosDisponibles = List.of();
+
+    // Imágenes que se pueden decodificar y procesar localmente a la vez: cada una ocupa decenas de MB de heap
+    @Value("${app.image.max-concurrent-decodes:2}")
+    private int maxConcurrentDecodes;
+
+    private Semaphore decodificaciones;
+
+    // Un monitor por hash: serializa procesar, reutilizar y borrar el mismo contenido.
+    // Con valores débiles la entrada vive mientras algún hilo tenga (o espere) el monitor.
+    private final Cache<String, Object> bloqueos = Caffeine.newBuilder()
+            .weakValues()
+            .build();
+
+    @PostConstruct
+    public void inicializar() {
+        decodificaciones = new Semaphore(Math.max(1, maxConcurrentDecodes), true);
+
+        formatosModernosDisponibles = modernFormats.stream()
+            .map(formato -> formato.trim().toLowerCase(Locale.ROOT))
+            .filter(formato -> ImageIO.getImageWritersByFormatName(formato).hasNext())
+            .collect(Collectors.toList());
+
+        if (formatosModernosDisponibles.isEmpty()) {
+            System.out.println("⚠️ Sin escritores para " + modernFormats + ", las versiones responsive solo se generan en JPEG/PNG");
+        } else {
+            System.out.println("✅ Versiones responsive en " + formatosModernosDisponibles + " además de JPEG/PNG");
+        }
+    }
+
     /**
-     * Guarda una imagen de producto usando Cloudinary o almacenamiento local como fallback
+     * Guarda una imagen de producto direccionada por contenido (SHA-256 de los bytes): si el mismo
+     * archivo ya se había subido se reutiliza sin volver a procesarlo y se suma una referencia.
+     * Si no, se guarda usando Cloudinary o almacenamiento local como fallback.
+     * @param source archivo temporal con la imagen subida
      * @return Map con las URLs: "main" para imagen principal y "thumbnail" para miniatura
      */
-    public Map<String, String> saveProductImage(MultipartFile file, boolean createThumbnail) throws IOException {
+    @Timed(MetricsConfig.IMAGEN)
+    public Map<String, String> saveProductImage(Path source, String contentType, String originalFilename,
+                                                boolean createThumbnail) throws IOException {
+        String hash = calcularHash(source);
+        synchronized (bloqueos.get(hash, k -> new Object())) {
+            Map<String, String> existentes = reutilizar(hash, createThumbnail);
+            if (existentes != null) {
+                return existentes;
+            }
+
+            // La miniatura se genera siempre: otra subida del mismo archivo puede necesitarla
+            Map<String, String> urls = registrar(hash, almacenar(source, hash, contentType, originalFilename));
+            if (!createThumbnail) {
+                urls.remove("thumbnail");
+            }
+            return urls;
+        }
+    }
+
+    /**
+     * Camino rápido para una subida repetida: si el contenido ya está almacenado suma una referencia
+     * y devuelve sus URLs sin procesar nada.
+     * @return las URLs, o null si el archivo no se había subido antes
+     */
+    public Map<String, String> reutilizarImagen(Path source, boolean createThumbnail) throws IOException {
+        String hash = calcularHash(source);
+        synchronized (bloqueos.get(hash, k -> new Object())) {
+            return reutilizar(hash, createThumbnail);
+        }
+    }
+
+    private Map<String, String> reutilizar(String hash, boolean createThumbnail) {
+        Optional<ImagenAlmacenada> almacenada = imagenAlmacenadaRepository.findByHash(hash);
+        // Si el incremento no encuentra la fila es que se soltó su última referencia: se procesa de nuevo
+        if (almacenada.isEmpty() || imagenAlmacenadaRepository.incrementarReferencias(almacenada.get().getId()) == 0) {
+            return null;
+        }
+
+        ImagenAlmacenada imagen = almacenada.get();
+        Map<String, String> urls = new HashMap<>();
+        urls.put("main", imagen.getUrl());
+        if (createThumbnail && imagen.getThumbnailUrl() != null) {
+            urls.put("thumbnail", imagen.getThumbnailUrl());
+        }
+        System.out.println("♻️ Imagen ya almacenada, se reutiliza: " + imagen.getUrl());
+        return urls;
+    }
+
+    private Map<String, String> registrar(String hash, Map<String, String> urls) {
+        try {
+            imagenAlmacenadaRepository.save(new ImagenAlmacenada(hash, urls.get("main"), urls.get("thumbnail")));
+            return urls;
+        } catch (DataIntegrityViolationException e) {
+            // Otra instancia registró el mismo contenido al mismo tiempo: se usa (y referencia) la suya
+            Map<String, String> existentes = reutilizar(hash, true);
+            if (existentes == null) {
+                throw e;
+            }
+            return existentes;
+        }
+    }
+
+    /**
+     * Guarda el contenido bajo su hash: public_id en Cloudinary o nombre de archivo en local
+     */
+    private Map<String, String> almacenar(Path source, String hash, String contentType,
+                                          String originalFilename) throws IOException {
         Map<String, String> urls = new HashMap<>();
 
         // Intentar usar Cloudinary primero
         if (cloudinaryService != null && cloudinaryService.isEnabled()) {
             try {
-                // Subir imagen principal optimizada
+                // Subir imagen principal optimizada (el SDK envía el archivo por streaming, sin cargarlo en memoria)
                 String mainUrl = cloudinaryService.uploadImageWithTransformation(
-                    file, 
+                    source.toFile(), 
                     "productos", 
+                    hash,
                     maxImageSize, 
                     maxImageSize
                 );
@@ -64,18 +223,8 @@ public class ImageService {
                     urls.put("main", mainUrl);
                     System.out.println("✅ Imagen principal subida a Cloudinary: " + mainUrl);
                     
-                    // Subir thumbnail si se solicita
-                    if (createThumbnail) {
-                        String thumbnailUrl = cloudinaryService.uploadImageWithTransformation(
-                            file, 
-                            "productos/thumbnails", 
-                            thumbnailSize, 
-                            thumbnailSize
-                        );
-                        urls.put("thumbnail", thumbnailUrl);
-                        System.out.println("✅ Thumbnail subido a Cloudinary: " + thumbnailUrl);
-                    }
-
+                    // La miniatura se genera al entregarla: no hace falta subir el archivo otra vez
+                    urls.put("thumbnail", cloudinaryService.getUrlConAncho(mainUrl, thumbnailSize));
                     return urls;
                 }
             } catch (Exception e) {
@@ -86,22 +235,42 @@ public class ImageService {
         }
 
         // Fallback: Usar almacenamiento local
-        String filename = saveProductImageLocal(file, createThumbnail);
-        urls.put("main", "/uploads/productos/" + filename);
-        
-        if (createThumbnail) {
-            urls.put("thumbnail", "/uploads/productos/" + getThumbnailName(filename));
+        String filename = saveProductImageLocal(source, hash, contentType, originalFilename);
+        urls.put("main", LOCAL_URL_PREFIX + filename);
+        urls.put("thumbnail", LOCAL_URL_PREFIX + getThumbnailName(filename));
+        return urls;
+    }
+
+    /**
+     * SHA-256 del archivo, leído por bloques
+     */
+    private String calcularHash(Path source) throws IOException {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
         }
 
-        return urls;
+        try (InputStream input = Files.newInputStream(source)) {
+            byte[] buffer = new byte[64 * 1024];
+            int leidos;
+            while ((leidos = input.read(buffer)) != -1) {
+                digest.update(buffer, 0, leidos);
+            }
+        }
+        return HexFormat.of().formatHex(digest.digest());
     }
 
     /**
-     * Guarda imagen en almacenamiento local (método original)
+     * Guarda imagen en almacenamiento local: se decodifica una vez (submuestreada, ver leerImagen)
+     * y cada tamaño se genera en paralelo. Además de la imagen principal y la miniatura se guardan
+     * sus versiones responsive (ver generarDerivadas). Como mucho app.image.max-concurrent-decodes
+     * imágenes se procesan a la vez; las demás esperan su turno.
      */
-    private String saveProductImageLocal(MultipartFile file, boolean createThumbnail) throws IOException {
+    private String saveProductImageLocal(Path source, String hash, String contentType,
+                                         String originalFilename) throws IOException {
         // Validar que sea una imagen
-        String contentType = file.getContentType();
         if (contentType == null || !contentType.startsWith("image/")) {
             throw new IllegalArgumentException("El archivo debe ser una imagen");
         }
@@ -112,32 +281,264 @@ public class ImageService {
             Files.createDirectories(uploadPath);
         }
 
-        // Generar nombre único
-        String originalFilename = file.getOriginalFilename();
-        String extension = originalFilename != null ? 
-            originalFilename.substring(originalFilename.lastIndexOf(".")) : ".jpg";
-        String filename = UUID.randomUUID().toString() + extension;
+        // El nombre es el hash del contenido
+        String extension = getExtension(originalFilename);
+        String filename = hash + extension;
 
-        // Leer la imagen original
-        BufferedImage originalImage = ImageIO.read(file.getInputStream());
-        if (originalImage == null) {
-            throw new IllegalArgumentException("No se pudo leer la imagen");
+        try {
+            decodificaciones.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Procesamiento de imagen interrumpido", e);
         }
 
+        List<CompletableFuture<?>> tareas = new ArrayList<>();
+        try {
+            procesarImagenLocal(source, filename, extension, tareas);
+        } finally {
+            // Si una tarea falló, esperar a las demás antes de liberar: todavía usan la imagen decodificada
+            CompletableFuture.allOf(tareas.toArray(new CompletableFuture[0])).handle((r, e) -> null).join();
+            decodificaciones.release();
+        }
+
+        return filename;
+    }
+
+    private void procesarImagenLocal(Path source, String filename, String extension,
+                                     List<CompletableFuture<?>> tareas) throws IOException {
+        // Leer la imagen original, submuestreada a no más del doble del tamaño final
+        BufferedImage originalImage = leerImagen(source, maxImageSize, false);
+
         // Optimizar y guardar imagen principal
-        BufferedImage optimizedImage = resizeImage(originalImage, maxImageSize);
-        String fullPath = uploadDir + "/" + filename;
-        saveCompressedImage(optimizedImage, fullPath, extension);
+        CompletableFuture<Void> main = enParalelo(() -> {
+            BufferedImage optimizedImage = resizeImage(originalImage, maxImageSize);
+            saveCompressedImage(optimizedImage, uploadDir + "/" + filename, extension);
+            return null;
+        });
+
+        // Crear thumbnail
+        CompletableFuture<Void> thumbnail = enParalelo(() -> {
+            BufferedImage thumbnailImage = resizeImage(originalImage, thumbnailSize);
+            saveCompressedImage(thumbnailImage, uploadDir + "/" + getThumbnailName(filename), extension);
+            return null;
+        });
+        tareas.add(main);
+        tareas.add(thumbnail);
+
+        // Versiones responsive: una tarea por ancho, que codifica todos los formatos
+        String formatoRespaldo = ".png".equalsIgnoreCase(extension) ? "png" : "jpeg";
+        List<CompletableFuture<List<ImagenDerivada>>> derivadas = new ArrayList<>();
+        for (Integer ancho : breakpoints) {
+            if (ancho < originalImage.getWidth() && ancho < maxImageSize) {
+                derivadas.add(enParalelo(() -> generarDerivadas(originalImage, filename, ancho, formatoRespaldo)));
+            }
+        }
+        tareas.addAll(derivadas);
 
-        // Crear thumbnail si se solicita
-        if (createThumbnail) {
-            BufferedImage thumbnail = resizeImage(originalImage, thumbnailSize);
-            String thumbnailFilename = "thumb_" + filename;
-            String thumbnailPath = uploadDir + "/" + thumbnailFilename;
-            saveCompressedImage(thumbnail, thumbnailPath, extension);
+        esperar(main);
+        esperar(thumbnail);
+
+        List<ImagenDerivada> generadas = new ArrayList<>();
+        for (CompletableFuture<List<ImagenDerivada>> derivada : derivadas) {
+            generadas.addAll(esperar(derivada));
+        }
+        // Reemplaza las filas que pudieran quedar de un procesamiento anterior del mismo contenido
+        imagenDerivadaRepository.deleteByImagenUrlInBulk(LOCAL_URL_PREFIX + filename);
+        if (!generadas.isEmpty()) {
+            imagenDerivadaRepository.saveAll(generadas);
         }
+    }
 
-        return filename;
+    /**
+     * Decodifica la imagen leyendo solo las dimensiones primero y pidiendo al lector un
+     * submuestreo entero (se descartan filas y columnas mientras se lee el archivo), de modo
+     * que el BufferedImage queda entre 1x y 2x maxSize en lugar de a resolución completa:
+     * una foto de 6000x4000 ocupa ~10 MB en vez de ~96 MB.
+     * @param soloAncho si maxSize se refiere al ancho (versiones por ancho) en lugar del lado mayor
+     */
+    private BufferedImage leerImagen(Path source, int maxSize, boolean soloAncho) throws IOException {
+        try (ImageInputStream input = ImageIO.createImageInputStream(source.toFile())) {
+            Iterator<ImageReader> readers = input != null ? ImageIO.getImageReaders(input) : null;
+            if (readers == null || !readers.hasNext()) {
+                throw new IllegalArgumentException("No se pudo leer la imagen");
+            }
+
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(input, true, true);
+                int ancho = reader.getWidth(0);
+                int alto = reader.getHeight(0);
+
+                int factor = Math.max(1, (soloAncho ? ancho : Math.max(ancho, alto)) / maxSize);
+                ImageReadParam param = reader.getDefaultReadParam();
+                param.setSourceSubsampling(factor, factor, 0, 0);
+                return reader.read(0, param);
+            } finally {
+                reader.dispose();
+            }
+        }
+    }
+
+    /**
+     * Renderiza una versión de la imagen con un ancho y formato dados (redimensionado bajo demanda).
+     * Nunca amplía: si la imagen es más angosta se conserva su ancho. Comparte el límite de
+     * decodificaciones simultáneas con las subidas.
+     */
+    public void renderizarVersion(Path origen, Path destino, int ancho, String formato) throws IOException {
+        try {
+            decodificaciones.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Procesamiento de imagen interrumpido", e);
+        }
+
+        try {
+            BufferedImage imagen = leerImagen(origen, ancho, true);
+            int anchoFinal = Math.min(ancho, imagen.getWidth());
+            int alto = Math.max(1, (int) Math.round((double) imagen.getHeight() * anchoFinal / imagen.getWidth()));
+            // Se redibuja siempre en RGB: JPEG no admite el canal alfa de un PNG
+            saveCompressedImage(scaleImage(imagen, anchoFinal, alto), destino.toString(), "." + formato);
+        } finally {
+            decodificaciones.release();
+        }
+    }
+
+    /**
+     * Si se puede generar el formato ("jpeg", "png" o uno moderno con escritor disponible)
+     */
+    public boolean puedeEscribir(String formato) {
+        return "jpeg".equals(formato) || "png".equals(formato) || formatosModernosDisponibles.contains(formato);
+    }
+
+    /**
+     * Genera las versiones de un ancho: el formato de respaldo siempre y los formatos modernos
+     * disponibles. Si un formato moderno falla (p. ej. falta la librería nativa) se omite.
+     */
+    private List<ImagenDerivada> generarDerivadas(BufferedImage originalImage, String filename, int ancho,
+                                                  String formatoRespaldo) throws IOException {
+        int alto = Math.max(1, (int) Math.round((double) originalImage.getHeight() * ancho / originalImage.getWidth()));
+        BufferedImage imagen = scaleImage(originalImage, ancho, alto);
+        String imagenUrl = LOCAL_URL_PREFIX + filename;
+
+        List<ImagenDerivada> derivadas = new ArrayList<>();
+        String nombre = getDerivadaName(filename, ancho, formatoRespaldo);
+        saveCompressedImage(imagen, uploadDir + "/" + nombre, "." + formatoRespaldo);
+        derivadas.add(new ImagenDerivada(imagenUrl, ancho, formatoRespaldo, LOCAL_URL_PREFIX + nombre));
+
+        for (String formato : formatosModernosDisponibles) {
+            String nombreModerno = getDerivadaName(filename, ancho, formato);
+            try {
+                saveCompressedImage(imagen, uploadDir + "/" + nombreModerno, "." + formato);
+                derivadas.add(new ImagenDerivada(imagenUrl, ancho, formato, LOCAL_URL_PREFIX + nombreModerno));
+            } catch (Exception | LinkageError e) {
+                System.err.println("⚠️ No se pudo generar la versión " + formato + " de " + filename + ": " + e.getMessage());
+                Files.deleteIfExists(Paths.get(uploadDir, nombreModerno));
+            }
+        }
+        return derivadas;
+    }
+
+    /**
+     * Nombre del archivo derivado: "uuid.jpg" -> "uuid_w320.webp"
+     */
+    private String getDerivadaName(String filename, int ancho, String formato) {
+        int punto = filename.lastIndexOf('.');
+        String base = punto > 0 ? filename.substring(0, punto) : filename;
+        return base + "_w" + ancho + "." + ("jpeg".equals(formato) ? "jpg" : formato);
+    }
+
+    /**
+     * Arma, para cada URL de imagen, su estructura responsive (srcset por formato).
+     * Las imágenes locales usan las derivadas guardadas (una sola consulta para todas las URLs);
+     * las de Cloudinary se redimensionan en la URL y el formato lo negocia Cloudinary (f_auto).
+     * @return mapa URL -> responsive; las imágenes sin derivadas no aparecen
+     */
+    public Map<String, ImagenResponsiveResponse> getImagenesResponsive(Collection<String> imageUrls) {
+        Map<String, ImagenResponsiveResponse> responsive = new HashMap<>();
+        List<String> locales = new ArrayList<>();
+
+        for (String url : imageUrls) {
+            if (url == null || url.isEmpty() || responsive.containsKey(url)) {
+                continue;
+            }
+            if (url.contains("cloudinary.com")) {
+                if (cloudinaryService != null) {
+                    String srcset = breakpoints.stream()
+                        .map(ancho -> cloudinaryService.getUrlConAncho(url, ancho) + " " + ancho + "w")
+                        .collect(Collectors.joining(", "));
+                    responsive.put(url, new ImagenResponsiveResponse(url,
+                        List.of(new ImagenResponsiveResponse.Fuente(null, srcset))));
+                }
+            } else {
+                locales.add(url);
+            }
+        }
+
+        if (locales.isEmpty()) {
+            return responsive;
+        }
+
+        Map<String, List<ImagenDerivada>> derivadasPorImagen = imagenDerivadaRepository.findByImagenUrlIn(locales).stream()
+            .collect(Collectors.groupingBy(ImagenDerivada::getImagenUrl));
+
+        derivadasPorImagen.forEach((url, derivadas) -> {
+            // Formatos modernos primero: el navegador usa la primera fuente que soporta
+            Map<String, List<ImagenDerivada>> porFormato = derivadas.stream()
+                .sorted(Comparator.comparing((ImagenDerivada d) -> esFormatoRespaldo(d.getFormato()))
+                    .thenComparing(ImagenDerivada::getAncho))
+                .collect(Collectors.groupingBy(ImagenDerivada::getFormato, LinkedHashMap::new, Collectors.toList()));
+
+            List<ImagenResponsiveResponse.Fuente> fuentes = new ArrayList<>();
+            porFormato.forEach((formato, versiones) -> fuentes.add(new ImagenResponsiveResponse.Fuente(
+                "image/" + formato,
+                versiones.stream()
+                    .map(d -> d.getUrl() + " " + d.getAncho() + "w")
+                    .collect(Collectors.joining(", "))
+            )));
+            responsive.put(url, new ImagenResponsiveResponse(url, fuentes));
+        });
+
+        return responsive;
+    }
+
+    private boolean esFormatoRespaldo(String formato) {
+        return "jpeg".equals(formato) || "png".equals(formato);
+    }
+
+    private String getExtension(String originalFilename) {
+        if (originalFilename == null || originalFilename.lastIndexOf(".") < 0) {
+            return ".jpg";
+        }
+        return originalFilename.substring(originalFilename.lastIndexOf("."));
+    }
+
+    private <T> CompletableFuture<T> enParalelo(Callable<T> tarea) {
+        return CompletableFuture.supplyAsync(() -> {
+            try {
+                return tarea.call();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            } catch (RuntimeException e) {
+                throw e;
+            } catch (Exception e) {
+                throw new RuntimeException(e);
+            }
+        }, imageWorkerExecutor);
+    }
+
+    private <T> T esperar(CompletableFuture<T> tarea) throws IOException {
+        try {
+            return tarea.join();
+        } catch (CompletionException e) {
+            Throwable causa = e.getCause();
+            if (causa instanceof UncheckedIOException io) {
+                throw io.getCause();
+            }
+            if (causa instanceof RuntimeException runtime) {
+                throw runtime;
+            }
+            throw new IOException(causa);
+        }
     }
 
     public String getThumbnailName(String originalFilename) {
@@ -145,41 +546,103 @@ public class ImageService {
     }
 
     /**
-     * Elimina una imagen (de Cloudinary o local)
+     * Suelta una referencia a la imagen (de Cloudinary o local). El almacenamiento solo se elimina
+     * con la última referencia; las imágenes anteriores al almacén por contenido se eliminan siempre.
+     * Dentro de una transacción los archivos se borran después del commit.
      */
     public void deleteImage(String imageUrl) {
         if (imageUrl == null || imageUrl.isEmpty()) {
             return;
         }
 
+        // Algunas llamadas pasan solo el nombre del archivo local
+        String url = imageUrl.contains("cloudinary.com") || imageUrl.startsWith(LOCAL_URL_PREFIX)
+            ? imageUrl
+            : LOCAL_URL_PREFIX + imageUrl;
+
+        Optional<ImagenAlmacenada> almacenada = imagenAlmacenadaRepository.findByUrl(url);
+        String hash = null;
+        if (almacenada.isPresent()) {
+            Long id = almacenada.get().getId();
+            imagenAlmacenadaRepository.decrementarReferencias(id);
+            if (imagenAlmacenadaRepository.deleteSinReferencias(id) == 0) {
+                // Otros productos siguen usando la imagen
+                return;
+            }
+            hash = almacenada.get().getHash();
+        }
+
         // Si es una URL de Cloudinary
-        if (imageUrl.contains("cloudinary.com")) {
+        if (url.contains("cloudinary.com")) {
             if (cloudinaryService != null && cloudinaryService.isEnabled()) {
-                try {
-                    String publicId = cloudinaryService.extractPublicId(imageUrl);
-                    if (publicId != null) {
-                        cloudinaryService.deleteImage(publicId);
-                    }
-                } catch (IOException e) {
-                    System.err.println("Error al eliminar imagen de Cloudinary: " + e.getMessage());
+                String publicId = cloudinaryService.extractPublicId(url);
+                if (publicId != null) {
+                    despuesDelCommit(hash, () -> {
+                        try {
+                            cloudinaryService.deleteImage(publicId);
+                        } catch (IOException e) {
+                            System.err.println("Error al eliminar imagen de Cloudinary: " + e.getMessage());
+                        }
+                    });
                 }
             }
         } else {
             // Es una ruta local
-            deleteImageLocal(imageUrl.replace("/uploads/productos/", ""));
+            deleteImageLocal(url.replace(LOCAL_URL_PREFIX, ""), hash);
         }
     }
 
-    private void deleteImageLocal(String filename) {
-        try {
-            Path filePath = Paths.get(uploadDir, filename);
-            Files.deleteIfExists(filePath);
-            
-            // Intentar eliminar thumbnail también
-            Path thumbnailPath = Paths.get(uploadDir, getThumbnailName(filename));
-            Files.deleteIfExists(thumbnailPath);
-        } catch (IOException e) {
-            System.err.println("Error al eliminar imagen: " + e.getMessage());
+    private void deleteImageLocal(String filename, String hash) {
+        List<Path> archivos = new ArrayList<>();
+        archivos.add(Paths.get(uploadDir, filename));
+        
+        // Intentar eliminar thumbnail también
+        archivos.add(Paths.get(uploadDir, getThumbnailName(filename)));
+
+        // Y las versiones responsive
+        String imagenUrl = LOCAL_URL_PREFIX + filename;
+        for (ImagenDerivada derivada : imagenDerivadaRepository.findByImagenUrl(imagenUrl)) {
+            archivos.add(Paths.get(uploadDir, derivada.getUrl().replace(LOCAL_URL_PREFIX, "")));
+        }
+        imagenDerivadaRepository.deleteByImagenUrlInBulk(imagenUrl);
+
+        despuesDelCommit(hash, () -> {
+            try {
+                for (Path archivo : archivos) {
+                    Files.deleteIfExists(archivo);
+                }
+            } catch (IOException e) {
+                System.err.println("Error al eliminar imagen: " + e.getMessage());
+            }
+        });
+    }
+
+    /**
+     * Borra el almacenamiento después del commit (o de inmediato si no hay transacción). Si entre
+     * tanto se volvió a subir el mismo contenido (mismo nombre o public_id), no se borra nada.
+     */
+    private void despuesDelCommit(String hash, Runnable borrado) {
+        Runnable borrar = () -> {
+            if (hash == null) {
+                borrado.run();
+                return;
+            }
+            synchronized (bloqueos.get(hash, k -> new Object())) {
+                if (imagenAlmacenadaRepository.findByHash(hash).isEmpty()) {
+                    borrado.run();
+                }
+            }
+        };
+
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    borrar.run();
+                }
+            });
+        } else {
+            borrar.run();
         }
     }
 
@@ -202,6 +665,10 @@ public class ImageService {
             newWidth = (int) ((double) originalWidth * maxSize / originalHeight);
         }
 
+        return scaleImage(originalImage, newWidth, newHeight);
+    }
+
+    private BufferedImage scaleImage(BufferedImage originalImage, int newWidth, int newHeight) {
         // Crear imagen redimensionada
         BufferedImage resizedImage = new BufferedImage(newWidth, newHeight, BufferedImage.TYPE_INT_RGB);
         Graphics2D g = resizedImage.createGraphics();
@@ -226,11 +693,11 @@ public class ImageService {
             formatName = "jpeg";
         }
 
-        // Para JPEG, aplicar compresión
-        if (formatName.equals("jpeg")) {
-            Iterator<ImageWriter> writers = ImageIO.getImageWritersByFormatName("jpeg");
+        // Para JPEG y WebP, aplicar compresión con pérdida
+        if (formatName.equals("jpeg") || formatName.equals("webp")) {
+            Iterator<ImageWriter> writers = ImageIO.getImageWritersByFormatName(formatName);
             if (!writers.hasNext()) {
-                throw new IllegalStateException("No hay escritores JPEG disponibles");
+                throw new IllegalStateException("No hay escritores " + formatName.toUpperCase() + " disponibles");
             }
 
             ImageWriter writer = writers.next();
@@ -238,6 +705,11 @@ public class ImageService {
             
             if (param.canWriteCompressed()) {
                 param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+                String[] tipos = param.getCompressionTypes();
+                if (tipos != null && tipos.length > 0) {
+                    // El escritor WebP ofrece "Lossy" y "Lossless"; el de JPEG solo uno
+                    param.setCompressionType(tipos[0]);
+                }
                 param.setCompressionQuality(imageQuality);
             }
 
@@ -263,5 +735,43 @@ public class ImageService {
         Path path = getImagePath(filename);
         return Files.exists(path);
     }
+
+    /**
+     * Archivo local de una imagen, solo si existe y está directamente en el directorio de subidas
+     * @return la ruta, o null si no existe o el nombre intenta salir del directorio
+     */
+    public Path resolverArchivo(String filename) {
+        Path base = Paths.get(uploadDir).toAbsolutePath().normalize();
+        Path archivo = base.resolve(filename).normalize();
+        if (!base.equals(archivo.getParent()) || !Files.isRegularFile(archivo)) {
+            return null;
+        }
+        return archivo;
+    }
+
+    /**
+     * Los archivos nombrados por contenido nunca cambian: se pueden cachear indefinidamente
+     */
+    public boolean esNombrePorContenido(String filename) {
+        return NOMBRE_POR_CONTENIDO.matcher(filename).matches();
+    }
+
+    /**
+     * Versión WebP generada junto a una versión responsive JPEG/PNG ("x_w320.jpg" -> "x_w320.webp")
+     * @return la ruta, o null si no existe
+     */
+    public Path getVersionWebp(Path archivo) {
+        String nombre = archivo.getFileName().toString();
+        int punto = nombre.lastIndexOf('.');
+        if (punto < 0) {
+            return null;
+        }
+        String extension = nombre.substring(punto + 1).toLowerCase(Locale.ROOT);
+        if (!extension.equals("jpg") && !extension.equals("jpeg") && !extension.equals("png")) {
+            return null;
+        }
+        Path webp = archivo.resolveSibling(nombre.substring(0, punto) + ".webp");
+        return Files.isRegularFile(webp) ? webp : null;
+    }
 }
 
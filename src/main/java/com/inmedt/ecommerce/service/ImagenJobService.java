@@ -0,0 +1,152 @@
+package com.inmedt.ecommerce.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.inmedt.ecommerce.config.ImageExecutorConfig;
+import com.inmedt.ecommerce.dto.ImagenJobResponse;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.stereotype.Service;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Procesamiento asíncrono de las imágenes de producto subidas por el administrador.
+ * La petición solo copia el archivo a disco y encola el trabajo; el panel consulta su estado.
+ */
+@Service
+public class ImagenJobService {
+
+    @Autowired
+    private ImageService imageService;
+
+    @Autowired
+    private AdminProductoService adminProductoService;
+
+    @Autowired
+    @Qualifier(ImageExecutorConfig.IMAGE_JOB_EXECUTOR)
+    private TaskExecutor imageJobExecutor;
+
+    // Los trabajos terminados se conservan un tiempo para que el panel pueda consultar el resultado
+    private final Cache<String, ImagenJobResponse> jobs = Caffeine.newBuilder()
+            .maximumSize(1000)
+            .expireAfterWrite(Duration.ofHours(1))
+            .build();
+
+    public ImagenJobResponse encolarImagenPrincipal(Long productoId, MultipartFile file) throws IOException {
+        return encolar(productoId, file, ImagenJobResponse.Tipo.PRINCIPAL);
+    }
+
+    public ImagenJobResponse encolarImagenGaleria(Long productoId, MultipartFile file) throws IOException {
+        return encolar(productoId, file, ImagenJobResponse.Tipo.GALERIA);
+    }
+
+    public ImagenJobResponse getJob(String jobId) {
+        ImagenJobResponse job = jobs.getIfPresent(jobId);
+        if (job == null) {
+            throw new RuntimeException("Trabajo de imagen no encontrado");
+        }
+        return job;
+    }
+
+    private ImagenJobResponse encolar(Long productoId, MultipartFile file, ImagenJobResponse.Tipo tipo) throws IOException {
+        String contentType = file.getContentType();
+        if (contentType == null || !contentType.startsWith("image/")) {
+            throw new IllegalArgumentException("El archivo debe ser una imagen");
+        }
+
+        // Falla antes de encolar si el producto no existe
+        adminProductoService.getProductoById(productoId);
+
+        // El archivo temporal del multipart se borra al terminar la petición: se copia a uno propio
+        Path temporal = Files.createTempFile("inmedt-imagen-", ".upload");
+        file.transferTo(temporal);
+
+        ImagenJobResponse job = new ImagenJobResponse(UUID.randomUUID().toString(), productoId, tipo);
+        jobs.put(job.getId(), job);
+
+        // Si el mismo archivo ya estaba almacenado no hay nada que procesar: el trabajo termina aquí
+        Map<String, String> existentes;
+        try {
+            existentes = imageService.reutilizarImagen(temporal, tipo == ImagenJobResponse.Tipo.PRINCIPAL);
+        } catch (IOException | RuntimeException e) {
+            jobs.invalidate(job.getId());
+            Files.deleteIfExists(temporal);
+            throw e;
+        }
+        if (existentes != null) {
+            Files.deleteIfExists(temporal);
+            asignar(job, existentes);
+            return job;
+        }
+
+        try {
+            imageJobExecutor.execute(() -> procesar(job, temporal, contentType, file.getOriginalFilename()));
+        } catch (TaskRejectedException e) {
+            jobs.invalidate(job.getId());
+            Files.deleteIfExists(temporal);
+            throw new RuntimeException("Hay demasiadas imágenes en proceso, intenta nuevamente en unos segundos");
+        }
+
+        return job;
+    }
+
+    private void procesar(ImagenJobResponse job, Path temporal, String contentType, String originalFilename) {
+        actualizar(job, ImagenJobResponse.Estado.PROCESANDO);
+        try {
+            boolean principal = job.getTipo() == ImagenJobResponse.Tipo.PRINCIPAL;
+            Map<String, String> urls = imageService.saveProductImage(temporal, contentType, originalFilename, principal);
+            asignar(job, urls);
+        } catch (Exception e) {
+            fallar(job, e);
+        } finally {
+            try {
+                Files.deleteIfExists(temporal);
+            } catch (IOException e) {
+                System.err.println("Error al eliminar archivo temporal: " + e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Asigna la imagen almacenada al producto. Si falla (p. ej. el producto se eliminó mientras tanto)
+     * se suelta la referencia que se tomó al almacenarla.
+     */
+    private void asignar(ImagenJobResponse job, Map<String, String> urls) {
+        try {
+            if (job.getTipo() == ImagenJobResponse.Tipo.PRINCIPAL) {
+                adminProductoService.updateImagenPrincipal(job.getProductoId(), urls.get("main"), urls.get("thumbnail"));
+            } else {
+                adminProductoService.addImagenGaleria(job.getProductoId(), urls.get("main"));
+            }
+        } catch (RuntimeException e) {
+            imageService.deleteImage(urls.get("main"));
+            fallar(job, e);
+            return;
+        }
+
+        job.setUrls(urls);
+        actualizar(job, ImagenJobResponse.Estado.COMPLETADO);
+        System.out.println("✅ Imagen procesada para el producto " + job.getProductoId() + " (" + job.getTipo() + ")");
+    }
+
+    private void fallar(ImagenJobResponse job, Exception e) {
+        job.setError(e.getMessage());
+        actualizar(job, ImagenJobResponse.Estado.ERROR);
+        System.err.println("❌ Error al procesar imagen del producto " + job.getProductoId() + ": " + e.getMessage());
+    }
+
+    private void actualizar(ImagenJobResponse job, ImagenJobResponse.Estado estado) {
+        job.setEstado(estado);
+        // Volver a publicarlo en la caché renueva su expiración
+        jobs.put(job.getId(), job);
+    }
+}
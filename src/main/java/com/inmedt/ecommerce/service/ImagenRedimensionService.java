@@ -0,0 +1,219 @@
+package com.inmedt.ecommerce.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.RemovalCause;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Versiones de las imágenes locales con ancho y formato arbitrarios (?w=480&fmt=webp), generadas
+ * la primera vez que se piden y guardadas en una caché en disco con tamaño máximo.
+ * Las peticiones simultáneas de una versión que todavía no existe esperan a un único renderizado.
+ */
+@Service
+public class ImagenRedimensionService {
+
+    // Los anchos se redondean hacia arriba a múltiplos de este paso para acotar las versiones por imagen
+    private static final int PASO_ANCHO = 40;
+
+    @Autowired
+    private ImageService imageService;
+
+    @Value("${app.image.resize.cache-dir:uploads/cache}")
+    private String cacheDir;
+
+    @Value("${app.image.resize.cache-max-mb:512}")
+    private long cacheMaxMb;
+
+    @Value("${app.image.max-size:1920}")
+    private int maxImageSize;
+
+    private Path directorio;
+
+    // Índice de la caché en disco (nombre -> bytes): al superar el tamaño máximo se expulsan
+    // las versiones menos usadas y se borra su archivo
+    private Cache<String, Long> indice;
+
+    // Renderizados en curso: una sola tarea por versión, las demás peticiones esperan su resultado
+    private final ConcurrentHashMap<String, CompletableFuture<Path>> enCurso = new ConcurrentHashMap<>();
+
+    @PostConstruct
+    public void inicializar() throws IOException {
+        directorio = Paths.get(cacheDir).toAbsolutePath().normalize();
+        Files.createDirectories(directorio);
+
+        indice = Caffeine.newBuilder()
+                .maximumWeight(cacheMaxMb * 1024 * 1024)
+                .weigher((String nombre, Long bytes) -> (int) Math.min(bytes, Integer.MAX_VALUE))
+                .evictionListener((String nombre, Long bytes, RemovalCause causa) -> eliminarArchivo(nombre))
+                .build();
+
+        // Reconstruir el índice con lo que quedó en disco, de la versión más antigua a la más reciente
+        List<Path> archivos;
+        try (Stream<Path> listado = Files.list(directorio)) {
+            archivos = listado.filter(Files::isRegularFile).collect(Collectors.toList());
+        }
+        archivos.sort(Comparator.comparingLong(this::modificado));
+        for (Path archivo : archivos) {
+            String nombre = archivo.getFileName().toString();
+            if (nombre.endsWith(".tmp")) {
+                // Renderizado interrumpido por un reinicio
+                eliminarArchivo(nombre);
+            } else {
+                indice.put(nombre, Files.size(archivo));
+            }
+        }
+
+        System.out.println("✅ Caché de imágenes redimensionadas: " + archivos.size() + " archivos en " + directorio);
+    }
+
+    /**
+     * Devuelve el archivo con la versión pedida, generándola si todavía no existe.
+     * @param original archivo original (ya resuelto dentro del directorio de subidas)
+     * @param ancho ancho pedido; null para conservar el de la imagen principal
+     * @param formato "jpeg"/"jpg", "png" o "webp"; null para conservar el del original
+     */
+    public Path obtener(Path original, Integer ancho, String formato) throws IOException {
+        String nombreOriginal = original.getFileName().toString();
+        int punto = nombreOriginal.lastIndexOf('.');
+        String base = punto > 0 ? nombreOriginal.substring(0, punto) : nombreOriginal;
+        String formatoFinal = formato != null ? normalizarFormato(formato) : formatoDelOriginal(nombreOriginal, punto);
+        int anchoFinal = normalizarAncho(ancho);
+        String extension = "jpeg".equals(formatoFinal) ? "jpg" : formatoFinal;
+
+        // Las versiones responsive generadas al subir la imagen cubren los anchos habituales
+        Path pregenerada = imageService.resolverArchivo(base + "_w" + anchoFinal + "." + extension);
+        if (pregenerada != null) {
+            return pregenerada;
+        }
+
+        String nombre = base + "_r" + anchoFinal + "." + extension;
+        Path destino = directorio.resolve(nombre);
+        if (enCache(nombre, destino)) {
+            return destino;
+        }
+
+        CompletableFuture<Path> renderizado = new CompletableFuture<>();
+        CompletableFuture<Path> existente = enCurso.putIfAbsent(nombre, renderizado);
+        if (existente != null) {
+            return esperar(existente);
+        }
+
+        try {
+            // Otra petición pudo terminar de generarla entre la consulta anterior y putIfAbsent
+            if (!enCache(nombre, destino)) {
+                renderizar(original, destino, anchoFinal, formatoFinal);
+                indice.put(nombre, Files.size(destino));
+            }
+            renderizado.complete(destino);
+            return destino;
+        } catch (IOException | RuntimeException e) {
+            renderizado.completeExceptionally(e);
+            throw e;
+        } finally {
+            enCurso.remove(nombre, renderizado);
+        }
+    }
+
+    private boolean enCache(String nombre, Path destino) {
+        return indice.getIfPresent(nombre) != null && Files.isRegularFile(destino);
+    }
+
+    /**
+     * Se escribe en un temporal y se mueve al nombre final: nunca se entrega un archivo a medio escribir
+     */
+    private void renderizar(Path original, Path destino, int ancho, String formato) throws IOException {
+        Path temporal = directorio.resolve(destino.getFileName() + "." + UUID.randomUUID() + ".tmp");
+        try {
+            imageService.renderizarVersion(original, temporal, ancho, formato);
+            Files.move(temporal, destino, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            System.out.println("🖼️ Versión generada bajo demanda: " + destino.getFileName());
+        } finally {
+            Files.deleteIfExists(temporal);
+        }
+    }
+
+    private int normalizarAncho(Integer ancho) {
+        if (ancho == null) {
+            return maxImageSize;
+        }
+        if (ancho < 1) {
+            throw new IllegalArgumentException("El ancho debe ser mayor que 0");
+        }
+        int acotado = Math.min(ancho, maxImageSize);
+        int redondeado = ((acotado + PASO_ANCHO - 1) / PASO_ANCHO) * PASO_ANCHO;
+        return Math.min(redondeado, maxImageSize);
+    }
+
+    /**
+     * Sin formato pedido se conserva el del original; si no se puede escribir (p. ej. GIF) se usa JPEG
+     */
+    private String formatoDelOriginal(String nombreOriginal, int punto) {
+        try {
+            return punto > 0 ? normalizarFormato(nombreOriginal.substring(punto + 1)) : "jpeg";
+        } catch (IllegalArgumentException e) {
+            return "jpeg";
+        }
+    }
+
+    private String normalizarFormato(String formato) {
+        String normalizado = formato.trim().toLowerCase(Locale.ROOT);
+        if (normalizado.equals("jpg")) {
+            normalizado = "jpeg";
+        }
+        if (!imageService.puedeEscribir(normalizado)) {
+            throw new IllegalArgumentException("Formato de imagen no soportado: " + formato);
+        }
+        return normalizado;
+    }
+
+    private Path esperar(CompletableFuture<Path> renderizado) throws IOException {
+        try {
+            return renderizado.join();
+        } catch (CompletionException e) {
+            Throwable causa = e.getCause();
+            if (causa instanceof IOException io) {
+                throw io;
+            }
+            if (causa instanceof RuntimeException runtime) {
+                throw runtime;
+            }
+            throw new IOException(causa);
+        }
+    }
+
+    private long modificado(Path archivo) {
+        try {
+            return Files.getLastModifiedTime(archivo).toMillis();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private void eliminarArchivo(String nombre) {
+        try {
+            Files.deleteIfExists(directorio.resolve(nombre));
+        } catch (IOException e) {
+            System.err.println("Error al eliminar versión en caché: " + e.getMessage());
+        }
+    }
+}
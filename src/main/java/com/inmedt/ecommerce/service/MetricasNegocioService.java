@@ -0,0 +1,60 @@
+package com.inmedt.ecommerce.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.math.BigDecimal;
+
+/**
+ * Contadores de negocio para Prometheus: pedidos (pedidos/min = rate(...[1m]) * 60), ingresos y
+ * rechazos por falta de stock
+ */
+@Service
+public class MetricasNegocioService {
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    /**
+     * Cuenta el pedido solo si la transacción del checkout se confirma
+     */
+    public void registrarPedido(BigDecimal total) {
+        Runnable registrar = () -> {
+            Counter.builder("inmedt.pedidos.creados")
+                    .description("Pedidos confirmados")
+                    .register(meterRegistry)
+                    .increment();
+            Counter.builder("inmedt.pedidos.ingresos")
+                    .description("Total facturado en pedidos confirmados (IVA y envío incluidos)")
+                    .baseUnit("usd")
+                    .register(meterRegistry)
+                    .increment(total.doubleValue());
+        };
+
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    registrar.run();
+                }
+            });
+        } else {
+            registrar.run();
+        }
+    }
+
+    /**
+     * @param origen "carrito" (al agregar o cambiar cantidades) o "checkout" (al reservar el stock)
+     */
+    public void registrarSinStock(String origen) {
+        Counter.builder("inmedt.stock.rechazos")
+                .description("Operaciones rechazadas por stock insuficiente")
+                .tag("origen", origen)
+                .register(meterRegistry)
+                .increment();
+    }
+}
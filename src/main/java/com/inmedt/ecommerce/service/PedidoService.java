@@ -1,22 +1,32 @@
 package com.inmedt.ecommerce.service;
 
+import com.inmedt.ecommerce.config.MetricsConfig;
 import com.inmedt.ecommerce.dto.CheckoutRequest;
+import com.inmedt.ecommerce.dto.CursorPageResponse;
+import com.inmedt.ecommerce.dto.PageCursor;
 import com.inmedt.ecommerce.dto.PedidoResponse;
 import com.inmedt.ecommerce.model.*;
 import com.inmedt.ecommerce.repository.*;
+import com.inmedt.ecommerce.security.CurrentUserContext;
+import io.micrometer.core.annotation.Timed;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
-import org.springframework.security.core.Authentication;
-import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
 import java.math.RoundingMode;
 import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
 import java.util.Arrays;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.TreeMap;
 import java.util.UUID;
 import java.util.stream.Collectors;
 
@@ -61,31 +71,41 @@ public class PedidoService {
     private CarritoItemRepository carritoItemRepository;
     
     @Autowired
-    private UserRepository userRepository;
+    private CurrentUserContext currentUserContext;
     
     @Autowired
     private UnidadDeVentaRepository unidadDeVentaRepository;
     
+    @Autowired
+    private CheckoutBatchRepository checkoutBatchRepository;
+    
+    @Autowired
+    private CatalogoCacheService catalogoCacheService;
+    
+    @Autowired
+    private MetricasNegocioService metricasNegocioService;
+    
+    @Timed(MetricsConfig.CHECKOUT)
     public PedidoResponse checkout(CheckoutRequest request) {
         User user = getCurrentUser();
-        Carrito carrito = carritoRepository.findByUser(user)
-                .orElseThrow(() -> new RuntimeException("Carrito no encontrado"));
+        Carrito carrito = currentUserContext.getCarrito();
         
-        List<CarritoItem> carritoItems = carritoItemRepository.findByCarrito(carrito);
+        // Items con su unidad, variante y producto en una sola consulta
+        List<CarritoItem> carritoItems = carritoItemRepository.findWithProductoByCarritoId(carrito.getId());
         
         if (carritoItems.isEmpty()) {
             throw new RuntimeException("El carrito está vacío");
         }
         
-        // Verificar stock disponible
-        for (CarritoItem item : carritoItems) {
-            if (item.getUnidadVenta().getStock() < item.getCantidad()) {
-                throw new RuntimeException("Stock insuficiente para: " + item.getUnidadVenta().getDescripcion());
-            }
-        }
+        // Reservar stock; si falta en alguna unidad la transacción se revierte completa
+        reservarStock(carritoItems);
+        
+        // Subtotal de los items que se cobran (no el total acumulado del carrito)
+        BigDecimal subtotal = carritoItems.stream()
+                .map(item -> item.getPrecioUnitario().multiply(BigDecimal.valueOf(item.getCantidad())))
+                .reduce(BigDecimal.ZERO, BigDecimal::add);
         
         // Calcular costo de envío
-        BigDecimal subtotal = carrito.getTotal();
         BigDecimal costoEnvio = calcularCostoEnvio(subtotal, request.getSector());
         
         // Calcular IVA (15% solo sobre el subtotal de productos)
@@ -105,29 +125,26 @@ public class PedidoService {
         
         Pedido savedPedido = pedidoRepository.save(pedido);
         
-        // Crear items del pedido y actualizar stock
-        for (CarritoItem carritoItem : carritoItems) {
-            PedidoItem pedidoItem = new PedidoItem(
-                carritoItem.getCantidad(),
-                carritoItem.getPrecioUnitario(),
-                savedPedido,
-                carritoItem.getUnidadVenta()
-            );
-            pedidoItemRepository.save(pedidoItem);
-            
-            // Actualizar stock
-            UnidadDeVenta unidadVenta = carritoItem.getUnidadVenta();
-            unidadVenta.setStock(unidadVenta.getStock() - carritoItem.getCantidad());
-            unidadDeVentaRepository.save(unidadVenta);
-        }
+        // Crear items del pedido (un único INSERT multi-fila)
+        checkoutBatchRepository.insertarItems(savedPedido.getId(), carritoItems);
         
-        // Limpiar carrito
-        carritoItemRepository.deleteByCarrito(carrito);
+        // El stock mostrado en la ficha de estos productos cambió
+        Set<Long> productoIds = carritoItems.stream()
+                .map(item -> item.getUnidadVenta().getVariante().getProducto().getId())
+                .collect(Collectors.toSet());
+        catalogoCacheService.evictStock(productoIds);
+        
+        // Limpiar carrito con un solo DELETE
+        carritoItemRepository.deleteAllByCarritoIdInBulk(carrito.getId());
         carrito.setTotal(BigDecimal.ZERO);
         carrito.setUpdatedAt(LocalDateTime.now());
         carritoRepository.save(carrito);
         
-        return convertToPedidoResponse(savedPedido);
+        metricasNegocioService.registrarPedido(total);
+        
+        // Items recién insertados con su unidad, variante y producto (ya cargadas con el carrito)
+        return convertToPedidoResponse(savedPedido,
+                pedidoItemRepository.findWithProductoByPedidoIdIn(List.of(savedPedido.getId())));
     }
     
     public Page<PedidoResponse> getPedidosByUser(Pageable pageable) {
@@ -136,6 +153,43 @@ public class PedidoService {
         return pedidos.map(this::convertToPedidoResponse);
     }
     
+    /**
+     * Pedidos del usuario paginados por cursor (keyset sobre createdAt DESC, id DESC), sin OFFSET ni COUNT
+     */
+    public CursorPageResponse<PedidoResponse> getPedidosByUserPorCursor(String cursor, int size) {
+        PageCursor.validarTamano(size);
+        PageCursor pageCursor = PageCursor.parse(cursor);
+        LocalDateTime cursorCreatedAt = null;
+        if (pageCursor != null) {
+            pageCursor.validarOrden("createdAt", true);
+            try {
+                cursorCreatedAt = LocalDateTime.parse(pageCursor.getValor());
+            } catch (DateTimeParseException e) {
+                throw new RuntimeException("Cursor de paginación inválido");
+            }
+        }
+        
+        Long userId = currentUserContext.getUserId();
+        Specification<Pedido> spec = (root, query, criteriaBuilder) ->
+                criteriaBuilder.equal(root.get("user").get("id"), userId);
+        
+        // Se pide un elemento extra para saber si hay página siguiente
+        List<Pedido> pedidos = pedidoRepository.findPageAfter(spec, cursorCreatedAt,
+                pageCursor != null ? pageCursor.getId() : null, size + 1);
+        
+        String nextCursor = null;
+        if (pedidos.size() > size) {
+            pedidos = pedidos.subList(0, size);
+            Pedido ultimo = pedidos.get(size - 1);
+            nextCursor = new PageCursor("createdAt", true, ultimo.getCreatedAt().toString(), ultimo.getId()).toToken();
+        }
+        
+        List<PedidoResponse> content = pedidos.stream()
+                .map(this::convertToPedidoResponse)
+                .collect(Collectors.toList());
+        return new CursorPageResponse<>(content, nextCursor, size);
+    }
+    
     public List<PedidoResponse> getAllPedidosByUser() {
         User user = getCurrentUser();
         List<Pedido> pedidos = pedidoRepository.findByUserOrderByCreatedAtDesc(user);
@@ -177,11 +231,38 @@ public class PedidoService {
         }
     }
     
+    /**
+     * Descuenta el stock de todas las unidades del carrito de forma atómica, de modo que dos checkouts
+     * concurrentes no puedan vender más de lo disponible. Las filas se bloquean ordenadas por id
+     * (sin deadlocks) y el descuento es un único UPDATE condicional (stock >= cantidad):
+     * dos sentencias sin importar el número de líneas.
+     */
+    private void reservarStock(List<CarritoItem> carritoItems) {
+        SortedMap<Long, Integer> cantidades = new TreeMap<>();
+        Map<Long, UnidadDeVenta> unidades = new HashMap<>();
+        for (CarritoItem item : carritoItems) {
+            UnidadDeVenta unidadVenta = item.getUnidadVenta();
+            cantidades.merge(unidadVenta.getId(), item.getCantidad(), Integer::sum);
+            unidades.put(unidadVenta.getId(), unidadVenta);
+        }
+        
+        Map<Long, Integer> stockActual = checkoutBatchRepository.bloquearStock(cantidades.keySet());
+        for (Map.Entry<Long, Integer> entry : cantidades.entrySet()) {
+            Integer stock = stockActual.get(entry.getKey());
+            if (stock == null || stock < entry.getValue()) {
+                metricasNegocioService.registrarSinStock("checkout");
+                throw new RuntimeException("Stock insuficiente para: " + unidades.get(entry.getKey()).getDescripcion());
+            }
+        }
+        
+        if (checkoutBatchRepository.descontarStock(cantidades) != cantidades.size()) {
+            metricasNegocioService.registrarSinStock("checkout");
+            throw new RuntimeException("Stock insuficiente para completar el pedido");
+        }
+    }
+    
     private User getCurrentUser() {
-        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
-        String email = authentication.getName();
-        return userRepository.findByEmail(email)
-                .orElseThrow(() -> new RuntimeException("Usuario no encontrado"));
+        return currentUserContext.getUser();
     }
     
     private String generateNumeroPedido() {
@@ -204,6 +285,10 @@ public class PedidoService {
     }
     
     private PedidoResponse convertToPedidoResponse(Pedido pedido) {
+        return convertToPedidoResponse(pedido, pedidoItemRepository.findByPedido(pedido));
+    }
+    
+    private PedidoResponse convertToPedidoResponse(Pedido pedido, List<PedidoItem> pedidoItems) {
         PedidoResponse response = new PedidoResponse(
             pedido.getId(),
             pedido.getNumeroPedido(),
@@ -224,7 +309,7 @@ public class PedidoService {
         response.setNotas(pedido.getNotas());
         response.setUpdatedAt(pedido.getUpdatedAt());
         
-        List<PedidoResponse.PedidoItemResponse> items = pedidoItemRepository.findByPedido(pedido)
+        List<PedidoResponse.PedidoItemResponse> items = pedidoItems
                 .stream()
                 .map(this::convertToPedidoItemResponse)
                 .collect(Collectors.toList());
@@ -1,6 +1,10 @@
 package com.inmedt.ecommerce.service;
 
+import com.inmedt.ecommerce.config.CacheConfig;
 import com.inmedt.ecommerce.dto.CategoriaResponse;
+import com.inmedt.ecommerce.dto.CursorPageResponse;
+import com.inmedt.ecommerce.dto.ImagenResponsiveResponse;
+import com.inmedt.ecommerce.dto.PageCursor;
 import com.inmedt.ecommerce.dto.ProductoResponse;
 import com.inmedt.ecommerce.model.Categoria;
 import com.inmedt.ecommerce.model.Producto;
@@ -9,19 +13,30 @@ import com.inmedt.ecommerce.model.VarianteProducto;
 import com.inmedt.ecommerce.repository.CategoriaRepository;
 import com.inmedt.ecommerce.repository.ProductoRepository;
 import com.inmedt.ecommerce.repository.UnidadDeVentaRepository;
+import com.inmedt.ecommerce.repository.VarianteProductoRepository;
+import jakarta.persistence.criteria.Predicate;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.annotation.Cacheable;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 import java.util.stream.Collectors;
 
 @Service
 @Transactional
 public class ProductoService {
     
+    // Orden por relevancia de la búsqueda de texto completo
+    public static final String ORDEN_RELEVANCIA = "relevancia";
+    
     @Autowired
     private ProductoRepository productoRepository;
     
@@ -31,26 +46,107 @@ public class ProductoService {
     @Autowired
     private UnidadDeVentaRepository unidadDeVentaRepository;
     
+    @Autowired
+    private VarianteProductoRepository varianteProductoRepository;
+    
+    @Autowired
+    private BusquedaProductoService busquedaProductoService;
+    
+    @Autowired
+    private ImageService imageService;
+    
+    @Cacheable(cacheNames = CacheConfig.PRODUCTOS_PAGINAS, key = "'todos:' + #pageable")
     public Page<ProductoResponse> getAllProductos(Pageable pageable) {
         Page<Producto> productos = productoRepository.findByActivoTrue(pageable);
-        return productos.map(this::convertToProductoResponse);
+        return toProductoResponsePage(productos);
     }
     
+    @Cacheable(cacheNames = CacheConfig.PRODUCTOS_PAGINAS, key = "'categoria:' + #categoriaId + ':' + #pageable")
     public Page<ProductoResponse> getProductosByCategoria(Long categoriaId, Pageable pageable) {
         Page<Producto> productos = productoRepository.findByActivoTrueAndCategoriaId(categoriaId, pageable);
-        return productos.map(this::convertToProductoResponse);
+        return toProductoResponsePage(productos);
     }
     
+    @Cacheable(cacheNames = CacheConfig.PRODUCTOS_PAGINAS, key = "'marca:' + #marca + ':' + #pageable")
     public Page<ProductoResponse> getProductosByMarca(String marca, Pageable pageable) {
         Page<Producto> productos = productoRepository.findByActivoTrueAndMarcaContainingIgnoreCase(marca, pageable);
-        return productos.map(this::convertToProductoResponse);
+        return toProductoResponsePage(productos);
     }
     
+    @Cacheable(cacheNames = CacheConfig.PRODUCTOS_PAGINAS, key = "'buscar:' + #search + ':' + #pageable")
     public Page<ProductoResponse> searchProductos(String search, Pageable pageable) {
-        Page<Producto> productos = productoRepository.findByActivoTrueAndSearchTerm(search, pageable);
-        return productos.map(this::convertToProductoResponse);
+        boolean porRelevancia = pageable.getSort().getOrderFor(ORDEN_RELEVANCIA) != null;
+        String tsquery = busquedaProductoService.isDisponible() ? busquedaProductoService.toTsQuery(search) : null;
+        
+        Page<Producto> productos;
+        if (tsquery != null && porRelevancia) {
+            productos = productoRepository.searchFullTextByRelevancia(tsquery,
+                    PageRequest.of(pageable.getPageNumber(), pageable.getPageSize()));
+        } else if (tsquery != null) {
+            productos = productoRepository.searchFullText(tsquery, pageable);
+        } else {
+            // Sin índice de texto completo: búsqueda LIKE original (ordenada por nombre en lugar de relevancia)
+            Pageable likePageable = porRelevancia
+                    ? PageRequest.of(pageable.getPageNumber(), pageable.getPageSize(), Sort.by("nombre"))
+                    : pageable;
+            productos = productoRepository.findByActivoTrueAndSearchTerm(search, likePageable);
+        }
+        return toProductoResponsePage(productos);
     }
     
+    /**
+     * Listado del catálogo paginado por cursor (keyset): sin OFFSET ni COUNT, el costo de cada
+     * página no depende de su profundidad. Filtros opcionales por categoría y marca.
+     */
+    @Cacheable(cacheNames = CacheConfig.PRODUCTOS_PAGINAS,
+               key = "'cursor:' + #categoriaId + ':' + #marca + ':' + #sortBy + ':' + #descendente + ':' + #cursor + ':' + #size")
+    public CursorPageResponse<ProductoResponse> getProductosPorCursor(Long categoriaId, String marca, String sortBy,
+                                                                      boolean descendente, String cursor, int size) {
+        PageCursor.validarTamano(size);
+        PageCursor pageCursor = PageCursor.parse(cursor);
+        if (pageCursor != null) {
+            pageCursor.validarOrden(sortBy, descendente);
+        }
+        
+        Specification<Producto> spec = (root, query, criteriaBuilder) -> {
+            List<Predicate> predicates = new ArrayList<>();
+            predicates.add(criteriaBuilder.isTrue(root.get("activo")));
+            
+            if (categoriaId != null) {
+                predicates.add(criteriaBuilder.equal(root.get("categoria").get("id"), categoriaId));
+            }
+            
+            if (marca != null && !marca.trim().isEmpty()) {
+                predicates.add(criteriaBuilder.like(criteriaBuilder.lower(root.get("marca")),
+                        "%" + marca.toLowerCase() + "%"));
+            }
+            
+            return criteriaBuilder.and(predicates.toArray(new Predicate[0]));
+        };
+        
+        // Se pide un elemento extra para saber si hay página siguiente
+        List<Producto> productos = productoRepository.findPageAfter(spec, sortBy, descendente,
+                pageCursor != null ? pageCursor.getValor() : null,
+                pageCursor != null ? pageCursor.getId() : null,
+                size + 1);
+        
+        String nextCursor = null;
+        if (productos.size() > size) {
+            productos = productos.subList(0, size);
+            Producto ultimo = productos.get(size - 1);
+            String valor = "id".equals(sortBy) ? String.valueOf(ultimo.getId()) : ultimo.getNombre();
+            nextCursor = new PageCursor(sortBy, descendente, valor, ultimo.getId()).toToken();
+        }
+        
+        precargarAsociaciones(productos);
+        Map<String, ImagenResponsiveResponse> responsive = cargarImagenesResponsive(productos);
+        List<ProductoResponse> content = productos.stream()
+                .map(producto -> convertToProductoResponse(producto, responsive))
+                .collect(Collectors.toList());
+        return new CursorPageResponse<>(content, nextCursor, size);
+    }
+    
+    @Cacheable(cacheNames = CacheConfig.PRODUCTOS, key = "#id")
     public ProductoResponse getProductoById(Long id) {
         Producto producto = productoRepository.findById(id)
                 .orElseThrow(() -> new RuntimeException("Producto no encontrado"));
@@ -59,9 +155,10 @@ public class ProductoService {
             throw new RuntimeException("Producto no disponible");
         }
         
-        return convertToProductoResponse(producto);
+        return convertToProductoResponse(producto, cargarImagenesResponsive(List.of(producto)));
     }
     
+    @Cacheable(cacheNames = CacheConfig.CATEGORIAS, key = "'activas'")
     public List<CategoriaResponse> getAllCategorias() {
         List<Categoria> categorias = categoriaRepository.findByActivaTrueOrderByNombreAsc();
         return categorias.stream()
@@ -69,6 +166,7 @@ public class ProductoService {
                 .collect(Collectors.toList());
     }
     
+    @Cacheable(cacheNames = CacheConfig.CATEGORIAS, key = "'id:' + #id")
     public CategoriaResponse getCategoriaById(Long id) {
         Categoria categoria = categoriaRepository.findById(id)
                 .orElseThrow(() -> new RuntimeException("Categoría no encontrada"));
@@ -80,7 +178,46 @@ public class ProductoService {
         return convertToCategoriaResponse(categoria);
     }
     
-    private ProductoResponse convertToProductoResponse(Producto producto) {
+    /**
+     * Convierte una página de productos cargando antes, en lote, su categoría, variantes,
+     * unidades de venta y galería. Así la página cuesta un número fijo de consultas
+     * (conteo + página + 4, incluyendo las versiones responsive de las imágenes) sin importar
+     * su tamaño, en lugar de una por cada asociación lazy.
+     */
+    private Page<ProductoResponse> toProductoResponsePage(Page<Producto> productos) {
+        precargarAsociaciones(productos.getContent());
+        Map<String, ImagenResponsiveResponse> responsive = cargarImagenesResponsive(productos.getContent());
+        return productos.map(producto -> convertToProductoResponse(producto, responsive));
+    }
+    
+    private void precargarAsociaciones(List<Producto> productos) {
+        List<Long> ids = productos.stream()
+                .map(Producto::getId)
+                .collect(Collectors.toList());
+        
+        if (!ids.isEmpty()) {
+            // Las entidades ya están en el contexto de persistencia: estas consultas solo inicializan sus asociaciones
+            productoRepository.findWithCategoriaAndVariantesByIdIn(ids);
+            varianteProductoRepository.findWithUnidadesVentaByProductoIdIn(ids);
+            productoRepository.findWithImagenesGaleriaByIdIn(ids);
+        }
+    }
+    
+    /**
+     * Versiones responsive de la imagen principal y la galería de todos los productos, en una consulta
+     */
+    private Map<String, ImagenResponsiveResponse> cargarImagenesResponsive(List<Producto> productos) {
+        List<String> urls = new ArrayList<>();
+        for (Producto producto : productos) {
+            urls.add(producto.getImagenPrincipal());
+            if (producto.getImagenesGaleria() != null) {
+                urls.addAll(producto.getImagenesGaleria());
+            }
+        }
+        return imageService.getImagenesResponsive(urls);
+    }
+    
+    private ProductoResponse convertToProductoResponse(Producto producto, Map<String, ImagenResponsiveResponse> responsive) {
         ProductoResponse response = new ProductoResponse(
             producto.getId(),
             producto.getNombre(),
@@ -97,6 +234,16 @@ public class ProductoService {
         response.setImagenThumbnail(producto.getImagenThumbnail());
         response.setImagenesGaleria(producto.getImagenesGaleria());
         
+        // Versiones por ancho y formato para srcset (null si la imagen no tiene)
+        if (producto.getImagenPrincipal() != null) {
+            response.setImagenPrincipalResponsive(responsive.get(producto.getImagenPrincipal()));
+        }
+        if (producto.getImagenesGaleria() != null) {
+            response.setImagenesGaleriaResponsive(producto.getImagenesGaleria().stream()
+                    .map(responsive::get)
+                    .collect(Collectors.toList()));
+        }
+        
         // Convertir variantes
         List<ProductoResponse.VarianteResponse> variantes = producto.getVariantes().stream()
                 .filter(VarianteProducto::getActiva)
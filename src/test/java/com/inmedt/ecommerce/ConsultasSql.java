@@ -0,0 +1,106 @@
+package com.inmedt.ecommerce;
+
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.Statement;
+
+import static org.junit.jupiter.api.Assertions.fail;
+
+/**
+ * Cuenta los viajes a la base de datos (execute* sobre un Statement de JDBC) que hace una acción en el hilo actual.
+ * A diferencia de SqlStatementCounter, que solo ve las sentencias de Hibernate, incluye las de JdbcTemplate
+ * (bloqueo de stock, INSERT multi-fila), por ejemplo:
+ * {@code ConsultasSql.verificarMaximo(4, () -> mockMvc.perform(get("/carrito")))}
+ */
+public final class ConsultasSql {
+
+    private static final ThreadLocal<int[]> CONTEO = new ThreadLocal<>();
+
+    private ConsultasSql() {}
+
+    public static int contar(Accion accion) throws Exception {
+        int[] anterior = CONTEO.get();
+        int[] conteo = {0};
+        CONTEO.set(conteo);
+        try {
+            accion.ejecutar();
+        } finally {
+            CONTEO.set(anterior);
+            if (anterior != null) {
+                anterior[0] += conteo[0];
+            }
+        }
+        return conteo[0];
+    }
+
+    /**
+     * Falla la prueba si la acción hace más de {@code maximo} viajes a la base de datos
+     * @return viajes realizados
+     */
+    public static int verificarMaximo(int maximo, Accion accion) throws Exception {
+        int sentencias = contar(accion);
+        if (sentencias > maximo) {
+            fail("Se esperaban como máximo " + maximo + " sentencias SQL y se ejecutaron " + sentencias);
+        }
+        return sentencias;
+    }
+
+    @FunctionalInterface
+    public interface Accion {
+        void ejecutar() throws Exception;
+    }
+
+    /**
+     * Envuelve el DataSource de la aplicación para contar las ejecuciones de sus Statement
+     */
+    @TestConfiguration
+    public static class Configuracion {
+
+        @Bean
+        static BeanPostProcessor contadorDeSentencias() {
+            return new BeanPostProcessor() {
+                @Override
+                public Object postProcessAfterInitialization(Object bean, String beanName) {
+                    return bean instanceof DataSource dataSource ? envolver(dataSource, DataSource.class) : bean;
+                }
+            };
+        }
+    }
+
+    private static Object envolver(Object destino, Class<?> tipo) {
+        InvocationHandler handler = (proxy, method, args) -> {
+            Object resultado = invocar(destino, method, args);
+            if (resultado instanceof Connection connection) {
+                return envolver(connection, Connection.class);
+            }
+            if (resultado instanceof Statement statement) {
+                // createStatement, prepareStatement o prepareCall: mismo tipo que declara el método
+                return envolver(statement, method.getReturnType());
+            }
+            if (method.getName().startsWith("execute") && destino instanceof Statement) {
+                int[] conteo = CONTEO.get();
+                if (conteo != null) {
+                    conteo[0]++;
+                }
+            }
+            return resultado;
+        };
+        return Proxy.newProxyInstance(ConsultasSql.class.getClassLoader(), new Class<?>[]{tipo}, handler);
+    }
+
+    private static Object invocar(Object destino, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(destino, args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+}
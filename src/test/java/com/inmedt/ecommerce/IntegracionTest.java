@@ -0,0 +1,172 @@
+package com.inmedt.ecommerce;
+
+import com.inmedt.ecommerce.model.Carrito;
+import com.inmedt.ecommerce.model.CarritoItem;
+import com.inmedt.ecommerce.model.Categoria;
+import com.inmedt.ecommerce.model.Producto;
+import com.inmedt.ecommerce.model.UnidadDeVenta;
+import com.inmedt.ecommerce.model.User;
+import com.inmedt.ecommerce.model.VarianteProducto;
+import com.inmedt.ecommerce.repository.CarritoItemRepository;
+import com.inmedt.ecommerce.repository.CarritoRepository;
+import com.inmedt.ecommerce.repository.CategoriaRepository;
+import com.inmedt.ecommerce.repository.ProductoRepository;
+import com.inmedt.ecommerce.repository.UnidadDeVentaRepository;
+import com.inmedt.ecommerce.repository.UserRepository;
+import com.inmedt.ecommerce.repository.VarianteProductoRepository;
+import com.inmedt.ecommerce.security.JwtUtil;
+import com.inmedt.ecommerce.security.UserPrincipalCache;
+import org.junit.jupiter.api.extension.ConditionEvaluationResult;
+import org.junit.jupiter.api.extension.ExecutionCondition;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.extension.ExtensionContext;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+import org.testcontainers.DockerClientFactory;
+import org.testcontainers.containers.PostgreSQLContainer;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Base de las pruebas de integración: la aplicación completa contra PostgreSQL (búsqueda de texto completo,
+ * FOR UPDATE y los INSERT multi-fila no se pueden probar con una base en memoria).
+ * Usa TEST_DATABASE_URL (y TEST_DATABASE_USERNAME / TEST_DATABASE_PASSWORD) si está definida; si no,
+ * levanta un contenedor con Testcontainers. Sin ninguna de las dos, las pruebas se omiten.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+@Import(ConsultasSql.Configuracion.class)
+@ExtendWith(IntegracionTest.BaseDeDatosDisponible.class)
+public abstract class IntegracionTest {
+
+    private static final String URL = System.getenv("TEST_DATABASE_URL");
+
+    private static PostgreSQLContainer<?> postgres;
+
+    @Autowired
+    protected MockMvc mockMvc;
+
+    @Autowired
+    protected JwtUtil jwtUtil;
+
+    @Autowired
+    protected UserPrincipalCache userPrincipalCache;
+
+    @Autowired
+    protected UserRepository userRepository;
+
+    @Autowired
+    protected CarritoRepository carritoRepository;
+
+    @Autowired
+    protected CarritoItemRepository carritoItemRepository;
+
+    @Autowired
+    protected CategoriaRepository categoriaRepository;
+
+    @Autowired
+    protected ProductoRepository productoRepository;
+
+    @Autowired
+    protected VarianteProductoRepository varianteProductoRepository;
+
+    @Autowired
+    protected UnidadDeVentaRepository unidadDeVentaRepository;
+
+    @DynamicPropertySource
+    static void baseDeDatos(DynamicPropertyRegistry registry) {
+        if (URL != null) {
+            registry.add("spring.datasource.url", () -> URL);
+            registry.add("spring.datasource.username", () -> System.getenv().getOrDefault("TEST_DATABASE_USERNAME", "postgres"));
+            registry.add("spring.datasource.password", () -> System.getenv().getOrDefault("TEST_DATABASE_PASSWORD", ""));
+            return;
+        }
+        PostgreSQLContainer<?> contenedor = contenedor();
+        registry.add("spring.datasource.url", contenedor::getJdbcUrl);
+        registry.add("spring.datasource.username", contenedor::getUsername);
+        registry.add("spring.datasource.password", contenedor::getPassword);
+    }
+
+    // Un solo contenedor para todas las clases: comparten el mismo contexto de Spring
+    private static synchronized PostgreSQLContainer<?> contenedor() {
+        if (postgres == null) {
+            postgres = new PostgreSQLContainer<>("postgres:16-alpine");
+            postgres.start();
+        }
+        return postgres;
+    }
+
+    /**
+     * Cliente nuevo (email único) con su carrito ya creado
+     */
+    protected User crearCliente() {
+        User user = new User("Cliente de prueba", "cliente-" + UUID.randomUUID() + "@inmedt.com", "password", "1712345678");
+        user.setRole(User.Role.ROLE_CLIENTE);
+        user = userRepository.save(user);
+        carritoRepository.save(new Carrito(user));
+        return user;
+    }
+
+    /**
+     * Agrega al carrito del usuario {@code cantidad} de cada unidad y actualiza el total
+     */
+    protected void llenarCarrito(User user, List<UnidadDeVenta> unidades, int cantidad) {
+        Carrito carrito = carritoRepository.findByUserId(user.getId()).orElseThrow();
+        BigDecimal total = carrito.getTotal();
+        for (UnidadDeVenta unidad : unidades) {
+            total = total.add(carritoItemRepository.save(new CarritoItem(cantidad, unidad.getPrecio(), carrito, unidad)).getSubtotal());
+        }
+        carrito.setTotal(total);
+        carritoRepository.save(carrito);
+    }
+
+    /**
+     * Token del usuario con su principal ya en caché, como tras su primera petición: los conteos de sentencias
+     * miden el endpoint y no la verificación de la versión del token
+     */
+    protected String token(User user) {
+        String jwt = jwtUtil.generateToken(user);
+        userPrincipalCache.getPrincipal(jwtUtil.parseToken(jwt));
+        return "Bearer " + jwt;
+    }
+
+    /**
+     * Productos nuevos de una categoría propia, cada uno con una variante y una unidad de venta
+     * @return las unidades de venta, una por producto
+     */
+    protected List<UnidadDeVenta> crearUnidades(int cantidad, BigDecimal precio, int stock) {
+        Categoria categoria = categoriaRepository.save(new Categoria("Categoría " + UUID.randomUUID(), "Categoría de prueba"));
+        List<UnidadDeVenta> unidades = new ArrayList<>();
+        for (int i = 0; i < cantidad; i++) {
+            Producto producto = productoRepository.save(new Producto("Jeringa desechable " + i, "Jeringa estéril de uso único",
+                    "Marca " + (i % 5), categoria, true));
+            VarianteProducto variante = varianteProductoRepository.save(new VarianteProducto("5 ml", "Presentación de 5 ml", producto));
+            unidades.add(unidadDeVentaRepository.save(new UnidadDeVenta("SKU-" + UUID.randomUUID(), "Caja x 100 Unidades",
+                    precio, stock, variante)));
+        }
+        return unidades;
+    }
+
+    static class BaseDeDatosDisponible implements ExecutionCondition {
+
+        @Override
+        public ConditionEvaluationResult evaluateExecutionCondition(ExtensionContext context) {
+            if (URL != null) {
+                return ConditionEvaluationResult.enabled("TEST_DATABASE_URL=" + URL);
+            }
+            return DockerClientFactory.instance().isDockerAvailable()
+                    ? ConditionEvaluationResult.enabled("PostgreSQL con Testcontainers")
+                    : ConditionEvaluationResult.disabled("Sin TEST_DATABASE_URL ni Docker: se omiten las pruebas de integración");
+        }
+    }
+}
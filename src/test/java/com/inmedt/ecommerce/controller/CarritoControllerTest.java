@@ -0,0 +1,153 @@
+package com.inmedt.ecommerce.controller;
+
+import com.inmedt.ecommerce.ConsultasSql;
+import com.inmedt.ecommerce.IntegracionTest;
+import com.inmedt.ecommerce.model.Carrito;
+import com.inmedt.ecommerce.model.CarritoItem;
+import com.inmedt.ecommerce.model.UnidadDeVenta;
+import com.inmedt.ecommerce.model.User;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+class CarritoControllerTest extends IntegracionTest {
+
+    // Carrito (por usuario) + items con unidad, variante y producto
+    private static final int SENTENCIAS_GET_CARRITO = 2;
+
+    // Carrito, items, unidad de venta nueva, INSERT del item y UPDATE ... RETURNING del total
+    private static final int SENTENCIAS_AGREGAR = 5;
+
+    // Carrito, items, UPDATE o DELETE del item y UPDATE ... RETURNING del total
+    private static final int SENTENCIAS_MODIFICAR = 4;
+
+    @Test
+    void getCarritoNoDependeDelNumeroDeItems() throws Exception {
+        String conUnItem = token(clienteConItems(1));
+        String conVeinteItems = token(clienteConItems(20));
+
+        int sentenciasUnItem = ConsultasSql.verificarMaximo(SENTENCIAS_GET_CARRITO, () -> mockMvc
+                .perform(get("/carrito").header("Authorization", conUnItem))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.items.length()").value(1)));
+        int sentenciasVeinteItems = ConsultasSql.verificarMaximo(SENTENCIAS_GET_CARRITO, () -> mockMvc
+                .perform(get("/carrito").header("Authorization", conVeinteItems))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.items.length()").value(20)));
+
+        assertEquals(sentenciasUnItem, sentenciasVeinteItems);
+    }
+
+    @Test
+    void cambiosDelCarritoNoDependenDelNumeroDeItems() throws Exception {
+        int[] unItem = sentenciasPorOperacion(clienteConItems(1));
+        int[] veinteItems = sentenciasPorOperacion(clienteConItems(20));
+        
+        assertArrayEquals(unItem, veinteItems);
+    }
+
+    /**
+     * Agregados simultáneos al mismo carrito, la mitad de la misma unidad de venta: no se pierde ninguna
+     * cantidad y el total guardado coincide con la suma de los items
+     */
+    @Test
+    void agregarEnParaleloNoPierdeCambiosDelCarrito() throws Exception {
+        User user = crearCliente();
+        String token = token(user);
+        List<UnidadDeVenta> unidades = crearUnidades(8, new BigDecimal("10.00"), 100);
+        UnidadDeVenta repetida = unidades.get(0);
+        List<UnidadDeVenta> pedidas = new ArrayList<>(unidades);
+        for (int i = 0; i < unidades.size(); i++) {
+            pedidas.add(repetida);
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(pedidas.size());
+        try {
+            CountDownLatch salida = new CountDownLatch(1);
+            List<Future<Integer>> respuestas = new ArrayList<>();
+            for (UnidadDeVenta unidad : pedidas) {
+                respuestas.add(executor.submit(() -> {
+                    salida.await();
+                    return mockMvc.perform(agregar(token, unidad.getId(), 2)).andReturn().getResponse().getStatus();
+                }));
+            }
+            salida.countDown();
+            for (Future<Integer> respuesta : respuestas) {
+                assertEquals(200, respuesta.get(30, TimeUnit.SECONDS));
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        // 16 agregados x 2 x 10.00, 9 de ellos (18 unidades) de la unidad repetida
+        Carrito carrito = carritoRepository.findByUserId(user.getId()).orElseThrow();
+        List<CarritoItem> items = carritoItemRepository.findByCarritoId(carrito.getId());
+        assertEquals(unidades.size(), items.size());
+        assertEquals(18, items.stream()
+                .filter(item -> item.getUnidadVenta().getId().equals(repetida.getId()))
+                .mapToInt(CarritoItem::getCantidad)
+                .sum());
+        BigDecimal sumaItems = items.stream().map(CarritoItem::getSubtotal).reduce(BigDecimal.ZERO, BigDecimal::add);
+        assertEquals(new BigDecimal("320.00"), sumaItems);
+        assertEquals(sumaItems, carrito.getTotal());
+    }
+
+    /**
+     * Sentencias de agregar un producto nuevo, sumar al existente, cambiar la cantidad y eliminar un item
+     */
+    private int[] sentenciasPorOperacion(User user) throws Exception {
+        String token = token(user);
+        Carrito carrito = carritoRepository.findByUserId(user.getId()).orElseThrow();
+        CarritoItem existente = carritoItemRepository.findByCarritoId(carrito.getId()).get(0);
+        UnidadDeVenta nueva = crearUnidades(1, new BigDecimal("8.00"), 100).get(0);
+        
+        return new int[]{
+                ConsultasSql.verificarMaximo(SENTENCIAS_AGREGAR, () -> mockMvc
+                        .perform(agregar(token, nueva.getId(), 1))
+                        .andExpect(status().isOk())),
+                ConsultasSql.verificarMaximo(SENTENCIAS_MODIFICAR, () -> mockMvc
+                        .perform(agregar(token, nueva.getId(), 1))
+                        .andExpect(status().isOk())),
+                ConsultasSql.verificarMaximo(SENTENCIAS_MODIFICAR, () -> mockMvc
+                        .perform(put("/carrito/items/" + existente.getId())
+                                .header("Authorization", token)
+                                .contentType(MediaType.APPLICATION_JSON)
+                                .content("{\"cantidad\": 3}"))
+                        .andExpect(status().isOk())),
+                ConsultasSql.verificarMaximo(SENTENCIAS_MODIFICAR, () -> mockMvc
+                        .perform(delete("/carrito/items/" + existente.getId()).header("Authorization", token))
+                        .andExpect(status().isOk()))
+        };
+    }
+
+    private MockHttpServletRequestBuilder agregar(String token, Long unidadVentaId, int cantidad) {
+        return post("/carrito/items")
+                .header("Authorization", token)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"unidadVentaId\": " + unidadVentaId + ", \"cantidad\": " + cantidad + "}");
+    }
+
+    private User clienteConItems(int cantidad) {
+        User user = crearCliente();
+        llenarCarrito(user, crearUnidades(cantidad, new BigDecimal("12.50"), 100), 1);
+        return user;
+    }
+}
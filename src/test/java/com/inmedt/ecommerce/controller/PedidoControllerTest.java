@@ -0,0 +1,208 @@
+package com.inmedt.ecommerce.controller;
+
+import com.inmedt.ecommerce.ConsultasSql;
+import com.inmedt.ecommerce.IntegracionTest;
+import com.inmedt.ecommerce.config.CacheConfig;
+import com.inmedt.ecommerce.model.UnidadDeVenta;
+import com.inmedt.ecommerce.model.User;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.Cache;
+import org.springframework.cache.caffeine.CaffeineCache;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+class PedidoControllerTest extends IntegracionTest {
+
+    // Carrito, items, bloqueo y descuento de stock, INSERT del pedido y de sus items, DELETE de los items del
+    // carrito, UPDATE del carrito, items del pedido con su producto y, para la respuesta, el usuario (que carga
+    // también su carrito: la relación uno a uno inversa no es perezosa)
+    private static final int SENTENCIAS_CHECKOUT = 11;
+
+    private static final int REPETICIONES = 5;
+
+    @Autowired
+    private CaffeineCacheManager caffeineCacheManager;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    /**
+     * Viajes a la base de datos y latencia del checkout con carritos de 1, 10 y 50 líneas: los viajes no
+     * dependen del número de líneas (bloqueo, descuento e INSERT de items son una sentencia cada uno)
+     */
+    @Test
+    void checkoutHaceLosMismosViajesConUnaDiezYCincuentaLineas() throws Exception {
+        Map<Integer, Integer> sentenciasPorLineas = new TreeMap<>();
+        for (int lineas : new int[]{1, 10, 50}) {
+            // La primera ejecución calienta el camino (JIT, caché de sentencias): no se mide su latencia
+            sentenciasPorLineas.put(lineas, (int) checkout(lineas)[0]);
+
+            long nanos = 0;
+            for (int i = 0; i < REPETICIONES; i++) {
+                long[] medicion = checkout(lineas);
+                assertEquals(sentenciasPorLineas.get(lineas), (int) medicion[0]);
+                nanos += medicion[1];
+            }
+            System.out.printf("📊 Checkout con %d líneas: %d sentencias SQL, %.1f ms de media%n",
+                    lineas, sentenciasPorLineas.get(lineas), nanos / 1_000_000.0 / REPETICIONES);
+        }
+
+        assertEquals(Map.of(1, SENTENCIAS_CHECKOUT, 10, SENTENCIAS_CHECKOUT, 50, SENTENCIAS_CHECKOUT), sentenciasPorLineas);
+    }
+
+    /**
+     * Tras el checkout, la ficha y las páginas (offset y cursor) que contienen el producto comprado muestran
+     * el stock nuevo; las páginas sin él siguen en caché
+     */
+    @Test
+    void checkoutInvalidaLaFichaYLasPaginasDeLosProductosComprados() throws Exception {
+        User user = crearCliente();
+        List<UnidadDeVenta> unidades = crearUnidades(2, new BigDecimal("12.50"), 100);
+        llenarCarrito(user, unidades.subList(0, 1), 3);
+        Long comprado = unidades.get(0).getVariante().getProducto().getId();
+        Long otro = unidades.get(1).getVariante().getProducto().getId();
+        Long otraCategoria = crearUnidades(1, new BigDecimal("12.50"), 100).get(0).getVariante().getProducto().getCategoria().getId();
+
+        // Los productos más nuevos primero: la página incluye el comprado
+        MockHttpServletRequestBuilder pagina = get("/productos").param("sortBy", "id").param("sortDir", "desc");
+        MockHttpServletRequestBuilder paginaCursor = get("/productos").param("cursor", "").param("sortBy", "id").param("sortDir", "desc");
+        String stockComprado = "$.content[?(@.id == " + comprado + ")].variantes[0].unidadesVenta[0].stock";
+        mockMvc.perform(get("/productos/" + comprado)).andExpect(status().isOk());
+        mockMvc.perform(get("/productos/" + otro)).andExpect(status().isOk());
+        mockMvc.perform(pagina).andExpect(jsonPath(stockComprado).value(100));
+        mockMvc.perform(paginaCursor).andExpect(jsonPath(stockComprado).value(100));
+        mockMvc.perform(get("/productos/categoria/" + otraCategoria)).andExpect(status().isOk());
+        Cache productos = caffeineCacheManager.getCache(CacheConfig.PRODUCTOS);
+        CaffeineCache paginas = (CaffeineCache) caffeineCacheManager.getCache(CacheConfig.PRODUCTOS_PAGINAS);
+        assertNotNull(productos.get(comprado));
+
+        mockMvc.perform(checkoutRequest(token(user))).andExpect(status().isOk());
+
+        assertNull(productos.get(comprado));
+        assertNotNull(productos.get(otro));
+        assertTrue(paginas.getNativeCache().asMap().keySet().stream()
+                .anyMatch(clave -> clave.toString().startsWith("categoria:" + otraCategoria + ":")));
+        mockMvc.perform(pagina).andExpect(jsonPath(stockComprado).value(97));
+        mockMvc.perform(paginaCursor).andExpect(jsonPath(stockComprado).value(97));
+        mockMvc.perform(get("/productos/" + comprado))
+                .andExpect(jsonPath("$.variantes[0].unidadesVenta[0].stock").value(97));
+    }
+
+    /**
+     * Más clientes que stock comprando a la vez la misma unidad (junto con otra con stock de sobra, en distinto
+     * orden en cada carrito): se confirman exactamente tantos pedidos como unidades había y el stock nunca baja de 0
+     */
+    @Test
+    void checkoutsSimultaneosNoVendenMasQueElStock() throws Exception {
+        int stock = 5;
+        int clientes = 20;
+        List<UnidadDeVenta> unidades = crearUnidades(2, new BigDecimal("12.50"), stock);
+        UnidadDeVenta escasa = unidades.get(0);
+        UnidadDeVenta abundante = unidades.get(1);
+        jdbcTemplate.update("UPDATE unidades_venta SET stock = 1000 WHERE id = ?", abundante.getId());
+
+        List<String> tokens = new ArrayList<>();
+        for (int i = 0; i < clientes; i++) {
+            User user = crearCliente();
+            llenarCarrito(user, i % 2 == 0 ? List.of(escasa, abundante) : List.of(abundante, escasa), 1);
+            tokens.add(token(user));
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(clientes + 1);
+        AtomicInteger stockMinimo = new AtomicInteger(Integer.MAX_VALUE);
+        AtomicBoolean terminado = new AtomicBoolean();
+        try {
+            // Lee el stock mientras corren los checkouts
+            Future<?> monitor = executor.submit(() -> {
+                while (!terminado.get()) {
+                    stockMinimo.accumulateAndGet(stockDe(escasa), Math::min);
+                }
+            });
+
+            CountDownLatch salida = new CountDownLatch(1);
+            List<Future<Integer>> respuestas = new ArrayList<>();
+            for (String token : tokens) {
+                respuestas.add(executor.submit(() -> {
+                    salida.await();
+                    return mockMvc.perform(checkoutRequest(token)).andReturn().getResponse().getStatus();
+                }));
+            }
+            salida.countDown();
+
+            int confirmados = 0;
+            for (Future<Integer> respuesta : respuestas) {
+                int status = respuesta.get(60, TimeUnit.SECONDS);
+                assertTrue(status == 200 || status == 400, "Respuesta inesperada: " + status);
+                confirmados += status == 200 ? 1 : 0;
+            }
+            terminado.set(true);
+            monitor.get(10, TimeUnit.SECONDS);
+
+            assertEquals(stock, confirmados);
+        } finally {
+            terminado.set(true);
+            executor.shutdownNow();
+        }
+
+        assertEquals(0, stockDe(escasa));
+        assertTrue(stockMinimo.get() >= 0, "Stock negativo: " + stockMinimo.get());
+        assertEquals(1000 - stock, stockDe(abundante));
+        assertEquals(stock, jdbcTemplate.queryForObject(
+                "SELECT COALESCE(SUM(cantidad), 0) FROM pedido_items WHERE unidad_venta_id = ?", Integer.class, escasa.getId()));
+    }
+
+    private int stockDe(UnidadDeVenta unidad) {
+        return jdbcTemplate.queryForObject("SELECT stock FROM unidades_venta WHERE id = ?", Integer.class, unidad.getId());
+    }
+
+    /**
+     * Checkout de un cliente nuevo con {@code lineas} productos distintos en el carrito
+     * @return sentencias SQL ejecutadas y duración en nanosegundos (sin preparar los datos)
+     */
+    private long[] checkout(int lineas) throws Exception {
+        User user = crearCliente();
+        llenarCarrito(user, crearUnidades(lineas, new BigDecimal("12.50"), 100), 2);
+        String token = token(user);
+
+        long inicio = System.nanoTime();
+        int sentencias = ConsultasSql.contar(() -> mockMvc
+                .perform(checkoutRequest(token))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.items.length()").value(lineas))
+                .andExpect(jsonPath("$.subtotal").value(25.0 * lineas)));
+        return new long[]{sentencias, System.nanoTime() - inicio};
+    }
+
+    static MockHttpServletRequestBuilder checkoutRequest(String token) {
+        return post("/pedidos/checkout")
+                .header("Authorization", token)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"direccionEnvio\": \"Av. Amazonas y Naciones Unidas\", \"ciudad\": \"Quito\", " +
+                         "\"sector\": \"Iñaquito\", \"telefonoContacto\": \"0991234567\"}");
+    }
+}
@@ -0,0 +1,75 @@
+package com.inmedt.ecommerce.controller;
+
+import com.inmedt.ecommerce.IntegracionTest;
+import com.inmedt.ecommerce.model.Categoria;
+import com.inmedt.ecommerce.model.Producto;
+import com.inmedt.ecommerce.model.UnidadDeVenta;
+import com.inmedt.ecommerce.model.VarianteProducto;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+class ProductoControllerTest extends IntegracionTest {
+
+    // Conteo, página, categoría con variantes, unidades de venta, galería y versiones responsive de las imágenes
+    private static final int SENTENCIAS_PAGINA = 6;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    /**
+     * Sentencias preparadas por Hibernate (estadísticas de la SessionFactory) para páginas del catálogo de 1, 10
+     * y 50 productos, cada uno con dos variantes y galería: las asociaciones se cargan en lote, no por producto
+     */
+    @Test
+    void paginaDelCatalogoNoDependeDelNumeroDeProductos() throws Exception {
+        Statistics estadisticas = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+
+        Map<Integer, Long> sentenciasPorTamano = new TreeMap<>();
+        for (int productos : new int[]{1, 10, 50}) {
+            // Categoría nueva en cada página: la respuesta no puede salir de la caché del catálogo
+            Long categoriaId = crearCategoriaConProductos(productos);
+
+            estadisticas.clear();
+            mockMvc.perform(get("/productos/categoria/" + categoriaId).param("size", String.valueOf(productos)))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.content.length()").value(productos))
+                    .andExpect(jsonPath("$.content[0].variantes.length()").value(2));
+            sentenciasPorTamano.put(productos, estadisticas.getPrepareStatementCount());
+        }
+
+        assertEquals(Map.of(1, (long) SENTENCIAS_PAGINA, 10, (long) SENTENCIAS_PAGINA, 50, (long) SENTENCIAS_PAGINA),
+                sentenciasPorTamano);
+    }
+
+    private Long crearCategoriaConProductos(int cantidad) {
+        Categoria categoria = categoriaRepository.save(new Categoria("Categoría " + UUID.randomUUID(), "Categoría de prueba"));
+        for (int i = 0; i < cantidad; i++) {
+            Producto producto = new Producto("Guante de nitrilo " + i, "Guante de examinación sin polvo", "Marca " + (i % 5),
+                    categoria, true);
+            producto.setImagenPrincipal("/uploads/productos/guante-" + i + ".jpg");
+            producto.setImagenesGaleria(List.of("/uploads/productos/guante-" + i + "-a.jpg",
+                    "/uploads/productos/guante-" + i + "-b.jpg"));
+            producto = productoRepository.save(producto);
+            for (String nombre : List.of("Talla S", "Talla M")) {
+                VarianteProducto variante = varianteProductoRepository.save(new VarianteProducto(nombre, nombre, producto));
+                unidadDeVentaRepository.save(new UnidadDeVenta("SKU-" + UUID.randomUUID(), "Caja x 100 Unidades",
+                        new BigDecimal("9.90"), 100, variante));
+            }
+        }
+        return categoria.getId();
+    }
+}
@@ -0,0 +1,55 @@
+package com.inmedt.ecommerce.security;
+
+import com.inmedt.ecommerce.IntegracionTest;
+import com.inmedt.ecommerce.model.User;
+import com.inmedt.ecommerce.service.AdminUserService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+class UserPrincipalCacheTest extends IntegracionTest {
+
+    @Autowired
+    private AdminUserService adminUserService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    /**
+     * Tras cambiar la contraseña, el token anterior se rechaza aunque la caché se haya perdido
+     * (reinicio u otra instancia, que no vieron la invalidación)
+     */
+    @Test
+    void tokenAnteriorAlCambioDeContrasenaSeRechazaEnOtraInstancia() throws Exception {
+        User user = crearCliente();
+        String anterior = token(user);
+        mockMvc.perform(get("/carrito").header("Authorization", anterior)).andExpect(status().isOk());
+
+        adminUserService.updateUserPassword(user.getId(), "nuevaPassword123");
+        userPrincipalCache.init();
+
+        mockMvc.perform(get("/carrito").header("Authorization", anterior)).andExpect(status().isForbidden());
+        String nuevo = token(userRepository.findById(user.getId()).orElseThrow());
+        mockMvc.perform(get("/carrito").header("Authorization", nuevo)).andExpect(status().isOk());
+    }
+
+    /**
+     * Un administrador degradado por otra instancia (sin invalidar la caché local) pierde el acceso al
+     * panel en la siguiente petición: los tokens de administrador siempre se verifican en la base de datos
+     */
+    @Test
+    void administradorDegradadoPierdeElAccesoDeInmediato() throws Exception {
+        User admin = crearCliente();
+        admin.setRole(User.Role.ROLE_ADMIN);
+        admin = userRepository.save(admin);
+        String token = token(admin);
+        mockMvc.perform(get("/admin/usuarios").header("Authorization", token)).andExpect(status().isOk());
+
+        jdbcTemplate.update("UPDATE users SET role = 'ROLE_CLIENTE' WHERE id = ?", admin.getId());
+
+        mockMvc.perform(get("/admin/usuarios").header("Authorization", token)).andExpect(status().isForbidden());
+    }
+}
@@ -0,0 +1,65 @@
+package com.inmedt.ecommerce.service;
+
+import com.inmedt.ecommerce.ConsultasSql;
+import com.inmedt.ecommerce.IntegracionTest;
+import com.inmedt.ecommerce.dto.PedidoResponse;
+import com.inmedt.ecommerce.model.UnidadDeVenta;
+import com.inmedt.ecommerce.model.User;
+import com.inmedt.ecommerce.repository.PedidoRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class AdminPedidoServiceTest extends IntegracionTest {
+
+    private static final int PEDIDOS = 2500;
+
+    @Autowired
+    private AdminPedidoService adminPedidoService;
+
+    @Autowired
+    private PedidoRepository pedidoRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    /**
+     * Todos los pedidos, con sus items, cargando usuarios e items en lotes de 1000 ids
+     */
+    @Test
+    void getAllPedidosCargaLosItemsPorLotes() throws Exception {
+        User user = crearCliente();
+        UnidadDeVenta unidad = crearUnidades(1, new BigDecimal("12.50"), 100).get(0);
+        String prefijo = "LOTE-" + user.getId() + "-";
+        jdbcTemplate.update("INSERT INTO pedidos (numero_pedido, subtotal, costo_envio, iva, total, estado, direccion_envio, " +
+                "created_at, updated_at, user_id) SELECT ? || n, 12.50, 2.99, 1.88, 17.37, 'CONFIRMADO', 'Av. Amazonas', " +
+                "now(), now(), ? FROM generate_series(1, ?) AS n", prefijo, user.getId(), PEDIDOS);
+        jdbcTemplate.update("INSERT INTO pedido_items (cantidad, precio_unitario, subtotal, pedido_id, unidad_venta_id) " +
+                "SELECT 1, 12.50, 12.50, id, ? FROM pedidos WHERE numero_pedido LIKE ?", unidad.getId(), prefijo + "%");
+        long totalPedidos = pedidoRepository.count();
+
+        List<PedidoResponse> todos = new ArrayList<>();
+        int sentencias = ConsultasSql.contar(() -> todos.addAll(adminPedidoService.getAllPedidos()));
+
+        List<PedidoResponse> delUsuario = todos.stream()
+                .filter(pedido -> pedido.getNumeroPedido().startsWith(prefijo))
+                .toList();
+        assertEquals(PEDIDOS, delUsuario.size());
+        assertTrue(delUsuario.stream().allMatch(pedido -> pedido.getItems().size() == 1
+                && pedido.getItems().get(0).getUnidadVenta().getId().equals(unidad.getId())));
+
+        // Pedidos + una consulta de items por cada 1000 pedidos + usuarios (cada uno con su carrito, relación uno a
+        // uno inversa): sigue siendo proporcional a los pedidos / 1000, no a los pedidos
+        long lotesPedidos = (totalPedidos + 999) / 1000;
+        long usuarios = todos.stream().map(PedidoResponse::getUserEmail).distinct().count();
+        assertTrue(sentencias <= 1 + lotesPedidos + (usuarios + 999) / 1000 + usuarios,
+                "Sentencias: " + sentencias + " para " + totalPedidos + " pedidos");
+    }
+}
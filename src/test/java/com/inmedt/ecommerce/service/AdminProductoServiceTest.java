@@ -0,0 +1,60 @@
+package com.inmedt.ecommerce.service;
+
+import com.inmedt.ecommerce.IntegracionTest;
+import com.inmedt.ecommerce.dto.CursorPageResponse;
+import com.inmedt.ecommerce.dto.ProductoResponse;
+import com.inmedt.ecommerce.model.Categoria;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class AdminProductoServiceTest extends IntegracionTest {
+
+    // Más coincidencias que parámetros admite una sentencia en el protocolo de PostgreSQL (65535)
+    private static final int COINCIDENCIAS = 70_000;
+
+    @Autowired
+    private AdminProductoService adminProductoService;
+
+    @Autowired
+    private BusquedaProductoService busquedaProductoService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void busquedaDeTextoCompletoConMuchasCoincidencias() {
+        assertTrue(busquedaProductoService.isDisponible());
+        Categoria categoria = categoriaRepository.save(new Categoria("Categoría " + UUID.randomUUID(), "Categoría de prueba"));
+        jdbcTemplate.update("INSERT INTO productos (nombre, descripcion, marca, activo, categoria_id) " +
+                "SELECT 'Tensiómetro zafírico ' || n, 'Digital de brazo', 'Marca ' || (n % 7), true, ? " +
+                "FROM generate_series(1, ?) AS n", categoria.getId(), COINCIDENCIAS);
+        try {
+            // Sin tilde: el índice es insensible a tildes
+            Page<ProductoResponse> pagina = adminProductoService.getAllProductos(
+                    PageRequest.of(1, 20, Sort.by("id")), "zafirico", categoria.getId(), true, null);
+            assertEquals(COINCIDENCIAS, pagina.getTotalElements());
+            assertEquals(20, pagina.getContent().size());
+            assertTrue(pagina.getContent().get(0).getNombre().startsWith("Tensiómetro zafírico"));
+
+            CursorPageResponse<ProductoResponse> primera = adminProductoService.getProductosPorCursor(
+                    "zafirico", categoria.getId(), null, null, "id", false, null, 50);
+            assertEquals(50, primera.getContent().size());
+            assertNotNull(primera.getNextCursor());
+
+            assertEquals(0, adminProductoService.getAllProductos(
+                    PageRequest.of(0, 20), "zafirico ecografo", categoria.getId(), null, null).getTotalElements());
+        } finally {
+            jdbcTemplate.update("DELETE FROM productos WHERE categoria_id = ?", categoria.getId());
+        }
+    }
+}
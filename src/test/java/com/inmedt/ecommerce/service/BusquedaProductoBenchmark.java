@@ -0,0 +1,109 @@
+package com.inmedt.ecommerce.service;
+
+import com.inmedt.ecommerce.IntegracionTest;
+import com.inmedt.ecommerce.config.CacheConfig;
+import com.inmedt.ecommerce.model.Categoria;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.CacheManager;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Benchmark de la búsqueda del catálogo: siembra un catálogo sintético (100.000 productos por defecto, 1 de cada
+ * 100 con "jeringa" en el nombre) y mide GET /productos/search con texto completo (por relevancia y por nombre)
+ * frente a la búsqueda LIKE que se usa cuando el índice no está disponible.
+ * Su nombre no termina en Test: {@code mvn test} no lo ejecuta, hay que pedirlo con
+ * {@code mvn test -Dtest=BusquedaProductoBenchmark} (misma base de pruebas que IntegracionTest).
+ */
+@ActiveProfiles("benchmark")
+class BusquedaProductoBenchmark extends IntegracionTest {
+
+    private static final int CALENTAMIENTO = 3;
+
+    @Autowired
+    private BusquedaProductoService busquedaProductoService;
+
+    @Autowired
+    private CacheManager cacheManager;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Value("${app.busqueda.benchmark.productos:100000}")
+    private int productos;
+
+    @Value("${app.busqueda.benchmark.repeticiones:20}")
+    private int repeticiones;
+
+    @Test
+    void buscarConTextoCompletoYConLike() throws Exception {
+        assertTrue(busquedaProductoService.isDisponible(), "Sin índice de texto completo no hay nada que comparar");
+        Categoria categoria = categoriaRepository.save(new Categoria("Categoría " + UUID.randomUUID(), "Categoría de benchmark"));
+        jdbcTemplate.update("INSERT INTO productos (nombre, descripcion, marca, activo, categoria_id) " +
+                "SELECT 'Producto de prueba ' || g || CASE WHEN g % 100 = 0 THEN ' jeringa' ELSE ' guante' END, " +
+                "'Descripción sintética número ' || g, 'Marca ' || (g % 50), true, ? " +
+                "FROM generate_series(1, ?) AS g", categoria.getId(), productos);
+        jdbcTemplate.execute("ANALYZE productos");
+
+        System.out.println("\n🏁 ========================================");
+        System.out.println("🏁 BENCHMARK DE BÚSQUEDA DEL CATÁLOGO");
+        System.out.println("========================================");
+        System.out.println("📦 " + productos + " productos, " + productos / 100 + " con \"jeringa\"; " +
+                repeticiones + " búsquedas por caso");
+
+        List<String> filas = new ArrayList<>();
+        try {
+            filas.add(medir("texto completo, relevancia", buscar("jeringa", "relevancia")));
+            filas.add(medir("texto completo, nombre", buscar("jeringa", "nombre")));
+            ReflectionTestUtils.setField(busquedaProductoService, "disponible", false);
+            filas.add(medir("LIKE, nombre", buscar("jeringa", "relevancia")));
+        } finally {
+            ReflectionTestUtils.setField(busquedaProductoService, "disponible", true);
+            jdbcTemplate.update("DELETE FROM productos WHERE categoria_id = ?", categoria.getId());
+        }
+
+        System.out.println("\n caso                       | media ms | p50 ms | p95 ms | máx ms");
+        System.out.println("----------------------------+----------+--------+--------+-------");
+        filas.forEach(System.out::println);
+        System.out.println("========================================\n");
+    }
+
+    private MockHttpServletRequestBuilder buscar(String q, String sortBy) {
+        return get("/productos/search").param("q", q).param("sortBy", sortBy).param("size", "24");
+    }
+
+    /**
+     * Tiempos de la petición sin la caché del catálogo (se vacía antes de cada búsqueda)
+     */
+    private String medir(String caso, MockHttpServletRequestBuilder peticion) throws Exception {
+        double[] tiempos = new double[repeticiones];
+        for (int i = -CALENTAMIENTO; i < repeticiones; i++) {
+            cacheManager.getCache(CacheConfig.PRODUCTOS_PAGINAS).clear();
+            long inicio = System.nanoTime();
+            mockMvc.perform(peticion)
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.totalElements").value(productos / 100));
+            if (i >= 0) {
+                tiempos[i] = (System.nanoTime() - inicio) / 1_000_000.0;
+            }
+        }
+
+        Arrays.sort(tiempos);
+        return String.format(" %-26s | %8.1f | %6.1f | %6.1f | %6.1f", caso, Arrays.stream(tiempos).average().orElse(0),
+                tiempos[repeticiones / 2], tiempos[(int) Math.ceil(repeticiones * 0.95) - 1], tiempos[repeticiones - 1]);
+    }
+}
@@ -0,0 +1,136 @@
+package com.inmedt.ecommerce.service;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.inmedt.ecommerce.IntegracionTest;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Benchmark de la importación del catálogo: genera un catálogo sintético y lo importa con 1, 2, 4...
+ * hasta el máximo de workers, mostrando duración, unidades por segundo y aceleración respecto a 1 worker.
+ * Su nombre no termina en Test: {@code mvn test} no lo ejecuta, hay que pedirlo con
+ * {@code mvn test -Dtest=CatalogoImportBenchmark} (misma base de pruebas que IntegracionTest).
+ */
+@ActiveProfiles("benchmark")
+class CatalogoImportBenchmark extends IntegracionTest {
+
+    @Autowired
+    private CatalogoImportService catalogoImportService;
+
+    @Value("${app.catalogo.benchmark.categorias:20}")
+    private int categorias;
+
+    @Value("${app.catalogo.benchmark.productos-por-categoria:500}")
+    private int productosPorCategoria;
+
+    @Value("${app.catalogo.benchmark.variantes-por-producto:3}")
+    private int variantesPorProducto;
+
+    @Value("${app.catalogo.benchmark.unidades-por-variante:2}")
+    private int unidadesPorVariante;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Test
+    void importarConDistintosWorkers() throws Exception {
+        int maxWorkers = catalogoImportService.getMaxWorkers();
+        List<Integer> niveles = new ArrayList<>();
+        for (int workers = 1; workers < maxWorkers; workers *= 2) {
+            niveles.add(workers);
+        }
+        niveles.add(maxWorkers);
+
+        long unidades = (long) categorias * productosPorCategoria * variantesPorProducto * unidadesPorVariante;
+        System.out.println("\n🏁 ========================================");
+        System.out.println("🏁 BENCHMARK DE IMPORTACIÓN DEL CATÁLOGO");
+        System.out.println("========================================");
+        System.out.println("📦 " + categorias + " categorías x " + productosPorCategoria + " productos x " +
+                variantesPorProducto + " variantes x " + unidadesPorVariante + " unidades = " + unidades + " unidades");
+        System.out.println("⚙️ Workers: " + niveles);
+
+        String ejecucion = Long.toString(System.currentTimeMillis(), 36);
+        Long base = null;
+        List<String> filas = new ArrayList<>();
+        for (int workers : niveles) {
+            // Nombres distintos en cada medición: todas insertan el catálogo completo
+            Path archivo = generarCatalogo("BENCH-" + ejecucion + "-W" + workers);
+            try {
+                Map<String, Object> resultado = catalogoImportService.importarCatalogo(archivo.toString(), workers);
+                assertEquals(Boolean.TRUE, resultado.get("success"),
+                        "Falló la medición con " + workers + " workers: " + resultado.get("error"));
+                long duracionMs = (Long) resultado.get("duracionMs");
+                if (base == null) {
+                    base = duracionMs;
+                }
+                filas.add(String.format("%8d | %11d | %10s | %10.2fx | %7s",
+                        workers, duracionMs, resultado.get("unidadesPorSegundo"),
+                        (double) base / duracionMs, resultado.get("errores")));
+            } finally {
+                Files.deleteIfExists(archivo);
+            }
+        }
+
+        System.out.println("\n workers | duración ms | unidades/s | aceleración | errores");
+        System.out.println("---------+-------------+------------+-------------+--------");
+        filas.forEach(System.out::println);
+        System.out.println("========================================\n");
+    }
+
+    /**
+     * Escribe el catálogo sintético en streaming, con la misma estructura que catalogo.json
+     */
+    private Path generarCatalogo(String prefijo) throws IOException {
+        Path archivo = Files.createTempFile("inmedt-catalogo-benchmark-", ".json");
+        try (JsonGenerator json = objectMapper.getFactory().createGenerator(archivo.toFile(), JsonEncoding.UTF8)) {
+            json.writeStartObject();
+            json.writeObjectFieldStart("catalogo");
+            json.writeArrayFieldStart("categorias");
+            for (int c = 0; c < categorias; c++) {
+                json.writeStartObject();
+                json.writeStringField("nombre", prefijo + " Categoría " + c);
+                json.writeArrayFieldStart("productos");
+                for (int p = 0; p < productosPorCategoria; p++) {
+                    json.writeStartObject();
+                    json.writeStringField("nombre", prefijo + " Producto " + c + "-" + p);
+                    json.writeStringField("descripcion", "Producto sintético número " + p + " de la categoría " + c);
+                    json.writeStringField("marca", "Marca " + (p % 50));
+                    json.writeArrayFieldStart("variantes");
+                    for (int v = 0; v < variantesPorProducto; v++) {
+                        json.writeStartObject();
+                        json.writeStringField("nombre", "Variante " + v);
+                        json.writeArrayFieldStart("unidadesDeVenta");
+                        for (int u = 0; u < unidadesPorVariante; u++) {
+                            json.writeStartObject();
+                            json.writeStringField("descripcion", "Caja x " + ((u + 1) * 10) + " Unidades");
+                            json.writeNumberField("precio", 1.5 + p % 100 + u * 10);
+                            json.writeEndObject();
+                        }
+                        json.writeEndArray();
+                        json.writeEndObject();
+                    }
+                    json.writeEndArray();
+                    json.writeEndObject();
+                }
+                json.writeEndArray();
+                json.writeEndObject();
+            }
+            json.writeEndArray();
+            json.writeEndObject();
+            json.writeEndObject();
+        }
+        return archivo;
+    }
+}
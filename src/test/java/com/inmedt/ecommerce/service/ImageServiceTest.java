@@ -0,0 +1,122 @@
+package com.inmedt.ecommerce.service;
+
+import com.inmedt.ecommerce.IntegracionTest;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import javax.imageio.ImageIO;
+import java.awt.Color;
+import java.awt.GradientPaint;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ImageServiceTest extends IntegracionTest {
+
+    private static final int SUBIDAS = 8;
+
+    // Una foto de 6000x4000 decodificada completa ocupa ~72 MB; submuestreada, entre 1x y 2x app.image.max-size
+    private static final long MAXIMO_MB = 128;
+
+    @Autowired
+    private ImageService imageService;
+
+    @TempDir
+    Path temporal;
+
+    /**
+     * Subidas simultáneas de fotos grandes (contenido distinto en cada una, para que ninguna se reutilice):
+     * el heap vivo durante el procesamiento no crece con el número de subidas ni con la resolución de la foto
+     */
+    @Test
+    void subidasSimultaneasDeFotosGrandesTienenElHeapAcotado() throws Exception {
+        Path foto = temporal.resolve("foto.jpg");
+        escribirFoto(foto, 6000, 4000);
+        List<Path> archivos = new ArrayList<>();
+        for (int i = 0; i < SUBIDAS; i++) {
+            // Bytes después del fin del JPEG: los lectores los ignoran pero cambian el hash
+            Path archivo = temporal.resolve("foto-" + i + ".jpg");
+            Files.copy(foto, archivo);
+            Files.write(archivo, ("subida-" + i + "-" + System.nanoTime()).getBytes(), StandardOpenOption.APPEND);
+            archivos.add(archivo);
+        }
+
+        MemoryMXBean memoria = ManagementFactory.getMemoryMXBean();
+        System.gc();
+        long base = memoria.getHeapMemoryUsage().getUsed();
+
+        ExecutorService executor = Executors.newFixedThreadPool(SUBIDAS + 1);
+        AtomicLong maximo = new AtomicLong();
+        AtomicBoolean terminado = new AtomicBoolean();
+        try {
+            // Heap vivo: se mide justo después de forzar una recolección, para no contar basura pendiente
+            Future<?> monitor = executor.submit(() -> {
+                while (!terminado.get()) {
+                    System.gc();
+                    maximo.accumulateAndGet(memoria.getHeapMemoryUsage().getUsed(), Math::max);
+                    Thread.sleep(20);
+                }
+                return null;
+            });
+
+            CountDownLatch salida = new CountDownLatch(1);
+            List<Future<Map<String, String>>> subidas = new ArrayList<>();
+            for (Path archivo : archivos) {
+                subidas.add(executor.submit(() -> {
+                    salida.await();
+                    return imageService.saveProductImage(archivo, "image/jpeg", archivo.getFileName().toString(), true);
+                }));
+            }
+            salida.countDown();
+
+            for (Future<Map<String, String>> subida : subidas) {
+                Map<String, String> urls = subida.get(120, TimeUnit.SECONDS);
+                assertNotNull(urls.get("main"));
+                assertNotNull(urls.get("thumbnail"));
+            }
+            terminado.set(true);
+            monitor.get(10, TimeUnit.SECONDS);
+        } finally {
+            terminado.set(true);
+            executor.shutdownNow();
+        }
+
+        long picoMb = (maximo.get() - base) / (1024 * 1024);
+        System.out.printf("📊 %d subidas simultáneas de 6000x4000: pico de heap vivo +%d MB%n", SUBIDAS, picoMb);
+        assertTrue(picoMb < MAXIMO_MB, "Pico de heap vivo de " + picoMb + " MB sobre la base");
+    }
+
+    private static void escribirFoto(Path destino, int ancho, int alto) throws Exception {
+        BufferedImage imagen = new BufferedImage(ancho, alto, BufferedImage.TYPE_3BYTE_BGR);
+        Graphics2D g = imagen.createGraphics();
+        try {
+            g.setPaint(new GradientPaint(0, 0, new Color(30, 90, 160), ancho, alto, new Color(230, 240, 250)));
+            g.fillRect(0, 0, ancho, alto);
+            g.setColor(Color.WHITE);
+            for (int x = 0; x < ancho; x += 250) {
+                g.fillRect(x, alto / 3, 120, alto / 3);
+            }
+        } finally {
+            g.dispose();
+        }
+        ImageIO.write(imagen, "jpg", destino.toFile());
+    }
+}